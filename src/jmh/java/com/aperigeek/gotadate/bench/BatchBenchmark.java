@@ -0,0 +1,91 @@
+/*
+ * This file is part of gotadate.
+ *
+ * gotadate is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * gotadate is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with gotadate.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.aperigeek.gotadate.bench;
+
+import com.aperigeek.gotadate.DateExtractor;
+import com.aperigeek.gotadate.parser.DateParseException;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.ZonedDateTime;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Compares parsing many short messages one by one, and as a batch.
+ * 
+ * @author Vivien Barousse
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class BatchBenchmark {
+    
+    @Param({"10000"})
+    private int count;
+    
+    private String[] messages;
+    
+    private DateExtractor extractor;
+    
+    private ZonedDateTime now;
+    
+    @Setup
+    public void setUp() {
+        messages = Inputs.messages(count);
+        extractor = new DateExtractor();
+        now = ZonedDateTime.ofInstant(Instant.ofEpochMilli(1319364000000L),
+                ZoneId.systemDefault()); // 2011-10-23
+    }
+    
+    @Benchmark
+    public List<List<Date>> extractEach() throws DateParseException {
+        List<List<Date>> results = new ArrayList<List<Date>>(messages.length);
+        for (String message : messages) {
+            results.add(extractor.extract(message, now));
+        }
+        return results;
+    }
+    
+    @Benchmark
+    public List<List<Date>> extractAll() throws DateParseException {
+        return extractor.extractAll(messages, now);
+    }
+    
+    @Benchmark
+    @Threads(Threads.MAX)
+    public List<List<Date>> extractAllConcurrent() throws DateParseException {
+        return extractAll();
+    }
+    
+}
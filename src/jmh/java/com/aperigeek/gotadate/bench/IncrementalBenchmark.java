@@ -0,0 +1,99 @@
+/*
+ * This file is part of gotadate.
+ *
+ * gotadate is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * gotadate is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with gotadate.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.aperigeek.gotadate.bench;
+
+import com.aperigeek.gotadate.DateExtractor;
+import com.aperigeek.gotadate.IncrementalExtractor;
+import com.aperigeek.gotadate.parser.DateMatch;
+import com.aperigeek.gotadate.parser.DateParseException;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.time.ZonedDateTime;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures a keystroke in the middle of a text: an incremental edit
+ * against a full parse of the edited text.
+ * 
+ * @author Vivien Barousse
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class IncrementalBenchmark {
+    
+    @Param({"EMAIL", "LOG"})
+    private Inputs input;
+    
+    private StringBuilder text;
+    
+    private ZonedDateTime now;
+    
+    private DateExtractor extractor;
+    
+    private IncrementalExtractor incremental;
+    
+    private int offset;
+    
+    private boolean typed;
+    
+    @Setup
+    public void setUp() throws DateParseException {
+        text = new StringBuilder(input.text());
+        now = Instant.ofEpochMilli(1319364000000L).atZone(ZoneOffset.UTC);
+        extractor = new DateExtractor();
+        incremental = extractor.incremental(text, now);
+        offset = text.length() / 2;
+    }
+    
+    /**
+     * Types a digit, or deletes it, alternately.
+     */
+    @Benchmark
+    public List<DateMatch> edit() throws DateParseException {
+        typed = !typed;
+        return typed ? incremental.edit(offset, 0, "1")
+                : incremental.edit(offset, 1, "");
+    }
+    
+    @Benchmark
+    public List<DateMatch> fullParse() throws DateParseException {
+        typed = !typed;
+        if (typed) {
+            text.insert(offset, '1');
+        } else {
+            text.deleteCharAt(offset);
+        }
+        return extractor.extractMatches(text, now);
+    }
+    
+}
@@ -0,0 +1,152 @@
+/*
+ * This file is part of gotadate.
+ *
+ * gotadate is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * gotadate is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with gotadate.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.aperigeek.gotadate.bench;
+
+import java.util.Random;
+
+/**
+ * Sample texts used by the benchmarks.
+ * 
+ * Inputs are generated from a fixed seed so that two runs of the same
+ * benchmark always see exactly the same characters.
+ * 
+ * @author Vivien Barousse
+ */
+public enum Inputs {
+    
+    /**
+     * A few words, as found in a chat message or a mail subject.
+     */
+    SHORT {
+        @Override
+        protected String generate() {
+            return "tomorrow at 5pm";
+        }
+    },
+    
+    /**
+     * A few kilobytes of prose with a handful of dates, as in a typical
+     * email body.
+     */
+    EMAIL {
+        @Override
+        protected String generate() {
+            Random random = new Random(42);
+            StringBuilder builder = new StringBuilder();
+            builder.append("Hi all,\n\n");
+            while (builder.length() < 4 * 1024) {
+                appendSentence(builder, random);
+                if (random.nextInt(4) == 0) {
+                    builder.append(' ');
+                    builder.append(DATES[random.nextInt(DATES.length)]);
+                    builder.append('.');
+                }
+                builder.append(random.nextInt(6) == 0 ? "\n\n" : " ");
+            }
+            builder.append("\nRegards,\nVivien\n");
+            return builder.toString();
+        }
+    },
+    
+    /**
+     * Several megabytes of log lines, each one starting with a timestamp.
+     */
+    LOG {
+        @Override
+        protected String generate() {
+            Random random = new Random(42);
+            StringBuilder builder = new StringBuilder();
+            while (builder.length() < 4 * 1024 * 1024) {
+                builder.append(1 + random.nextInt(28)).append('/');
+                builder.append(1 + random.nextInt(12)).append("/2011 ");
+                builder.append(random.nextInt(24)).append(':');
+                builder.append(random.nextInt(60)).append(':');
+                builder.append(random.nextInt(60)).append(' ');
+                builder.append(LEVELS[random.nextInt(LEVELS.length)]);
+                builder.append(' ');
+                appendSentence(builder, random);
+                builder.append('\n');
+            }
+            return builder.toString();
+        }
+    };
+    
+    private static final String[] WORDS = {
+        "the", "meeting", "has", "been", "moved", "please", "confirm",
+        "that", "you", "can", "attend", "report", "attached", "server",
+        "request", "completed", "with", "status", "thanks", "again", "for",
+        "your", "help", "on", "this", "we", "should", "discuss", "it"
+    };
+    
+    private static final String[] DATES = {
+        "tomorrow at 10", "yesterday", "23/10/1988", "October 23rd",
+        "3 days ago", "at 6 PM", "23 October 2011 11:30", "Jan 4, 2012"
+    };
+    
+    private static final String[] LEVELS = {
+        "INFO", "WARN", "DEBUG", "ERROR"
+    };
+    
+    private String text;
+    
+    protected abstract String generate();
+    
+    public synchronized String text() {
+        if (text == null) {
+            text = generate();
+        }
+        return text;
+    }
+    
+    /**
+     * Generates short messages, like the SHORT input, a quarter of them
+     * containing a date.
+     */
+    public static String[] messages(int count) {
+        Random random = new Random(42);
+        String[] messages = new String[count];
+        StringBuilder builder = new StringBuilder();
+        for (int i = 0; i < count; i++) {
+            builder.setLength(0);
+            int length = 1 + random.nextInt(5);
+            for (int j = 0; j < length; j++) {
+                if (j > 0) {
+                    builder.append(' ');
+                }
+                builder.append(WORDS[random.nextInt(WORDS.length)]);
+            }
+            if (random.nextInt(4) == 0) {
+                builder.append(' ');
+                builder.append(DATES[random.nextInt(DATES.length)]);
+            }
+            messages[i] = builder.toString();
+        }
+        return messages;
+    }
+    
+    private static void appendSentence(StringBuilder builder, Random random) {
+        int length = 5 + random.nextInt(10);
+        for (int i = 0; i < length; i++) {
+            if (i > 0) {
+                builder.append(' ');
+            }
+            builder.append(WORDS[random.nextInt(WORDS.length)]);
+        }
+        builder.append('.');
+    }
+    
+}
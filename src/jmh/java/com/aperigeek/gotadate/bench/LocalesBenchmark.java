@@ -0,0 +1,86 @@
+/*
+ * This file is part of gotadate.
+ *
+ * gotadate is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * gotadate is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with gotadate.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.aperigeek.gotadate.bench;
+
+import com.aperigeek.gotadate.DateExtractor;
+import com.aperigeek.gotadate.parser.DateParseException;
+import com.aperigeek.gotadate.token.Keywords;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.time.ZonedDateTime;
+import java.util.Date;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures the cost of enabling more languages: all the vocabularies are
+ * compiled into the same keywords, so it should stay flat.
+ * 
+ * @author Vivien Barousse
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class LocalesBenchmark {
+    
+    @Param({"en", "en,fr", "en,fr,de,es"})
+    private String locales;
+    
+    @Param({"EMAIL", "LOG"})
+    private Inputs input;
+    
+    private String text;
+    
+    private DateExtractor extractor;
+    
+    private ZonedDateTime now;
+    
+    @Setup
+    public void setUp() {
+        String[] tags = locales.split(",");
+        Locale[] languages = new Locale[tags.length];
+        for (int i = 0; i < tags.length; i++) {
+            languages[i] = new Locale(tags[i]);
+        }
+        
+        text = input.text();
+        extractor = new DateExtractor(Keywords.forLocales(languages));
+        now = ZonedDateTime.ofInstant(Instant.ofEpochMilli(1319364000000L),
+                ZoneOffset.UTC); // 2011-10-23
+    }
+    
+    @Benchmark
+    public List<Date> extract() throws DateParseException {
+        return extractor.extract(text, now);
+    }
+    
+}
@@ -0,0 +1,91 @@
+/*
+ * This file is part of gotadate.
+ *
+ * gotadate is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * gotadate is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with gotadate.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.aperigeek.gotadate.bench;
+
+import com.aperigeek.gotadate.parser.la.LookAheadTable;
+import com.aperigeek.gotadate.token.DateTokenizer;
+import com.aperigeek.gotadate.token.TokenizerException;
+import java.io.StringReader;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * Measures the look ahead table, using the same access pattern as the
+ * parser: a few lookups ahead of the current token, then a pop or an
+ * advance.
+ * 
+ * @author Vivien Barousse
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class LookAheadTableBenchmark {
+    
+    @Param({"SHORT", "EMAIL", "LOG"})
+    private Inputs input;
+    
+    private String text;
+    
+    @Setup
+    public void setUp() {
+        text = input.text();
+    }
+    
+    @Benchmark
+    public void getAndPop(Blackhole bh) throws TokenizerException {
+        DateTokenizer tokenizer = new DateTokenizer(new StringReader(text));
+        LookAheadTable table = new LookAheadTable(tokenizer);
+        while (table.get(0) != null) {
+            bh.consume(table.get(1));
+            bh.consume(table.get(2));
+            bh.consume(table.pop());
+        }
+    }
+    
+    @Benchmark
+    @Threads(Threads.MAX)
+    public void getAndPopConcurrent(Blackhole bh) throws TokenizerException {
+        getAndPop(bh);
+    }
+    
+    @Benchmark
+    public void getAndAdvance(Blackhole bh) throws TokenizerException {
+        DateTokenizer tokenizer = new DateTokenizer(new StringReader(text));
+        LookAheadTable table = new LookAheadTable(tokenizer);
+        while (table.getType(0) != null) {
+            bh.consume(table.getType(1));
+            bh.consume(table.getType(2));
+            table.advance();
+        }
+    }
+    
+}
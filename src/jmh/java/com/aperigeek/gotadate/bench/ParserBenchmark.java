@@ -0,0 +1,114 @@
+/*
+ * This file is part of gotadate.
+ *
+ * gotadate is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * gotadate is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with gotadate.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.aperigeek.gotadate.bench;
+
+import com.aperigeek.gotadate.DateExtractor;
+import com.aperigeek.gotadate.parser.DateBuffer;
+import com.aperigeek.gotadate.parser.DateParseException;
+import com.aperigeek.gotadate.parser.DateParser;
+import com.aperigeek.gotadate.token.DateTokenizer;
+import com.aperigeek.gotadate.token.TokenizerException;
+import java.io.StringReader;
+import java.time.ZoneId;
+import java.time.ZonedDateTime;
+import java.util.Date;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures a full parse, from the raw text to the list of parsed dates.
+ * 
+ * @author Vivien Barousse
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ParserBenchmark {
+    
+    @Param({"SHORT", "EMAIL", "LOG"})
+    private Inputs input;
+    
+    private String text;
+    
+    private Date now;
+    
+    private DateExtractor extractor;
+    
+    private ZonedDateTime extractorNow;
+    
+    private DateBuffer buffer;
+    
+    @Setup
+    public void setUp() {
+        text = input.text();
+        now = new Date(1319364000000L); // 2011-10-23, fixed for repeatability
+        extractor = new DateExtractor();
+        extractorNow = ZonedDateTime.ofInstant(now.toInstant(),
+                ZoneId.systemDefault());
+        buffer = new DateBuffer();
+    }
+    
+    @Benchmark
+    public List<Date> parse() throws TokenizerException, DateParseException {
+        DateTokenizer tokenizer = new DateTokenizer(new StringReader(text));
+        DateParser parser = new DateParser(tokenizer);
+        parser.setNow(now);
+        parser.parse();
+        return parser.getParsed();
+    }
+    
+    @Benchmark
+    @Threads(Threads.MAX)
+    public List<Date> parseConcurrent() throws TokenizerException,
+                                               DateParseException {
+        return parse();
+    }
+    
+    @Benchmark
+    public List<Date> extract() throws DateParseException {
+        return extractor.extract(text, extractorNow);
+    }
+    
+    @Benchmark
+    @Threads(Threads.MAX)
+    public List<Date> extractConcurrent() throws DateParseException {
+        return extract();
+    }
+    
+    @Benchmark
+    public DateBuffer extractToBuffer() throws DateParseException {
+        buffer.clear();
+        extractor.extract(text, extractorNow, buffer);
+        return buffer;
+    }
+    
+}
@@ -0,0 +1,137 @@
+/*
+ * This file is part of gotadate.
+ *
+ * gotadate is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * gotadate is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with gotadate.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.aperigeek.gotadate.bench;
+
+import com.aperigeek.gotadate.token.ByteBufferTokenizer;
+import com.aperigeek.gotadate.token.CharSequenceTokenizer;
+import com.aperigeek.gotadate.token.DateTokenizer;
+import com.aperigeek.gotadate.token.Keywords;
+import com.aperigeek.gotadate.token.Token;
+import com.aperigeek.gotadate.token.TokenBuffer;
+import com.aperigeek.gotadate.token.TokenizerException;
+import java.io.StringReader;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * Measures the raw tokenization speed, by draining the tokenizers.
+ * 
+ * @author Vivien Barousse
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class TokenizerBenchmark {
+    
+    @Param({"SHORT", "EMAIL", "LOG"})
+    private Inputs input;
+    
+    private String text;
+    
+    private ByteBuffer heapBytes;
+    
+    private ByteBuffer directBytes;
+    
+    @Setup
+    public void setUp() {
+        text = input.text();
+        byte[] bytes = text.getBytes(StandardCharsets.UTF_8);
+        heapBytes = ByteBuffer.wrap(bytes);
+        directBytes = ByteBuffer.allocateDirect(bytes.length);
+        directBytes.put(bytes).flip();
+    }
+    
+    @Benchmark
+    public void next(Blackhole bh) throws TokenizerException {
+        DateTokenizer tokenizer = new DateTokenizer(new StringReader(text));
+        Token token;
+        while ((token = tokenizer.next()) != null) {
+            bh.consume(token);
+        }
+    }
+    
+    @Benchmark
+    @Threads(Threads.MAX)
+    public void nextConcurrent(Blackhole bh) throws TokenizerException {
+        next(bh);
+    }
+    
+    @Benchmark
+    public void nextCharSequence(Blackhole bh) {
+        CharSequenceTokenizer tokenizer = new CharSequenceTokenizer(text);
+        Token token;
+        while ((token = tokenizer.next()) != null) {
+            bh.consume(token);
+        }
+    }
+    
+    @Benchmark
+    @Threads(Threads.MAX)
+    public void nextCharSequenceConcurrent(Blackhole bh) {
+        nextCharSequence(bh);
+    }
+    
+    /**
+     * Decodes UTF-8 bytes to chars before tokenizing them, as when reading
+     * them through an InputStreamReader.
+     */
+    @Benchmark
+    public int bufferDecodedBytes() throws TokenizerException {
+        String decoded = new String(heapBytes.array(), StandardCharsets.UTF_8);
+        return drain(new TokenBuffer(new CharSequenceTokenizer(decoded),
+                Keywords.getDefault()));
+    }
+    
+    @Benchmark
+    public int bufferHeapBytes() throws TokenizerException {
+        return drain(new TokenBuffer(new ByteBufferTokenizer(heapBytes),
+                Keywords.getDefault()));
+    }
+    
+    @Benchmark
+    public int bufferDirectBytes() throws TokenizerException {
+        return drain(new TokenBuffer(new ByteBufferTokenizer(directBytes),
+                Keywords.getDefault()));
+    }
+    
+    private static int drain(TokenBuffer tokens) throws TokenizerException {
+        int count = 0;
+        while (tokens.getType(0) != null) {
+            tokens.advance();
+            count++;
+        }
+        return count;
+    }
+    
+}
@@ -0,0 +1,98 @@
+/*
+ * This file is part of gotadate.
+ *
+ * gotadate is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * gotadate is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with gotadate.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.aperigeek.gotadate;
+
+import com.aperigeek.gotadate.parser.AnchorScanner;
+import com.aperigeek.gotadate.parser.DateParseException;
+import com.aperigeek.gotadate.parser.DateSink;
+import com.aperigeek.gotadate.parser.ParserMetrics;
+import com.aperigeek.gotadate.parser.SparseDateParser;
+import com.aperigeek.gotadate.token.Keywords;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.time.ZonedDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Date;
+import java.util.List;
+
+/**
+ * Parses many short texts in a row, reusing the same parser, and its
+ * tokenizer and token buffer, for all of them.
+ * 
+ * A BatchParser isn't thread-safe. DateExtractor keeps one per thread.
+ * 
+ * @author Vivien Barousse
+ */
+final class BatchParser implements DateSink {
+    
+    private final SparseDateParser parser;
+    
+    /**
+     * Dates of the text being parsed, or null if none has been found yet.
+     */
+    private List<Date> dates;
+
+    BatchParser(Keywords keywords, AnchorScanner anchors,
+                ParserMetrics metrics) {
+        parser = new SparseDateParser("", 0, 0, anchors, keywords,
+                Instant.EPOCH, ZoneOffset.UTC);
+        parser.setMetrics(metrics);
+    }
+    
+    /**
+     * Parses all the given texts against the same reference time.
+     * 
+     * @return the dates of each text, at the index of the text
+     */
+    List<List<Date>> parseAll(List<? extends CharSequence> texts,
+                              ZonedDateTime now) throws DateParseException {
+        List<List<Date>> results = new ArrayList<List<Date>>(texts.size());
+        for (CharSequence text : texts) {
+            results.add(parse(text, now));
+        }
+        return results;
+    }
+    
+    List<Date> parse(CharSequence text, ZonedDateTime now)
+            throws DateParseException {
+        parser.reset(text, 0, text.length(), now);
+        dates = null;
+        
+        try {
+            parser.parse(this);
+            
+            if (dates == null) {
+                return Collections.emptyList();
+            }
+            return Collections.unmodifiableList(dates);
+        } finally {
+            // Don't keep the text alive until the next call on this thread
+            parser.reset("", 0, 0, now);
+            dates = null;
+        }
+    }
+
+    public boolean accept(Date date) {
+        if (dates == null) {
+            dates = new ArrayList<Date>(2);
+        }
+        dates.add(date);
+        return true;
+    }
+    
+}
@@ -0,0 +1,266 @@
+/*
+ * This file is part of gotadate.
+ *
+ * gotadate is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * gotadate is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with gotadate.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.aperigeek.gotadate;
+
+import com.aperigeek.gotadate.parser.DateParseException;
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.time.ZonedDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Date;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * A bounded cache of extraction results, in front of a DateExtractor.
+ * 
+ * Results only depend on the text, and on the day and time zone of the
+ * reference time: relative dates are resolved against the reference day,
+ * and times alone are set on it. Entries are thus keyed by the normalized
+ * text, the reference day and the zone, and stay valid for the whole day.
+ * Texts are normalized by lowering their case and collapsing their spaces,
+ * which doesn't change the dates they contain.
+ * 
+ * The cache is split into segments, each one a small LRU map guarded by its
+ * own lock, so that threads rarely contend. The least recently used entries
+ * of a segment are evicted when it is full. Dates are stored as
+ * milliseconds, and each lookup returns new Date objects, so that callers
+ * can't alter the cached results.
+ * 
+ * @author Vivien Barousse
+ */
+public final class DateCache {
+    
+    private static final int MAX_SEGMENTS = 16;
+    
+    private static final long[] NO_DATES = new long[0];
+    
+    private final DateExtractor extractor;
+    
+    private final Segment[] segments;
+    
+    private final LongAdder hits = new LongAdder();
+    
+    private final LongAdder misses = new LongAdder();
+
+    /**
+     * @param extractor extractor parsing texts missing from the cache
+     * @param maxSize maximum number of cached texts
+     */
+    public DateCache(DateExtractor extractor, int maxSize) {
+        if (maxSize < 1) {
+            throw new IllegalArgumentException("Invalid cache size " + maxSize);
+        }
+        
+        this.extractor = extractor;
+        int count = Math.min(MAX_SEGMENTS, Integer.highestOneBit(maxSize));
+        this.segments = new Segment[count];
+        for (int i = 0; i < count; i++) {
+            // Spread the remainder over the first segments
+            int size = maxSize / count + (i < maxSize % count ? 1 : 0);
+            segments[i] = new Segment(size);
+        }
+    }
+    
+    /**
+     * Extracts the dates of the given text, from the cache if the same text
+     * has already been parsed for the same day.
+     * 
+     * @param text text to extract dates from
+     * @param now reference time, in the reference time zone
+     * @return the dates of the text, in the order they appear
+     */
+    public List<Date> extract(CharSequence text, ZonedDateTime now)
+            throws DateParseException {
+        Key key = new Key(normalize(text), now);
+        Segment segment = segments[(key.hashCode() & Integer.MAX_VALUE)
+                % segments.length];
+        
+        long[] dates = segment.get(key);
+        if (dates != null) {
+            hits.increment();
+        } else {
+            misses.increment();
+            dates = toMillis(extractor.extract(key.text, now));
+            segment.put(key, dates);
+        }
+        return toDates(dates);
+    }
+    
+    /**
+     * Lower cases the text, and replaces each sequence of spaces with a
+     * single one. Chars are lower cased one by one, so that letters stay
+     * letters and the tokens are kept.
+     */
+    static String normalize(CharSequence text) {
+        StringBuilder builder = new StringBuilder(text.length());
+        boolean space = false;
+        for (int i = 0; i < text.length(); i++) {
+            char ch = text.charAt(i);
+            if (Character.isSpaceChar(ch)) {
+                space = true;
+            } else {
+                if (space && builder.length() > 0) {
+                    builder.append(' ');
+                }
+                space = false;
+                builder.append(Character.toLowerCase(ch));
+            }
+        }
+        return builder.toString();
+    }
+    
+    private static long[] toMillis(List<Date> dates) {
+        if (dates.isEmpty()) {
+            return NO_DATES;
+        }
+        long[] millis = new long[dates.size()];
+        for (int i = 0; i < millis.length; i++) {
+            millis[i] = dates.get(i).getTime();
+        }
+        return millis;
+    }
+    
+    private static List<Date> toDates(long[] millis) {
+        if (millis.length == 0) {
+            return Collections.emptyList();
+        }
+        List<Date> dates = new ArrayList<Date>(millis.length);
+        for (long m : millis) {
+            dates.add(new Date(m));
+        }
+        return Collections.unmodifiableList(dates);
+    }
+    
+    /**
+     * Returns the number of lookups answered from the cache.
+     */
+    public long getHitCount() {
+        return hits.sum();
+    }
+    
+    /**
+     * Returns the number of lookups which had to parse their text.
+     */
+    public long getMissCount() {
+        return misses.sum();
+    }
+    
+    /**
+     * Returns the ratio of lookups answered from the cache, or 0 if there
+     * hasn't been any lookup yet.
+     */
+    public double getHitRate() {
+        long h = hits.sum();
+        long total = h + misses.sum();
+        return total == 0 ? 0 : (double) h / total;
+    }
+    
+    /**
+     * Returns the number of cached texts.
+     */
+    public int size() {
+        int size = 0;
+        for (Segment segment : segments) {
+            size += segment.size();
+        }
+        return size;
+    }
+    
+    /**
+     * Removes all the cached results. Statistics are kept.
+     */
+    public void clear() {
+        for (Segment segment : segments) {
+            segment.clear();
+        }
+    }
+    
+    private static final class Key {
+        
+        private final String text;
+        
+        private final LocalDate day;
+        
+        private final ZoneId zone;
+        
+        private final int hash;
+
+        Key(String text, ZonedDateTime now) {
+            this.text = text;
+            this.day = now.toLocalDate();
+            this.zone = now.getZone();
+            this.hash = (text.hashCode() * 31 + day.hashCode()) * 31
+                    + zone.hashCode();
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            if (!(obj instanceof Key)) {
+                return false;
+            }
+            Key other = (Key) obj;
+            return hash == other.hash && text.equals(other.text)
+                    && day.equals(other.day) && zone.equals(other.zone);
+        }
+
+        @Override
+        public int hashCode() {
+            return hash;
+        }
+        
+    }
+    
+    /**
+     * A part of the cache, evicting its least recently used entries.
+     */
+    private static final class Segment {
+        
+        private final LinkedHashMap<Key, long[]> entries;
+
+        Segment(final int maxSize) {
+            entries = new LinkedHashMap<Key, long[]>(16, 0.75f, true) {
+                @Override
+                protected boolean removeEldestEntry(
+                        Map.Entry<Key, long[]> eldest) {
+                    return size() > maxSize;
+                }
+            };
+        }
+        
+        synchronized long[] get(Key key) {
+            return entries.get(key);
+        }
+        
+        synchronized void put(Key key, long[] dates) {
+            entries.put(key, dates);
+        }
+        
+        synchronized int size() {
+            return entries.size();
+        }
+        
+        synchronized void clear() {
+            entries.clear();
+        }
+        
+    }
+    
+}
@@ -0,0 +1,518 @@
+/*
+ * This file is part of gotadate.
+ *
+ * gotadate is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * gotadate is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with gotadate.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.aperigeek.gotadate;
+
+import com.aperigeek.gotadate.parser.AnchorScanner;
+import com.aperigeek.gotadate.parser.DateBuffer;
+import com.aperigeek.gotadate.parser.DateMatch;
+import com.aperigeek.gotadate.parser.DateParseException;
+import com.aperigeek.gotadate.parser.DateParser;
+import com.aperigeek.gotadate.parser.DateSink;
+import com.aperigeek.gotadate.parser.MatchSink;
+import com.aperigeek.gotadate.parser.ParserMetrics;
+import com.aperigeek.gotadate.parser.SparseDateParser;
+import com.aperigeek.gotadate.parser.UncheckedDateParseException;
+import com.aperigeek.gotadate.token.ByteBufferTokenizer;
+import com.aperigeek.gotadate.token.DateTokenizer;
+import com.aperigeek.gotadate.token.Keywords;
+import com.aperigeek.gotadate.token.TokenBuffer;
+import com.aperigeek.gotadate.token.TokenizerException;
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.ZonedDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Date;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+/**
+ * Entry point to extract dates from texts.
+ * 
+ * A DateExtractor is immutable and thread-safe: a single instance can be
+ * shared by all the threads of an application. Each call to extract()
+ * creates its own, lightweight, parsing context, while extractAll() reuses
+ * one context per thread for all its texts. The reference time used
+ * to resolve relative dates ("tomorrow", "3 days ago"...) is given on each
+ * call, as it usually changes from one text to another.
+ * 
+ * The activity of the parsers can be monitored by giving ParserMetrics,
+ * such as a ParserStats, to the constructor. Parallel file scans aren't
+ * monitored, their chunks overlapping each other.
+ * 
+ * Only java.time is needed to use this class: Joda-Time callers go
+ * through a {@link JodaDateExtractor}.
+ * 
+ * @author Vivien Barousse
+ */
+public final class DateExtractor {
+    
+    private final Keywords keywords;
+    
+    private final AnchorScanner anchors;
+    
+    /**
+     * Receiver of the activity of the parsers, or null.
+     */
+    private final ParserMetrics metrics;
+    
+    /**
+     * Parsing context reused by the batch methods, one per thread.
+     */
+    private final ThreadLocal<BatchParser> batchParsers =
+            new ThreadLocal<BatchParser>() {
+        @Override
+        protected BatchParser initialValue() {
+            return new BatchParser(keywords, anchors, metrics);
+        }
+    };
+
+    public DateExtractor() {
+        this(Keywords.getDefault());
+    }
+
+    public DateExtractor(Keywords keywords) {
+        this(keywords, null);
+    }
+
+    /**
+     * Creates an extractor reporting the activity of its parsers.
+     * 
+     * @param keywords keywords to recognize
+     * @param metrics receiver of the activity of the parsers, shared by all
+     * threads, or null to disable monitoring
+     */
+    public DateExtractor(Keywords keywords, ParserMetrics metrics) {
+        this.keywords = keywords;
+        this.anchors = AnchorScanner.forKeywords(keywords);
+        this.metrics = metrics;
+    }
+    
+    /**
+     * Extracts the dates of the given text, relative to the current time in
+     * the default time zone.
+     */
+    public List<Date> extract(CharSequence text) throws DateParseException {
+        return extract(text, Instant.ofEpochMilli(System.currentTimeMillis()),
+                null);
+    }
+    
+    /**
+     * Extracts the dates of the given text.
+     * 
+     * @param text text to extract dates from
+     * @param now reference time, in the reference time zone
+     */
+    public List<Date> extract(CharSequence text, ZonedDateTime now)
+            throws DateParseException {
+        DateParser parser = createParser(text, now);
+        parser.parse();
+        return parser.getParsed();
+    }
+    
+    /**
+     * Extracts the dates of the given text.
+     * 
+     * The zone rules are only looked up once a date is found: a null zone
+     * stands for the system default zone, without resolving it upfront.
+     * 
+     * @param text text to extract dates from
+     * @param now reference instant
+     * @param zone reference time zone, or null for the system default zone
+     */
+    public List<Date> extract(CharSequence text, Instant now, ZoneId zone)
+            throws DateParseException {
+        DateParser parser = new SparseDateParser(text, 0, text.length(),
+                anchors, keywords, now, zone);
+        parser.setMetrics(metrics);
+        parser.parse();
+        return parser.getParsed();
+    }
+    
+    /**
+     * Extracts the dates of the given UTF-8 encoded text, without decoding
+     * it to chars. The position of the buffer is left untouched.
+     * 
+     * @param utf8 text to extract dates from, from its position to its limit
+     * @param now reference time, in the reference time zone
+     */
+    public List<Date> extract(ByteBuffer utf8, ZonedDateTime now)
+            throws DateParseException {
+        DateParser parser = createParser(utf8, now);
+        parser.parse();
+        return parser.getParsed();
+    }
+    
+    /**
+     * Extracts the matches of the given UTF-8 encoded text, without decoding
+     * it to chars. Offsets of the matches are counted in bytes, from the
+     * position of the buffer.
+     * 
+     * @param utf8 text to extract dates from, from its position to its limit
+     * @param now reference time, in the reference time zone
+     */
+    public List<DateMatch> extractMatches(ByteBuffer utf8, ZonedDateTime now)
+            throws DateParseException {
+        return extractMatches(createParser(utf8, now));
+    }
+    
+    /**
+     * Extracts the dates read from the given reader.
+     * 
+     * @param reader source to extract dates from
+     * @param now reference time, in the reference time zone
+     */
+    public List<Date> extract(Reader reader, ZonedDateTime now)
+            throws DateParseException {
+        DateParser parser = createParser(reader, now);
+        parser.parse();
+        return parser.getParsed();
+    }
+    
+    /**
+     * Extracts the dates of the given text, with the rule each of them
+     * matched and its position in the text.
+     * 
+     * @param text text to extract dates from
+     * @param now reference time, in the reference time zone
+     * @return the matches of the text, in the order they appear
+     */
+    public List<DateMatch> extractMatches(CharSequence text, ZonedDateTime now)
+            throws DateParseException {
+        return extractMatches(createParser(text, now));
+    }
+    
+    /**
+     * Extracts the dates read from the given reader, with the rule each of
+     * them matched and its offset in the characters read.
+     * 
+     * @param reader source to extract dates from
+     * @param now reference time, in the reference time zone
+     * @return the matches of the input, in the order they appear
+     */
+    public List<DateMatch> extractMatches(Reader reader, ZonedDateTime now)
+            throws DateParseException {
+        return extractMatches(createParser(reader, now));
+    }
+    
+    /**
+     * Extracts the dates of each of the given texts, relative to the same
+     * reference time.
+     * 
+     * This is meant for large numbers of short texts, like messages or
+     * subject lines: the tokenizer and parser are reused from one text to
+     * the next, instead of being created for each of them.
+     * 
+     * @param texts texts to extract dates from
+     * @param now reference time, in the reference time zone
+     * @return the dates of each text, at the index of the text
+     */
+    public List<List<Date>> extractAll(List<? extends CharSequence> texts,
+                                       ZonedDateTime now)
+            throws DateParseException {
+        return batchParsers.get().parseAll(texts, now);
+    }
+    
+    /**
+     * Extracts the dates of each of the given texts, relative to the same
+     * reference time.
+     * 
+     * @param texts texts to extract dates from
+     * @param now reference time, in the reference time zone
+     * @return the dates of each text, at the index of the text
+     * @see #extractAll(List, ZonedDateTime)
+     */
+    public List<List<Date>> extractAll(CharSequence[] texts, ZonedDateTime now)
+            throws DateParseException {
+        return extractAll(Arrays.asList(texts), now);
+    }
+    
+    /**
+     * Extracts the dates of the given file, parsing chunks of it in parallel
+     * on the common fork-join pool.
+     * 
+     * @param file file to extract dates from
+     * @param charset charset of the file
+     * @param now reference time, in the reference time zone
+     * @return the dates of the file, in the order they appear
+     */
+    public List<Date> extract(Path file, Charset charset, ZonedDateTime now)
+            throws DateParseException {
+        return extract(file, charset, now, ForkJoinPool.commonPool());
+    }
+    
+    /**
+     * Extracts the dates of the given file, parsing chunks of it in parallel
+     * on the given pool.
+     * 
+     * The file is memory mapped, so this is meant for large files. The
+     * result is the same as when parsing the whole file at once. Files in
+     * charsets that can't be safely split, like UTF-16, are parsed
+     * sequentially.
+     * 
+     * @param file file to extract dates from
+     * @param charset charset of the file
+     * @param now reference time, in the reference time zone
+     * @param pool pool to parse chunks on
+     * @return the dates of the file, in the order they appear
+     */
+    public List<Date> extract(Path file, Charset charset, ZonedDateTime now,
+                              ForkJoinPool pool) throws DateParseException {
+        try {
+            if (!ParallelFileScanner.isSplittable(charset)) {
+                Reader reader = new BufferedReader(new InputStreamReader(
+                        Files.newInputStream(file), charset));
+                try {
+                    return extract(reader, now);
+                } finally {
+                    reader.close();
+                }
+            }
+            
+            FileChannel channel = FileChannel.open(file, StandardOpenOption.READ);
+            try {
+                ParallelFileScanner scanner = new ParallelFileScanner(channel,
+                        charset, keywords, now,
+                        ParallelFileScanner.DEFAULT_CHUNK_SIZE,
+                        ParallelFileScanner.DEFAULT_OVERLAP);
+                return scanner.scan(pool);
+            } finally {
+                channel.close();
+            }
+        } catch (IOException ex) {
+            throw new DateParseException("Unable to read from source", ex);
+        }
+    }
+    
+    /**
+     * Extracts the dates of the given text, handing each of them to the
+     * given sink as soon as it is found. Extraction stops as soon as the
+     * sink returns false, without reading the rest of the text.
+     * 
+     * @param text text to extract dates from
+     * @param now reference time, in the reference time zone
+     * @param sink receiver of the extracted dates
+     * @return true if the whole text has been read, false if the sink
+     * stopped the extraction
+     */
+    public boolean extract(CharSequence text, ZonedDateTime now, DateSink sink)
+            throws DateParseException {
+        return createParser(text, now).parse(sink);
+    }
+    
+    /**
+     * Extracts the dates of the given text, appending their instants to the
+     * given buffer, in milliseconds since the epoch. No Date object is
+     * created, and a buffer can be reused for many texts.
+     * 
+     * @param text text to extract dates from
+     * @param now reference time, in the reference time zone
+     * @param buffer receiver of the extracted dates
+     */
+    public void extract(CharSequence text, ZonedDateTime now, DateBuffer buffer)
+            throws DateParseException {
+        createParser(text, now).parse(buffer);
+    }
+    
+    /**
+     * Extracts the dates read from the given reader, handing each of them to
+     * the given sink as soon as it is found. Extraction stops as soon as the
+     * sink returns false, without reading the rest of the input.
+     * 
+     * @param reader source to extract dates from
+     * @param now reference time, in the reference time zone
+     * @param sink receiver of the extracted dates
+     * @return true if the whole input has been read, false if the sink
+     * stopped the extraction
+     */
+    public boolean extract(Reader reader, ZonedDateTime now, DateSink sink)
+            throws DateParseException {
+        return createParser(reader, now).parse(sink);
+    }
+    
+    /**
+     * Returns a lazy stream of the dates of the given text. The text is only
+     * parsed as elements are pulled from the stream, so short-circuiting
+     * operations like limit() or findFirst() stop reading the text early.
+     * 
+     * Parallel streams split the text at line breaks, and give the same
+     * dates as sequential ones.
+     * 
+     * @param text text to extract dates from
+     * @param now reference time, in the reference time zone
+     * @return the dates of the text, in the order they appear
+     * @throws UncheckedDateParseException if the text can't be parsed, when
+     * the stream is consumed
+     */
+    public Stream<DateMatch> stream(CharSequence text, ZonedDateTime now) {
+        return StreamSupport.stream(new DateMatchSpliterator(text, 0,
+                text.length(), keywords, anchors, now, metrics,
+                DateMatchSpliterator.MIN_SPLIT_LENGTH), false);
+    }
+    
+    /**
+     * Extracts the matches of the given text, and keeps them up to date
+     * while the text is edited.
+     * 
+     * @param text initial text, copied
+     * @param now reference time, in the reference time zone
+     */
+    public IncrementalExtractor incremental(CharSequence text,
+                                            ZonedDateTime now)
+            throws DateParseException {
+        return new IncrementalExtractor(text, keywords, anchors, metrics, now);
+    }
+    
+    /**
+     * Creates a parser extracting the matches of a UTF-8 text fed in
+     * chunks, as they arrive.
+     * 
+     * @param now reference time, in the reference time zone
+     * @param sink receiver of the matches, as soon as they are certain
+     */
+    public PushParser push(ZonedDateTime now, MatchSink sink) {
+        return push(now, StandardCharsets.UTF_8, sink);
+    }
+    
+    /**
+     * Creates a parser extracting the matches of a text fed in chunks, as
+     * they arrive.
+     * 
+     * @param now reference time, in the reference time zone
+     * @param charset charset of the chunks fed as bytes
+     * @param sink receiver of the matches, as soon as they are certain
+     */
+    public PushParser push(ZonedDateTime now, Charset charset,
+                           MatchSink sink) {
+        return new PushParser(keywords, now, charset, sink);
+    }
+    
+    /**
+     * Creates a Flow.Processor publishing the matches of a text published
+     * in chunks, with backpressure.
+     * 
+     * @param now reference time, in the reference time zone
+     */
+    public DateMatchProcessor processor(ZonedDateTime now) {
+        return new DateMatchProcessor(this, now,
+                DateMatchProcessor.DEFAULT_BATCH_SIZE,
+                DateMatchProcessor.DEFAULT_PREFETCH);
+    }
+    
+    /**
+     * Returns the first date of the given text, or null if it contains no
+     * date. The text is only read up to the end of the first date.
+     * 
+     * @param text text to extract the date from
+     * @param now reference time, in the reference time zone
+     */
+    public Date findFirst(CharSequence text, ZonedDateTime now)
+            throws DateParseException {
+        final Date[] first = new Date[1];
+        extract(text, now, new DateSink() {
+            public boolean accept(Date date) {
+                first[0] = date;
+                return false;
+            }
+        });
+        return first[0];
+    }
+    
+    /**
+     * Checks if the given text contains at least one date. The text is only
+     * read up to the end of the first date.
+     * 
+     * @param text text to search
+     * @param now reference time, in the reference time zone
+     */
+    public boolean containsDate(CharSequence text, ZonedDateTime now)
+            throws DateParseException {
+        return findFirst(text, now) != null;
+    }
+    
+    private DateTokenizer createTokenizer(Reader reader)
+            throws DateParseException {
+        try {
+            return new DateTokenizer(reader);
+        } catch (TokenizerException ex) {
+            if (metrics != null) {
+                metrics.inputError();
+            }
+            throw new DateParseException("Unable to read from source", ex);
+        }
+    }
+    
+    /**
+     * Creates a parser for the given text, only tokenizing the parts of it
+     * where a date may start.
+     */
+    private DateParser createParser(CharSequence text, ZonedDateTime now) {
+        DateParser parser = new SparseDateParser(text, 0, text.length(),
+                anchors, keywords, now);
+        parser.setMetrics(metrics);
+        return parser;
+    }
+    
+    private DateParser createParser(ByteBuffer utf8, ZonedDateTime now) {
+        DateParser parser = new DateParser(new TokenBuffer(
+                new ByteBufferTokenizer(utf8), keywords), now);
+        parser.setMetrics(metrics);
+        return parser;
+    }
+    
+    private DateParser createParser(Reader reader, ZonedDateTime now)
+            throws DateParseException {
+        DateParser parser = new DateParser(createTokenizer(reader), keywords,
+                now);
+        parser.setMetrics(metrics);
+        return parser;
+    }
+
+    private List<DateMatch> extractMatches(DateParser parser)
+            throws DateParseException {
+        final List<DateMatch> matches = new ArrayList<DateMatch>();
+        parser.parseMatches(new MatchSink() {
+            public boolean accept(DateMatch match) {
+                matches.add(match);
+                return true;
+            }
+        });
+        return matches;
+    }
+
+    public Keywords getKeywords() {
+        return keywords;
+    }
+
+    public ParserMetrics getMetrics() {
+        return metrics;
+    }
+    
+}
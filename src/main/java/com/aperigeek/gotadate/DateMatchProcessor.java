@@ -0,0 +1,303 @@
+/*
+ * This file is part of gotadate.
+ *
+ * gotadate is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * gotadate is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with gotadate.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.aperigeek.gotadate;
+
+import com.aperigeek.gotadate.parser.DateMatch;
+import com.aperigeek.gotadate.parser.DateParseException;
+import com.aperigeek.gotadate.parser.MatchSink;
+import java.nio.CharBuffer;
+import java.time.ZonedDateTime;
+import java.util.ArrayDeque;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Flow;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * A Flow.Processor extracting the matches of a text published in chunks.
+ * 
+ * The chunks are parsed by a {@link PushParser}, so matches are published
+ * as soon as they are certain, and their offsets are counted from the
+ * beginning of the whole text. The processor only requests chunks from
+ * upstream while the subscriber has pending demand and every match parsed
+ * so far has been delivered: a slow subscriber stops the reading of the
+ * text, and at most one batch of matches is buffered.
+ * 
+ * Chunks are requested a batch at a time. Small chunks are appended to each
+ * other, and parsed together once the batch size is reached, or once all
+ * the requested chunks have arrived, so that parsing a tiny chunk doesn't
+ * cost a whole parse. No thread is ever blocked: all the work is done by
+ * the threads signalling the processor, one at a time.
+ * 
+ * A processor publishes to a single subscriber.
+ * 
+ * @author Vivien Barousse
+ * @see DateExtractor#processor(ZonedDateTime)
+ */
+public final class DateMatchProcessor
+        implements Flow.Processor<CharSequence, DateMatch> {
+    
+    /**
+     * Default number of chars parsed at once.
+     */
+    static final int DEFAULT_BATCH_SIZE = 4096;
+    
+    /**
+     * Default number of chunks requested at once.
+     */
+    static final int DEFAULT_PREFETCH = 16;
+    
+    private final PushParser parser;
+    
+    private final int batchSize;
+    
+    private final int prefetch;
+    
+    private final Queue<CharSequence> chunks =
+            new ConcurrentLinkedQueue<CharSequence>();
+    
+    private final AtomicLong requested = new AtomicLong();
+    
+    private final AtomicInteger wip = new AtomicInteger();
+    
+    private final AtomicBoolean subscribed = new AtomicBoolean();
+    
+    private volatile Flow.Subscription upstream;
+    
+    private volatile Flow.Subscriber<? super DateMatch> subscriber;
+    
+    private volatile boolean upstreamDone;
+    
+    private volatile Throwable error;
+    
+    private volatile boolean cancelled;
+    
+    // The following fields are only accessed by the draining thread
+    
+    private final StringBuilder batch = new StringBuilder();
+    
+    private final ArrayDeque<DateMatch> matches = new ArrayDeque<DateMatch>();
+    
+    /**
+     * Number of chunks requested but not received yet.
+     */
+    private long outstanding;
+    
+    private boolean finished;
+    
+    private boolean terminated;
+
+    DateMatchProcessor(DateExtractor extractor,
+                       ZonedDateTime now, int batchSize,
+                       int prefetch) {
+        if (batchSize <= 0 || prefetch <= 0) {
+            throw new IllegalArgumentException("Invalid batch size "
+                    + batchSize + " or prefetch " + prefetch);
+        }
+        this.parser = extractor.push(now, new MatchSink() {
+            public boolean accept(DateMatch match) {
+                matches.add(match);
+                return true;
+            }
+        });
+        this.batchSize = batchSize;
+        this.prefetch = prefetch;
+    }
+    
+    public void subscribe(Flow.Subscriber<? super DateMatch> subscriber) {
+        if (!subscribed.compareAndSet(false, true)) {
+            subscriber.onSubscribe(new Flow.Subscription() {
+                public void request(long n) {
+                }
+
+                public void cancel() {
+                }
+            });
+            subscriber.onError(new IllegalStateException(
+                    "A DateMatchProcessor only supports a single subscriber"));
+            return;
+        }
+        
+        subscriber.onSubscribe(new Flow.Subscription() {
+            public void request(long n) {
+                if (n <= 0) {
+                    error = new IllegalArgumentException(
+                            "Non-positive request: " + n);
+                    cancelUpstream();
+                } else {
+                    addRequested(n);
+                }
+                drain();
+            }
+
+            public void cancel() {
+                cancelled = true;
+                cancelUpstream();
+                drain();
+            }
+        });
+        this.subscriber = subscriber;
+        drain();
+    }
+    
+    public void onSubscribe(Flow.Subscription subscription) {
+        if (upstream != null || cancelled) {
+            subscription.cancel();
+            return;
+        }
+        upstream = subscription;
+        drain();
+    }
+    
+    public void onNext(CharSequence chunk) {
+        chunks.add(chunk);
+        drain();
+    }
+    
+    public void onError(Throwable throwable) {
+        error = throwable;
+        upstreamDone = true;
+        drain();
+    }
+    
+    public void onComplete() {
+        upstreamDone = true;
+        drain();
+    }
+    
+    private void addRequested(long n) {
+        long current;
+        long next;
+        do {
+            current = requested.get();
+            next = current + n < 0 ? Long.MAX_VALUE : current + n;
+        } while (!requested.compareAndSet(current, next));
+    }
+    
+    private void cancelUpstream() {
+        Flow.Subscription subscription = upstream;
+        if (subscription != null) {
+            subscription.cancel();
+        }
+    }
+    
+    /**
+     * Does the pending work, in a single thread at a time. A thread calling
+     * this method while another one is draining leaves the work to it.
+     */
+    private void drain() {
+        if (wip.getAndIncrement() != 0) {
+            return;
+        }
+        int missed = 1;
+        do {
+            Flow.Subscriber<? super DateMatch> s = subscriber;
+            if (cancelled) {
+                chunks.clear();
+                matches.clear();
+            } else if (s != null && !terminated) {
+                step(s);
+            }
+            missed = wip.addAndGet(-missed);
+        } while (missed != 0);
+    }
+    
+    private void step(Flow.Subscriber<? super DateMatch> s) {
+        while (true) {
+            deliver(s);
+            if (cancelled) {
+                return;
+            }
+            
+            Throwable failure = error;
+            if (failure != null) {
+                terminate();
+                s.onError(failure);
+                return;
+            }
+            if (!matches.isEmpty()) {
+                // Wait for demand before reading more
+                return;
+            }
+            
+            // Read the completion first: chunks are all queued once it's set
+            boolean done = upstreamDone;
+            CharSequence chunk;
+            while ((chunk = chunks.poll()) != null) {
+                batch.append(chunk);
+                outstanding--;
+            }
+            
+            try {
+                if (batch.length() >= batchSize || (batch.length() > 0
+                        && (outstanding <= 0 || done))) {
+                    parser.feed(CharBuffer.wrap(batch));
+                    batch.setLength(0);
+                    continue;
+                }
+                if (done && !finished) {
+                    finished = true;
+                    parser.finish();
+                    continue;
+                }
+            } catch (DateParseException ex) {
+                cancelUpstream();
+                terminate();
+                s.onError(ex);
+                return;
+            }
+            
+            if (finished) {
+                terminate();
+                s.onComplete();
+                return;
+            }
+            
+            Flow.Subscription subscription = upstream;
+            if (subscription != null && requested.get() > 0
+                    && outstanding <= 0) {
+                outstanding = prefetch;
+                subscription.request(prefetch);
+            }
+            return;
+        }
+    }
+    
+    /**
+     * Publishes the parsed matches, as far as the subscriber asked for.
+     */
+    private void deliver(Flow.Subscriber<? super DateMatch> s) {
+        long demand = requested.get();
+        long delivered = 0;
+        while (delivered != demand && !matches.isEmpty() && !cancelled) {
+            s.onNext(matches.poll());
+            delivered++;
+        }
+        if (delivered != 0 && demand != Long.MAX_VALUE) {
+            requested.addAndGet(-delivered);
+        }
+    }
+    
+    private void terminate() {
+        terminated = true;
+        matches.clear();
+        chunks.clear();
+    }
+    
+}
@@ -0,0 +1,165 @@
+/*
+ * This file is part of gotadate.
+ *
+ * gotadate is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * gotadate is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with gotadate.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.aperigeek.gotadate;
+
+import com.aperigeek.gotadate.parser.AnchorScanner;
+import com.aperigeek.gotadate.parser.DateMatch;
+import com.aperigeek.gotadate.parser.DateParseException;
+import com.aperigeek.gotadate.parser.DateParser;
+import com.aperigeek.gotadate.parser.MatchSink;
+import com.aperigeek.gotadate.parser.ParserMetrics;
+import com.aperigeek.gotadate.parser.SparseDateParser;
+import com.aperigeek.gotadate.parser.UncheckedDateParseException;
+import com.aperigeek.gotadate.token.Keywords;
+import java.time.ZonedDateTime;
+import java.util.Spliterator;
+import java.util.function.Consumer;
+
+/**
+ * Lazily parses the dates of a range of a text.
+ * 
+ * Nothing is parsed until elements are pulled, and only the text needed to
+ * find the next date is tokenized.
+ * 
+ * The range is split right after a line break. No date spans a line break,
+ * and the parser always starts a new attempt right after one, so parsing
+ * both halves gives exactly the dates of the whole range. Texts without
+ * line breaks are not split.
+ * 
+ * Parse errors are rethrown as UncheckedDateParseException.
+ * 
+ * @author Vivien Barousse
+ */
+final class DateMatchSpliterator implements Spliterator<DateMatch>,
+                                            MatchSink {
+    
+    /**
+     * Ranges shorter than that are not split.
+     */
+    static final int MIN_SPLIT_LENGTH = 4096;
+    
+    private final CharSequence text;
+    
+    private final Keywords keywords;
+    
+    private final AnchorScanner anchors;
+    
+    private final ZonedDateTime now;
+    
+    private final ParserMetrics metrics;
+    
+    private final int minSplitLength;
+    
+    private int start;
+    
+    private final int end;
+    
+    private DateParser parser;
+    
+    /**
+     * Match handed over by the parser, until it is passed to the action.
+     */
+    private DateMatch next;
+
+    DateMatchSpliterator(CharSequence text, int start, int end,
+                         Keywords keywords, AnchorScanner anchors,
+                         ZonedDateTime now, ParserMetrics metrics,
+                         int minSplitLength) {
+        this.text = text;
+        this.start = start;
+        this.end = end;
+        this.keywords = keywords;
+        this.anchors = anchors;
+        this.now = now;
+        this.metrics = metrics;
+        this.minSplitLength = Math.max(minSplitLength, 2);
+    }
+
+    public boolean tryAdvance(Consumer<? super DateMatch> action) {
+        if (parser == null) {
+            parser = new SparseDateParser(text, start, end, anchors, keywords,
+                    now);
+            parser.setMetrics(metrics);
+        }
+        
+        try {
+            if (parser.parseMatches(this)) {
+                return false;
+            }
+        } catch (DateParseException ex) {
+            throw new UncheckedDateParseException(ex);
+        }
+        DateMatch match = next;
+        next = null;
+        action.accept(match);
+        return true;
+    }
+
+    /**
+     * Stops the parser at each match, so that only one match is parsed by
+     * tryAdvance().
+     */
+    public boolean accept(DateMatch match) {
+        next = match;
+        return false;
+    }
+
+    public Spliterator<DateMatch> trySplit() {
+        if (parser != null || end - start < minSplitLength) {
+            return null;
+        }
+        
+        int middle = start + (end - start) / 2;
+        int cut = -1;
+        for (int i = middle; i < end - 1 && cut < 0; i++) {
+            if (isLineBreak(text.charAt(i))) {
+                cut = i + 1;
+            }
+        }
+        for (int i = middle - 1; i > start && cut < 0; i--) {
+            if (isLineBreak(text.charAt(i))) {
+                cut = i + 1;
+            }
+        }
+        if (cut < 0) {
+            return null;
+        }
+        
+        DateMatchSpliterator prefix = new DateMatchSpliterator(text, start,
+                cut, keywords, anchors, now, metrics, minSplitLength);
+        start = cut;
+        return prefix;
+    }
+    
+    private static boolean isLineBreak(char ch) {
+        return ch == '\n' || ch == '\r';
+    }
+
+    public long estimateSize() {
+        return end - start;
+    }
+
+    /**
+     * Only a String text is immutable: other char sequences, like a
+     * StringBuilder, may still be modified by the caller.
+     */
+    public int characteristics() {
+        return text instanceof String ? ORDERED | NONNULL | IMMUTABLE
+                : ORDERED | NONNULL;
+    }
+    
+}
@@ -0,0 +1,121 @@
+/*
+ * This file is part of gotadate.
+ *
+ * gotadate is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * gotadate is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with gotadate.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.aperigeek.gotadate;
+
+import java.util.Arrays;
+
+/**
+ * A mutable text stored in a gap buffer: the free space of the array is
+ * kept at the place of the last edit, so that successive edits close to
+ * each other only move the characters between them.
+ * 
+ * @author Vivien Barousse
+ */
+final class GapText implements CharSequence {
+    
+    private char[] chars;
+    
+    private int gapStart;
+    
+    private int gapEnd;
+
+    GapText(CharSequence text) {
+        int length = text.length();
+        this.chars = new char[Math.max(length + length / 4, 16)];
+        for (int i = 0; i < length; i++) {
+            chars[i] = text.charAt(i);
+        }
+        this.gapStart = length;
+        this.gapEnd = chars.length;
+    }
+    
+    public int length() {
+        return chars.length - (gapEnd - gapStart);
+    }
+    
+    public char charAt(int index) {
+        return index < gapStart ? chars[index]
+                : chars[index + (gapEnd - gapStart)];
+    }
+    
+    /**
+     * Replaces a range of this text.
+     * 
+     * @param offset index of the first replaced character
+     * @param removed number of replaced characters
+     * @param inserted the replacement
+     */
+    void replace(int offset, int removed, CharSequence inserted) {
+        if (offset < 0 || removed < 0 || offset + removed > length()) {
+            throw new IndexOutOfBoundsException("Invalid range [" + offset
+                    + ", " + (offset + removed) + "[ for length " + length());
+        }
+        
+        moveGap(offset);
+        gapEnd += removed;
+        
+        int count = inserted.length();
+        if (count > gapEnd - gapStart) {
+            grow(count);
+        }
+        for (int i = 0; i < count; i++) {
+            chars[gapStart++] = inserted.charAt(i);
+        }
+    }
+    
+    private void moveGap(int offset) {
+        if (offset < gapStart) {
+            int count = gapStart - offset;
+            System.arraycopy(chars, offset, chars, gapEnd - count, count);
+            gapStart -= count;
+            gapEnd -= count;
+        } else if (offset > gapStart) {
+            int count = offset - gapStart;
+            System.arraycopy(chars, gapEnd, chars, gapStart, count);
+            gapStart += count;
+            gapEnd += count;
+        }
+    }
+    
+    private void grow(int needed) {
+        int length = length();
+        int capacity = Math.max(chars.length * 2, length + needed + 16);
+        int tail = chars.length - gapEnd;
+        char[] grown = Arrays.copyOf(chars, capacity);
+        System.arraycopy(chars, gapEnd, grown, capacity - tail, tail);
+        chars = grown;
+        gapEnd = capacity - tail;
+    }
+    
+    public CharSequence subSequence(int start, int end) {
+        if (start < 0 || end > length() || start > end) {
+            throw new IndexOutOfBoundsException("Invalid range [" + start
+                    + ", " + end + "[ for length " + length());
+        }
+        StringBuilder builder = new StringBuilder(end - start);
+        for (int i = start; i < end; i++) {
+            builder.append(charAt(i));
+        }
+        return builder.toString();
+    }
+    
+    @Override
+    public String toString() {
+        return subSequence(0, length()).toString();
+    }
+    
+}
@@ -0,0 +1,202 @@
+/*
+ * This file is part of gotadate.
+ *
+ * gotadate is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * gotadate is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with gotadate.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.aperigeek.gotadate;
+
+import com.aperigeek.gotadate.parser.AnchorScanner;
+import com.aperigeek.gotadate.parser.DateMatch;
+import com.aperigeek.gotadate.parser.DateParseException;
+import com.aperigeek.gotadate.parser.MatchSink;
+import com.aperigeek.gotadate.parser.ParserMetrics;
+import com.aperigeek.gotadate.parser.SparseDateParser;
+import com.aperigeek.gotadate.token.Keywords;
+import java.time.ZonedDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Keeps the matches of a text up to date while the text is edited, as in
+ * an editor.
+ * 
+ * No match spans a line break, and the matches of a line only depend on
+ * the line itself. An edit thus only re-parses the lines it touches.
+ * The text is kept in a gap buffer, and the matches after the last edit
+ * are stored relative to the end of the text, so that an edit doesn't
+ * shift them one by one. The cost of an edit depends on the size of the
+ * edit, of its lines, and of its distance to the previous edit, but not on
+ * the size of the text.
+ * 
+ * An IncrementalExtractor isn't thread-safe.
+ * 
+ * @author Vivien Barousse
+ * @see DateExtractor#incremental(CharSequence, ZonedDateTime)
+ */
+public final class IncrementalExtractor {
+    
+    private final GapText text;
+    
+    private final SparseDateParser parser;
+    
+    private ZonedDateTime now;
+    
+    /**
+     * Matches before the last edit, in order.
+     */
+    private final List<DateMatch> before = new ArrayList<DateMatch>();
+    
+    /**
+     * Matches after the last edit, the nearest last, with offsets counted
+     * from the end of the text.
+     */
+    private final List<DateMatch> after = new ArrayList<DateMatch>();
+    
+    /**
+     * Matches of the range being parsed.
+     */
+    private List<DateMatch> parsed;
+    
+    private final MatchSink sink = new MatchSink() {
+        public boolean accept(DateMatch match) {
+            parsed.add(match);
+            return true;
+        }
+    };
+
+    IncrementalExtractor(CharSequence text, Keywords keywords,
+                         AnchorScanner anchors, ParserMetrics metrics,
+                         ZonedDateTime now) throws DateParseException {
+        this.text = new GapText(text);
+        this.now = now;
+        this.parser = new SparseDateParser("", 0, 0, anchors, keywords, now);
+        this.parser.setMetrics(metrics);
+        parse(0, this.text.length());
+    }
+    
+    /**
+     * Applies an edit to the text, and re-parses the lines it touches.
+     * 
+     * @param offset index of the first replaced character
+     * @param removed number of replaced characters
+     * @param inserted the replacement
+     * @return the matches of the re-parsed lines
+     */
+    public List<DateMatch> edit(int offset, int removed, CharSequence inserted)
+            throws DateParseException {
+        int length = text.length();
+        if (offset < 0 || removed < 0 || offset + removed > length) {
+            throw new IndexOutOfBoundsException("Invalid range [" + offset
+                    + ", " + (offset + removed) + "[ for length " + length);
+        }
+        
+        int start = lineStart(offset);
+        int end = lineEnd(offset + removed);
+        moveGap(start, length);
+        while (!after.isEmpty()
+                && last(after).getStart() + length < end) {
+            after.remove(after.size() - 1);
+        }
+        
+        text.replace(offset, removed, inserted);
+        return parse(start, end + text.length() - length);
+    }
+    
+    /**
+     * Changes the reference time, and re-parses the whole text.
+     */
+    public void setNow(ZonedDateTime now) throws DateParseException {
+        this.now = now;
+        before.clear();
+        after.clear();
+        parse(0, text.length());
+    }
+    
+    public ZonedDateTime getNow() {
+        return now;
+    }
+    
+    /**
+     * Returns the current text. The returned sequence reflects later edits.
+     */
+    public CharSequence getText() {
+        return text;
+    }
+    
+    /**
+     * Returns all the matches of the current text, in order.
+     */
+    public List<DateMatch> getMatches() {
+        int length = text.length();
+        List<DateMatch> matches = new ArrayList<DateMatch>(before.size()
+                + after.size());
+        matches.addAll(before);
+        for (int i = after.size() - 1; i >= 0; i--) {
+            matches.add(shift(after.get(i), length));
+        }
+        return matches;
+    }
+    
+    private List<DateMatch> parse(int start, int end)
+            throws DateParseException {
+        parsed = new ArrayList<DateMatch>();
+        parser.reset(text, start, end, now);
+        parser.parseMatches(sink);
+        before.addAll(parsed);
+        return Collections.unmodifiableList(parsed);
+    }
+    
+    /**
+     * Moves the matches so that the ones before the given offset, and only
+     * them, are in the before list.
+     */
+    private void moveGap(int offset, int length) {
+        while (!before.isEmpty() && last(before).getStart() >= offset) {
+            after.add(shift(before.remove(before.size() - 1), -length));
+        }
+        while (!after.isEmpty() && last(after).getStart() + length < offset) {
+            before.add(shift(after.remove(after.size() - 1), length));
+        }
+    }
+    
+    private int lineStart(int offset) {
+        while (offset > 0 && !isLineBreak(text.charAt(offset - 1))) {
+            offset--;
+        }
+        return offset;
+    }
+    
+    private int lineEnd(int offset) {
+        int length = text.length();
+        while (offset < length && !isLineBreak(text.charAt(offset))) {
+            offset++;
+        }
+        return offset;
+    }
+    
+    private static boolean isLineBreak(char ch) {
+        return ch == '\n' || ch == '\r';
+    }
+    
+    private static DateMatch last(List<DateMatch> matches) {
+        return matches.get(matches.size() - 1);
+    }
+    
+    private static DateMatch shift(DateMatch match, int delta) {
+        return new DateMatch(match.getDate(), match.getKind(),
+                match.getStart() + delta, match.getEnd() + delta);
+    }
+    
+}
@@ -0,0 +1,212 @@
+/*
+ * This file is part of gotadate.
+ *
+ * gotadate is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * gotadate is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with gotadate.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.aperigeek.gotadate;
+
+import com.aperigeek.gotadate.parser.DateBuffer;
+import com.aperigeek.gotadate.parser.DateMatch;
+import com.aperigeek.gotadate.parser.DateParseException;
+import com.aperigeek.gotadate.parser.DateSink;
+import com.aperigeek.gotadate.parser.JodaSupport;
+import java.io.Reader;
+import java.nio.charset.Charset;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.time.ZonedDateTime;
+import java.util.Date;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.stream.Stream;
+import org.joda.time.DateTime;
+import org.joda.time.DateTimeZone;
+
+/**
+ * Joda-Time adapter of a DateExtractor, taking the reference times as
+ * Joda-Time DateTimes.
+ * 
+ * Joda-Time is an optional dependency: it is only needed on the classpath
+ * by the code using this class. Each method converts the reference time
+ * to java.time, and calls the method of the DateExtractor taking a
+ * ZonedDateTime. Like the DateExtractor it wraps, a JodaDateExtractor is
+ * thread-safe.
+ * 
+ * @author Vivien Barousse
+ */
+public final class JodaDateExtractor {
+    
+    private final DateExtractor extractor;
+
+    public JodaDateExtractor() {
+        this(new DateExtractor());
+    }
+
+    public JodaDateExtractor(DateExtractor extractor) {
+        this.extractor = extractor;
+    }
+    
+    /**
+     * Joda-Time adapter of {@link DateExtractor#extract(CharSequence,
+     * java.time.Instant, java.time.ZoneId)}.
+     */
+    public List<Date> extract(CharSequence text, Date now, DateTimeZone zone)
+            throws DateParseException {
+        return extractor.extract(text, Instant.ofEpochMilli(now.getTime()),
+                JodaSupport.toZoneId(zone));
+    }
+    
+    /**
+     * Joda-Time adapter of {@link DateExtractor#extract(CharSequence,
+     * ZonedDateTime)}.
+     */
+    public List<Date> extract(CharSequence text, DateTime now)
+            throws DateParseException {
+        return extractor.extract(text, toJavaTime(now));
+    }
+    
+    /**
+     * Joda-Time adapter of {@link DateExtractor#extract(Reader,
+     * ZonedDateTime)}.
+     */
+    public List<Date> extract(Reader reader, DateTime now)
+            throws DateParseException {
+        return extractor.extract(reader, toJavaTime(now));
+    }
+    
+    /**
+     * Joda-Time adapter of {@link DateExtractor#extractMatches(CharSequence,
+     * ZonedDateTime)}.
+     */
+    public List<DateMatch> extractMatches(CharSequence text, DateTime now)
+            throws DateParseException {
+        return extractor.extractMatches(text, toJavaTime(now));
+    }
+    
+    /**
+     * Joda-Time adapter of {@link DateExtractor#extractMatches(Reader,
+     * ZonedDateTime)}.
+     */
+    public List<DateMatch> extractMatches(Reader reader, DateTime now)
+            throws DateParseException {
+        return extractor.extractMatches(reader, toJavaTime(now));
+    }
+    
+    /**
+     * Joda-Time adapter of {@link DateExtractor#extractAll(List,
+     * ZonedDateTime)}.
+     */
+    public List<List<Date>> extractAll(List<? extends CharSequence> texts,
+                                       DateTime now) throws DateParseException {
+        return extractor.extractAll(texts, toJavaTime(now));
+    }
+    
+    /**
+     * Joda-Time adapter of {@link DateExtractor#extractAll(CharSequence[],
+     * ZonedDateTime)}.
+     */
+    public List<List<Date>> extractAll(CharSequence[] texts, DateTime now)
+            throws DateParseException {
+        return extractor.extractAll(texts, toJavaTime(now));
+    }
+    
+    /**
+     * Joda-Time adapter of {@link DateExtractor#extract(Path, Charset,
+     * ZonedDateTime)}.
+     */
+    public List<Date> extract(Path file, Charset charset, DateTime now)
+            throws DateParseException {
+        return extractor.extract(file, charset, toJavaTime(now));
+    }
+    
+    /**
+     * Joda-Time adapter of {@link DateExtractor#extract(Path, Charset,
+     * ZonedDateTime, ForkJoinPool)}.
+     */
+    public List<Date> extract(Path file, Charset charset, DateTime now,
+                              ForkJoinPool pool) throws DateParseException {
+        return extractor.extract(file, charset, toJavaTime(now), pool);
+    }
+    
+    /**
+     * Joda-Time adapter of {@link DateExtractor#extract(CharSequence,
+     * ZonedDateTime, DateSink)}.
+     */
+    public boolean extract(CharSequence text, DateTime now, DateSink sink)
+            throws DateParseException {
+        return extractor.extract(text, toJavaTime(now), sink);
+    }
+    
+    /**
+     * Joda-Time adapter of {@link DateExtractor#extract(CharSequence,
+     * ZonedDateTime, DateBuffer)}.
+     */
+    public void extract(CharSequence text, DateTime now, DateBuffer buffer)
+            throws DateParseException {
+        extractor.extract(text, toJavaTime(now), buffer);
+    }
+    
+    /**
+     * Joda-Time adapter of {@link DateExtractor#extract(Reader,
+     * ZonedDateTime, DateSink)}.
+     */
+    public boolean extract(Reader reader, DateTime now, DateSink sink)
+            throws DateParseException {
+        return extractor.extract(reader, toJavaTime(now), sink);
+    }
+    
+    /**
+     * Joda-Time adapter of {@link DateExtractor#stream(CharSequence,
+     * ZonedDateTime)}.
+     */
+    public Stream<DateMatch> stream(CharSequence text, DateTime now) {
+        return extractor.stream(text, toJavaTime(now));
+    }
+    
+    /**
+     * Joda-Time adapter of {@link DateExtractor#findFirst(CharSequence,
+     * ZonedDateTime)}.
+     */
+    public Date findFirst(CharSequence text, DateTime now)
+            throws DateParseException {
+        return extractor.findFirst(text, toJavaTime(now));
+    }
+    
+    /**
+     * Joda-Time adapter of {@link DateExtractor#containsDate(CharSequence,
+     * ZonedDateTime)}.
+     */
+    public boolean containsDate(CharSequence text, DateTime now)
+            throws DateParseException {
+        return extractor.containsDate(text, toJavaTime(now));
+    }
+    
+    /**
+     * Joda-Time adapter of {@link DateCache#extract(CharSequence,
+     * ZonedDateTime)}, the cache being in front of any extractor.
+     */
+    public static List<Date> extract(DateCache cache, CharSequence text,
+                                     DateTime now) throws DateParseException {
+        return cache.extract(text, toJavaTime(now));
+    }
+    
+    public DateExtractor getExtractor() {
+        return extractor;
+    }
+    
+    private static ZonedDateTime toJavaTime(DateTime now) {
+        return JodaSupport.toZonedDateTime(now);
+    }
+    
+}
@@ -0,0 +1,470 @@
+/*
+ * This file is part of gotadate.
+ *
+ * gotadate is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * gotadate is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with gotadate.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.aperigeek.gotadate;
+
+import com.aperigeek.gotadate.parser.DateParseException;
+import com.aperigeek.gotadate.parser.DateParser;
+import com.aperigeek.gotadate.token.CharSequenceTokenizer;
+import com.aperigeek.gotadate.token.Keywords;
+import com.aperigeek.gotadate.token.TokenizerException;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.nio.charset.CharsetDecoder;
+import java.nio.charset.CharsetEncoder;
+import java.nio.charset.CodingErrorAction;
+import java.time.ZonedDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Date;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+
+/**
+ * Extracts dates from a large file, by parsing chunks of it in parallel.
+ * 
+ * The file is split into chunks, cut right after a line break when
+ * possible, or after another white space. Each chunk is memory mapped,
+ * decoded and parsed on its own, on a fork-join pool.
+ * 
+ * A chunk parsed on its own may give different results than the same text
+ * parsed as part of the whole file, when a date, or a failed attempt to
+ * parse one, spans the boundary with the previous chunk. To stitch chunks
+ * together, each chunk is parsed a little past its end, and records the
+ * offsets at which the parser started a new match attempt. From the first
+ * offset where both a chunk and its successor start an attempt, both
+ * parsers are in the same state and see the same text, so they give the
+ * same results: the dates of the chunk are kept up to that offset, and
+ * the dates of its successor after it. The result is exactly the one of a
+ * sequential parse of the whole file. If no such offset is found, which
+ * only happens with pathological input, the two chunks are parsed again
+ * as a single one.
+ * 
+ * Chunks are cut on ASCII bytes, so this only works with charsets encoding
+ * ASCII characters on single bytes, that can't appear inside another
+ * character: UTF-8 and the ASCII compatible single byte charsets. Other
+ * charsets are parsed sequentially.
+ * 
+ * @author Vivien Barousse
+ */
+final class ParallelFileScanner {
+    
+    static final int DEFAULT_CHUNK_SIZE = 8 * 1024 * 1024;
+    
+    static final int DEFAULT_OVERLAP = 16 * 1024;
+    
+    /**
+     * Maximum number of bytes searched for a line break, then for a white
+     * space, to cut a chunk.
+     */
+    private static final int SEARCH_LENGTH = 4096;
+    
+    private final FileChannel channel;
+    
+    private final long size;
+    
+    private final Charset charset;
+    
+    private final Keywords keywords;
+    
+    private final ZonedDateTime now;
+    
+    private final int chunkSize;
+    
+    private final int overlap;
+
+    ParallelFileScanner(FileChannel channel, Charset charset, Keywords keywords,
+                        ZonedDateTime now, int chunkSize, int overlap)
+            throws IOException {
+        this.channel = channel;
+        this.size = channel.size();
+        this.charset = charset;
+        this.keywords = keywords;
+        this.now = now;
+        this.chunkSize = chunkSize;
+        this.overlap = overlap;
+    }
+    
+    /**
+     * Checks if files in the given charset can be split in chunks, ie if
+     * ASCII characters are encoded as single ASCII bytes, that can't be part
+     * of any other character.
+     */
+    static boolean isSplittable(Charset charset) {
+        if (charset.name().equals("UTF-8")) {
+            return true;
+        }
+        
+        if (!charset.canEncode()) {
+            return false;
+        }
+        CharsetEncoder encoder = charset.newEncoder();
+        if (encoder.maxBytesPerChar() != 1.0f) {
+            return false;
+        }
+        char[] ascii = new char[128];
+        for (int i = 0; i < ascii.length; i++) {
+            ascii[i] = (char) i;
+        }
+        ByteBuffer encoded = charset.encode(CharBuffer.wrap(ascii));
+        for (int i = 0; i < ascii.length; i++) {
+            if (encoded.get(i) != i) {
+                return false;
+            }
+        }
+        return true;
+    }
+    
+    List<Date> scan(ForkJoinPool pool) throws DateParseException, IOException {
+        final List<Long> bounds = split();
+        
+        List<ForkJoinTask<Chunk>> tasks = new ArrayList<ForkJoinTask<Chunk>>();
+        for (int i = 0; i < bounds.size() - 1; i++) {
+            final int index = i;
+            tasks.add(pool.submit(new Callable<Chunk>() {
+                public Chunk call() throws Exception {
+                    return parseChunk(bounds, index, index + 1);
+                }
+            }));
+        }
+        
+        List<Date> dates = new ArrayList<Date>();
+        Chunk chunk = join(tasks.get(0));
+        int first = 0; // Index of the first bound of the current chunk
+        int syncFrom = 0; // Dates starting before that are already merged
+        for (int i = 1; i < tasks.size(); i++) {
+            Chunk next = join(tasks.get(i));
+            int sync = chunk.isComplete() ? -1 : chunk.sync(next);
+            if (sync < 0 && !chunk.isComplete()) {
+                // No common state, parse both chunks as a single one
+                chunk = parseChunk(bounds, first, i + 1);
+                continue;
+            }
+            
+            int limit = chunk.isComplete()
+                    ? Integer.MAX_VALUE : chunk.mainLength + sync;
+            chunk.addDates(dates, syncFrom, limit);
+            if (chunk.isComplete()) {
+                return dates;
+            }
+            chunk = next;
+            first = i;
+            syncFrom = sync;
+        }
+        chunk.addDates(dates, syncFrom, Integer.MAX_VALUE);
+        return dates;
+    }
+    
+    private static Chunk join(ForkJoinTask<Chunk> task)
+            throws DateParseException, IOException {
+        try {
+            return task.join();
+        } catch (RuntimeException ex) {
+            Throwable cause = ex.getCause();
+            if (cause instanceof DateParseException) {
+                throw (DateParseException) cause;
+            } else if (cause instanceof IOException) {
+                throw (IOException) cause;
+            }
+            throw ex;
+        }
+    }
+    
+    /**
+     * Computes the offsets at which the file is cut in chunks. The returned
+     * list starts with 0 and ends with the size of the file.
+     */
+    private List<Long> split() throws IOException {
+        List<Long> bounds = new ArrayList<Long>();
+        bounds.add(0L);
+        ByteBuffer buffer = ByteBuffer.allocate(SEARCH_LENGTH);
+        long pos = chunkSize;
+        while (pos < size) {
+            buffer.clear();
+            long start = pos;
+            while (buffer.hasRemaining() && pos < size) {
+                int n = channel.read(buffer, pos);
+                if (n < 0) {
+                    break;
+                }
+                pos += n;
+            }
+            buffer.flip();
+            
+            int cut = findCut(buffer);
+            if (cut < 0) {
+                // No ASCII byte, keep searching in the next bytes
+                continue;
+            }
+            if (start + cut < size) {
+                bounds.add(start + cut);
+            }
+            pos = start + cut + chunkSize;
+        }
+        bounds.add(size);
+        return bounds;
+    }
+    
+    /**
+     * Finds where to cut a chunk in the given bytes: after the first line
+     * break, or after the first white space, or before the first ASCII
+     * byte.
+     * 
+     * @return the index to cut at, or -1 if there is no ASCII byte
+     */
+    private static int findCut(ByteBuffer bytes) {
+        int space = -1, ascii = -1;
+        for (int i = 0; i < bytes.limit(); i++) {
+            byte b = bytes.get(i);
+            if (b == '\n') {
+                return i + 1;
+            } else if (space < 0 && (b == ' ' || b == '\t' || b == '\r')) {
+                space = i + 1;
+            } else if (ascii < 0 && b >= 0) {
+                ascii = i;
+            }
+        }
+        return space >= 0 ? space : ascii;
+    }
+    
+    /**
+     * Parses the chunk going from bounds[from] to bounds[to], and a bit
+     * further to be able to synchronize with the next chunk.
+     */
+    private Chunk parseChunk(List<Long> bounds, int from, int to)
+            throws DateParseException, IOException {
+        long start = bounds.get(from);
+        long end = bounds.get(to);
+        long windowEnd = Math.min(size, end + overlap);
+        
+        // Map one more byte, to check where the window can be cut
+        long mapEnd = Math.min(size, windowEnd + 1);
+        MappedByteBuffer bytes = channel.map(FileChannel.MapMode.READ_ONLY,
+                start, mapEnd - start);
+        boolean syncable = true;
+        if (windowEnd < size) {
+            // Cut the window between two tokens, so that its last token is
+            // the same as in the whole file
+            int cut = (int) (windowEnd - start);
+            while (cut > end - start && !isTokenBoundary(bytes, cut)) {
+                cut--;
+            }
+            syncable = isTokenBoundary(bytes, cut);
+            windowEnd = start + cut;
+        }
+        
+        CharsetDecoder decoder = charset.newDecoder()
+                .onMalformedInput(CodingErrorAction.REPLACE)
+                .onUnmappableCharacter(CodingErrorAction.REPLACE);
+        CharBuffer chars = CharBuffer.allocate(
+                (int) ((windowEnd - start) * decoder.maxCharsPerByte()) + 1);
+        bytes.limit((int) (end - start));
+        decoder.decode(bytes, chars, false);
+        int mainLength = chars.position();
+        bytes.limit((int) (windowEnd - start));
+        decoder.decode(bytes, chars, true);
+        decoder.flush(chars);
+        chars.flip();
+        
+        Chunk chunk = new Chunk(mainLength, windowEnd == size, syncable);
+        ChunkParser parser = new ChunkParser(chars, chunk, keywords, now,
+                overlap);
+        parser.parseChunk();
+        return chunk;
+    }
+    
+    /**
+     * Checks if a token boundary lies right before the given byte: either
+     * this byte or the previous one is an ASCII char which can't be part of
+     * a longer token.
+     */
+    private static boolean isTokenBoundary(ByteBuffer bytes, int index) {
+        return isSeparator(bytes.get(index))
+                || (index > 0 && isSeparator(bytes.get(index - 1)));
+    }
+    
+    private static boolean isSeparator(byte b) {
+        return b >= 0 && !Character.isLetterOrDigit((char) b);
+    }
+    
+    /**
+     * Growable list of ints.
+     */
+    private static final class Offsets {
+        
+        private int[] values = new int[16];
+        
+        private int size;
+        
+        void add(int value) {
+            if (size == values.length) {
+                values = Arrays.copyOf(values, size * 2);
+            }
+            values[size++] = value;
+        }
+        
+    }
+    
+    /**
+     * Result of the parsing of a chunk. All offsets are char offsets
+     * relative to the start of the chunk.
+     */
+    private static final class Chunk {
+        
+        /**
+         * Number of chars in the chunk itself, not counting the part parsed
+         * to synchronize with the next chunk.
+         */
+        final int mainLength;
+        
+        /**
+         * True if the chunk has been parsed up to the end of file.
+         */
+        final boolean endOfFile;
+        
+        /**
+         * False if the chunk couldn't be cut safely for synchronization.
+         */
+        final boolean syncable;
+        
+        final List<Date> dates = new ArrayList<Date>();
+        
+        /**
+         * Offset at which the attempt leading to each date started.
+         */
+        final Offsets dateStarts = new Offsets();
+        
+        /**
+         * Offsets of the attempts started in the first chars of the chunk.
+         */
+        final Offsets headStarts = new Offsets();
+        
+        /**
+         * Offsets, relative to the next chunk, of the attempts started after
+         * the end of this chunk.
+         */
+        final Offsets tailStarts = new Offsets();
+
+        Chunk(int mainLength, boolean endOfFile, boolean syncable) {
+            this.mainLength = mainLength;
+            this.endOfFile = endOfFile;
+            this.syncable = syncable;
+        }
+        
+        boolean isComplete() {
+            return endOfFile;
+        }
+        
+        /**
+         * Finds the first offset, relative to the next chunk, where both
+         * this chunk and the next one started an attempt.
+         * 
+         * @return the offset, or -1 if there is none
+         */
+        int sync(Chunk next) {
+            int i = 0, j = 0;
+            while (i < tailStarts.size && j < next.headStarts.size) {
+                int a = tailStarts.values[i], b = next.headStarts.values[j];
+                if (a == b) {
+                    return a;
+                } else if (a < b) {
+                    i++;
+                } else {
+                    j++;
+                }
+            }
+            return -1;
+        }
+        
+        /**
+         * Adds the dates of this chunk whose attempt started in the given
+         * range.
+         */
+        void addDates(List<Date> out, int from, int to) {
+            for (int i = 0; i < dates.size(); i++) {
+                int start = dateStarts.values[i];
+                if (start >= from && start < to) {
+                    out.add(dates.get(i));
+                }
+            }
+        }
+        
+    }
+    
+    /**
+     * Parses a chunk, recording where attempts start.
+     */
+    private static final class ChunkParser extends DateParser {
+        
+        private final WindowBuffer buffer;
+        
+        private final Chunk chunk;
+        
+        private final int headLength;
+
+        ChunkParser(CharBuffer chars, Chunk chunk, Keywords keywords,
+                    ZonedDateTime now, int headLength) {
+            this(new WindowBuffer(new CharSequenceTokenizer(chars), keywords),
+                    chunk, now, headLength);
+        }
+
+        private ChunkParser(WindowBuffer buffer, Chunk chunk, ZonedDateTime now,
+                            int headLength) {
+            super(buffer, now);
+            this.buffer = buffer;
+            this.chunk = chunk;
+            this.headLength = headLength;
+        }
+        
+        void parseChunk() throws DateParseException {
+            try {
+                while (lookahead(0) != null) {
+                    int offset = buffer.getStart(0);
+                    if (buffer.eofSeen && !chunk.endOfFile) {
+                        // The end of the window has been looked at, the
+                        // parser may now diverge from the whole file
+                        break;
+                    }
+                    
+                    if (offset < headLength) {
+                        chunk.headStarts.add(offset);
+                    }
+                    if (offset >= chunk.mainLength && chunk.syncable) {
+                        chunk.tailStarts.add(offset - chunk.mainLength);
+                    }
+                    
+                    if (parseMatch()) {
+                        chunk.dates.add(new Date(getMatchMillis()));
+                        chunk.dateStarts.add(offset);
+                    }
+                    if (lookahead(0) != null && buffer.getStart(0) == offset) {
+                        next();
+                    }
+                }
+            } catch (TokenizerException ex) {
+                throw new DateParseException("Unable to read from source", ex);
+            }
+        }
+        
+    }
+    
+}
@@ -0,0 +1,283 @@
+/*
+ * This file is part of gotadate.
+ *
+ * gotadate is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * gotadate is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with gotadate.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.aperigeek.gotadate;
+
+import com.aperigeek.gotadate.parser.DateMatch;
+import com.aperigeek.gotadate.parser.DateParseException;
+import com.aperigeek.gotadate.parser.DateParser;
+import com.aperigeek.gotadate.parser.MatchSink;
+import com.aperigeek.gotadate.token.CharSequenceTokenizer;
+import com.aperigeek.gotadate.token.Keywords;
+import com.aperigeek.gotadate.token.TokenizerException;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.charset.Charset;
+import java.nio.charset.CharsetDecoder;
+import java.nio.charset.CodingErrorAction;
+import java.time.ZonedDateTime;
+import java.util.Arrays;
+
+/**
+ * Extracts dates from a text fed in chunks, as they arrive, instead of
+ * pulling them from a blocking Reader.
+ * 
+ * Each chunk is parsed as soon as it is fed, and matches are handed to the
+ * sink once they are certain, that is once the tokens that follow them
+ * can't change them. Only the undecided end of the text is kept between
+ * chunks: the last, maybe incomplete, word or number, and the few tokens
+ * a match starting before it may still need. The parser looks at a
+ * bounded number of tokens at once, so this tail is bounded too, unless
+ * a single word is.
+ * 
+ * Bytes are decoded with the charset of the parser, a multi-byte sequence
+ * split between two chunks being kept until it is complete. Offsets of
+ * the matches are counted in chars, from the beginning of the text. As
+ * they are ints, a match ending past the first Integer.MAX_VALUE chars
+ * fails with an ArithmeticException rather than getting a wrapped offset.
+ * A PushParser isn't thread-safe, but doesn't block: a single thread can
+ * serve any number of them.
+ * 
+ * @author Vivien Barousse
+ * @see DateExtractor#push(ZonedDateTime, Charset, MatchSink)
+ */
+public final class PushParser {
+    
+    private final MatchSink sink;
+    
+    private final CharsetDecoder decoder;
+    
+    /**
+     * Bytes of a multi-byte sequence split between two chunks.
+     */
+    private final ByteBuffer undecoded = ByteBuffer.allocate(16);
+    
+    private final ZonedDateTime now;
+    
+    private final CharSequenceTokenizer tokenizer;
+    
+    private final WindowBuffer buffer;
+    
+    private final StreamParser parser;
+    
+    /**
+     * Undecided end of the text.
+     */
+    private char[] pending = new char[1024];
+    
+    private int length;
+    
+    /**
+     * Offset, in the text, of the first pending char.
+     */
+    private long base;
+    
+    private boolean stopped;
+    
+    private boolean finished;
+
+    PushParser(Keywords keywords, ZonedDateTime now, Charset charset,
+               MatchSink sink) {
+        this.sink = sink;
+        this.now = now;
+        this.decoder = charset.newDecoder()
+                .onMalformedInput(CodingErrorAction.REPLACE)
+                .onUnmappableCharacter(CodingErrorAction.REPLACE);
+        this.tokenizer = new CharSequenceTokenizer(pending, 0, 0);
+        this.buffer = new WindowBuffer(tokenizer, keywords);
+        this.parser = new StreamParser(buffer, now);
+    }
+    
+    /**
+     * Feeds the next chunk of the text, and hands the matches that are now
+     * certain to the sink. The chunk is read up to its limit.
+     */
+    public void feed(CharBuffer chars) throws DateParseException {
+        checkOpen();
+        if (stopped) {
+            chars.position(chars.limit());
+            return;
+        }
+        
+        ensureCapacity(chars.remaining());
+        int count = chars.remaining();
+        chars.get(pending, length, count);
+        length += count;
+        parse(false);
+    }
+    
+    /**
+     * Feeds the next chunk of the encoded text, and hands the matches that
+     * are now certain to the sink. The chunk is read up to its limit.
+     */
+    public void feed(ByteBuffer bytes) throws DateParseException {
+        checkOpen();
+        if (stopped) {
+            bytes.position(bytes.limit());
+            return;
+        }
+        
+        ensureCapacity((int) Math.ceil((bytes.remaining() + undecoded.position())
+                * (double) decoder.maxCharsPerByte()));
+        CharBuffer out = CharBuffer.wrap(pending, length,
+                pending.length - length);
+        
+        // Complete the sequence left by the previous chunk, byte by byte
+        while (undecoded.position() > 0 && bytes.hasRemaining()) {
+            undecoded.put(bytes.get());
+            undecoded.flip();
+            decoder.decode(undecoded, out, false);
+            undecoded.compact();
+        }
+        decoder.decode(bytes, out, false);
+        undecoded.put(bytes);
+        
+        length = out.position();
+        parse(false);
+    }
+    
+    /**
+     * Marks the end of the text, and hands the remaining matches to the
+     * sink. No chunk can be fed afterwards.
+     */
+    public void finish() throws DateParseException {
+        checkOpen();
+        if (undecoded.position() > 0) {
+            ensureCapacity(undecoded.position() + 1);
+            CharBuffer out = CharBuffer.wrap(pending, length,
+                    pending.length - length);
+            undecoded.flip();
+            decoder.decode(undecoded, out, true);
+            decoder.flush(out);
+            undecoded.clear();
+            length = out.position();
+        }
+        finished = true;
+        if (!stopped) {
+            parse(true);
+        }
+    }
+    
+    /**
+     * Returns true if the sink stopped the parsing. The following chunks
+     * are then ignored.
+     */
+    public boolean isStopped() {
+        return stopped;
+    }
+    
+    /**
+     * Returns the number of chars kept from the fed chunks, waiting for
+     * the next ones.
+     */
+    public int getPendingLength() {
+        return length;
+    }
+    
+    private void checkOpen() {
+        if (finished) {
+            throw new IllegalStateException("The text has been finished");
+        }
+    }
+    
+    private void ensureCapacity(int count) {
+        if (length + count > pending.length) {
+            pending = Arrays.copyOf(pending, Math.max(pending.length * 2,
+                    length + count));
+        }
+    }
+    
+    /**
+     * Parses the pending chars, hands the certain matches to the sink, and
+     * discards the chars before the first undecided token.
+     * 
+     * @param complete true if no chunk follows
+     */
+    private void parse(boolean complete) throws DateParseException {
+        int limit = complete ? length : wordStart(length);
+        tokenizer.reset(pending, 0, limit);
+        buffer.reset(tokenizer);
+        parser.reset(now);
+        
+        int resume = parser.parseCertain(complete, limit);
+        
+        System.arraycopy(pending, resume, pending, 0, length - resume);
+        length -= resume;
+        base += resume;
+    }
+    
+    /**
+     * Returns the start of the word or number ending at the given index,
+     * which the next chunk may extend.
+     */
+    private int wordStart(int end) {
+        while (end > 0 && Character.isLetterOrDigit(pending[end - 1])) {
+            end--;
+        }
+        return end;
+    }
+    
+    private void emit(DateMatch match) {
+        if (stopped) {
+            return;
+        }
+        DateMatch shifted = new DateMatch(match.getDate(), match.getKind(),
+                Math.toIntExact(base + match.getStart()),
+                Math.toIntExact(base + match.getEnd()));
+        if (!sink.accept(shifted)) {
+            stopped = true;
+        }
+    }
+    
+    /**
+     * Parses the pending chars, as long as its results don't depend on the
+     * chars to come.
+     */
+    private final class StreamParser extends DateParser {
+
+        StreamParser(WindowBuffer buffer, ZonedDateTime now) {
+            super(buffer, now);
+        }
+        
+        /**
+         * @param complete true if no chunk follows
+         * @param limit end of the tokenized chars
+         * @return the offset of the first token whose parsing depends on the
+         * chars to come
+         */
+        int parseCertain(boolean complete, int limit)
+                throws DateParseException {
+            try {
+                while (!stopped && lookahead(0) != null) {
+                    int offset = buffer.getStart(0);
+                    boolean matched = parseAttempt();
+                    if (buffer.eofSeen && !complete) {
+                        // The next chunk may change this attempt
+                        return offset;
+                    }
+                    if (matched) {
+                        emit(getMatch());
+                    }
+                }
+                return limit;
+            } catch (TokenizerException ex) {
+                throw readError(ex);
+            }
+        }
+        
+    }
+    
+}
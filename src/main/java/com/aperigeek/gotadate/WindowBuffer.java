@@ -0,0 +1,56 @@
+/*
+ * This file is part of gotadate.
+ *
+ * gotadate is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * gotadate is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with gotadate.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.aperigeek.gotadate;
+
+import com.aperigeek.gotadate.token.Keywords;
+import com.aperigeek.gotadate.token.TokenBuffer;
+import com.aperigeek.gotadate.token.TokenSource;
+import com.aperigeek.gotadate.token.TokenizerException;
+
+/**
+ * A TokenBuffer remembering if the end of input has been looked at.
+ * 
+ * A parser reading a window of a larger input can only trust its results
+ * as long as it hasn't looked at the end of the window: past it, the
+ * window may diverge from the whole input.
+ * 
+ * @author Vivien Barousse
+ */
+final class WindowBuffer extends TokenBuffer {
+    
+    boolean eofSeen;
+
+    WindowBuffer(TokenSource source, Keywords keywords) {
+        super(source, keywords);
+    }
+
+    @Override
+    public void reset(TokenSource source) {
+        super.reset(source);
+        eofSeen = false;
+    }
+
+    @Override
+    protected int fill(int i) throws TokenizerException {
+        int index = super.fill(i);
+        if (index < 0) {
+            eofSeen = true;
+        }
+        return index;
+    }
+    
+}
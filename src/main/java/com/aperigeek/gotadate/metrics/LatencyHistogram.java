@@ -0,0 +1,159 @@
+/*
+ * This file is part of gotadate.
+ *
+ * gotadate is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * gotadate is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with gotadate.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.aperigeek.gotadate.metrics;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * A lock-free histogram of durations, in nanoseconds.
+ * 
+ * Durations are counted in buckets whose width grows with the values: each
+ * power of two is split in 8 buckets, so that a value is known within
+ * 12.5%. Recording a duration is an atomic increment, and never allocates.
+ * Reading the histogram while it is recorded into gives an approximate,
+ * but consistent enough, view of it.
+ * 
+ * @author Vivien Barousse
+ */
+public final class LatencyHistogram {
+    
+    /**
+     * Number of bits of a value kept in its bucket index, besides its
+     * highest bit.
+     */
+    private static final int SUB_BITS = 3;
+    
+    private static final int SUB_BUCKETS = 1 << SUB_BITS;
+    
+    private static final int BUCKETS = (64 - SUB_BITS) * SUB_BUCKETS;
+    
+    private final AtomicLongArray counts = new AtomicLongArray(BUCKETS);
+    
+    private final LongAdder count = new LongAdder();
+    
+    private final LongAdder total = new LongAdder();
+    
+    private final AtomicLong max = new AtomicLong();
+    
+    /**
+     * Records a duration. Negative durations, which a clock going backwards
+     * may produce, are recorded as 0.
+     */
+    public void record(long nanos) {
+        if (nanos < 0) {
+            nanos = 0;
+        }
+        counts.incrementAndGet(bucketOf(nanos));
+        count.increment();
+        total.add(nanos);
+        
+        long current = max.get();
+        while (nanos > current && !max.compareAndSet(current, nanos)) {
+            current = max.get();
+        }
+    }
+    
+    public long getCount() {
+        return count.sum();
+    }
+    
+    public long getMax() {
+        return max.get();
+    }
+    
+    /**
+     * Returns the mean duration, or 0 if nothing has been recorded.
+     */
+    public long getMean() {
+        long n = count.sum();
+        return n == 0 ? 0 : total.sum() / n;
+    }
+    
+    /**
+     * Returns an upper bound of the given percentile of the durations, or 0
+     * if nothing has been recorded.
+     * 
+     * @param percentile the percentile, between 0 and 100
+     */
+    public long getPercentile(double percentile) {
+        if (percentile < 0 || percentile > 100) {
+            throw new IllegalArgumentException("Invalid percentile: "
+                    + percentile);
+        }
+        
+        long[] snapshot = new long[BUCKETS];
+        long n = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            snapshot[i] = counts.get(i);
+            n += snapshot[i];
+        }
+        if (n == 0) {
+            return 0;
+        }
+        
+        long rank = Math.max((long) Math.ceil(n * percentile / 100), 1);
+        long seen = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            seen += snapshot[i];
+            if (seen >= rank) {
+                return Math.min(upperBound(i), max.get());
+            }
+        }
+        return max.get();
+    }
+    
+    /**
+     * Forgets all the recorded durations. Durations recorded concurrently
+     * may be partially kept.
+     */
+    public void reset() {
+        for (int i = 0; i < BUCKETS; i++) {
+            counts.set(i, 0);
+        }
+        count.reset();
+        total.reset();
+        max.set(0);
+    }
+    
+    static int bucketOf(long value) {
+        if (value < SUB_BUCKETS) {
+            return (int) value;
+        }
+        int exponent = 63 - Long.numberOfLeadingZeros(value);
+        int shift = exponent - SUB_BITS;
+        return (shift + 1) * SUB_BUCKETS
+                + (int) ((value >>> shift) & (SUB_BUCKETS - 1));
+    }
+    
+    /**
+     * Returns the greatest value counted in the given bucket.
+     */
+    static long upperBound(int bucket) {
+        if (bucket < SUB_BUCKETS) {
+            return bucket;
+        }
+        if (bucket == BUCKETS - 1) {
+            return Long.MAX_VALUE;
+        }
+        int shift = bucket / SUB_BUCKETS - 1;
+        long sub = bucket % SUB_BUCKETS;
+        return ((SUB_BUCKETS + sub + 1) << shift) - 1;
+    }
+    
+}
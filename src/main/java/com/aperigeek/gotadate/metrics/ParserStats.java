@@ -0,0 +1,186 @@
+/*
+ * This file is part of gotadate.
+ *
+ * gotadate is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * gotadate is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with gotadate.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.aperigeek.gotadate.metrics;
+
+import com.aperigeek.gotadate.parser.MatchKind;
+import com.aperigeek.gotadate.parser.ParserMetrics;
+import java.lang.management.ManagementFactory;
+import java.util.concurrent.atomic.LongAdder;
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+/**
+ * Counts the activity of parsers, and exposes it through JMX.
+ * 
+ * A single ParserStats is meant to be shared by all the parsers of an
+ * application, for example by giving it to a DateExtractor. Counters are
+ * LongAdders and the latencies are recorded in a {@link LatencyHistogram},
+ * so that concurrent parsers don't contend on them.
+ * 
+ * @author Vivien Barousse
+ */
+public final class ParserStats implements ParserMetrics, ParserStatsMBean {
+    
+    /**
+     * JMX domain of the registered statistics.
+     */
+    public static final String DOMAIN = "com.aperigeek.gotadate";
+    
+    private final LongAdder documents = new LongAdder();
+    
+    private final LongAdder characters = new LongAdder();
+    
+    private final LongAdder tokens = new LongAdder();
+    
+    /**
+     * Number of matches of each rule, indexed by MatchKind ordinal.
+     */
+    private final LongAdder[] matches =
+            new LongAdder[MatchKind.values().length];
+    
+    private final LongAdder failedAttempts = new LongAdder();
+    
+    private final LongAdder inputErrors = new LongAdder();
+    
+    private final LatencyHistogram latencies = new LatencyHistogram();
+
+    public ParserStats() {
+        for (int i = 0; i < matches.length; i++) {
+            matches[i] = new LongAdder();
+        }
+    }
+    
+    public void documentParsed(long chars, long tokens) {
+        this.documents.increment();
+        this.characters.add(chars);
+        this.tokens.add(tokens);
+    }
+    
+    public void callCompleted(long nanos) {
+        latencies.record(nanos);
+    }
+    
+    public void matched(MatchKind kind) {
+        matches[kind.ordinal()].increment();
+    }
+    
+    public void attemptFailed() {
+        failedAttempts.increment();
+    }
+    
+    public void inputError() {
+        inputErrors.increment();
+    }
+    
+    public long getDocuments() {
+        return documents.sum();
+    }
+    
+    public long getCharacters() {
+        return characters.sum();
+    }
+    
+    public long getTokens() {
+        return tokens.sum();
+    }
+    
+    public long getMatches(MatchKind kind) {
+        return matches[kind.ordinal()].sum();
+    }
+    
+    public long getNumericDateMatches() {
+        return getMatches(MatchKind.NUMERIC_DATE);
+    }
+    
+    public long getMonthFirstMatches() {
+        return getMatches(MatchKind.MONTH_FIRST);
+    }
+    
+    public long getRelativeMatches() {
+        return getMatches(MatchKind.RELATIVE);
+    }
+    
+    public long getTimeMatches() {
+        return getMatches(MatchKind.TIME);
+    }
+    
+    public long getFailedAttempts() {
+        return failedAttempts.sum();
+    }
+    
+    public long getInputErrors() {
+        return inputErrors.sum();
+    }
+    
+    public LatencyHistogram getLatencies() {
+        return latencies;
+    }
+    
+    public long getCalls() {
+        return latencies.getCount();
+    }
+    
+    public long getMeanLatency() {
+        return latencies.getMean();
+    }
+    
+    public long getMedianLatency() {
+        return latencies.getPercentile(50);
+    }
+    
+    public long getP99Latency() {
+        return latencies.getPercentile(99);
+    }
+    
+    public long getP999Latency() {
+        return latencies.getPercentile(99.9);
+    }
+    
+    public long getMaxLatency() {
+        return latencies.getMax();
+    }
+    
+    public void reset() {
+        documents.reset();
+        characters.reset();
+        tokens.reset();
+        for (LongAdder counter : matches) {
+            counter.reset();
+        }
+        failedAttempts.reset();
+        inputErrors.reset();
+        latencies.reset();
+    }
+    
+    /**
+     * Registers these statistics in the platform MBean server, under
+     * "com.aperigeek.gotadate:type=ParserStats,name=<i>name</i>".
+     * 
+     * @param name name telling these statistics apart from others
+     * @return the name of the registered MBean, to unregister it
+     * @throws JMException if the name is invalid or already registered
+     */
+    public ObjectName register(String name) throws JMException {
+        ObjectName objectName = new ObjectName(DOMAIN
+                + ":type=ParserStats,name=" + ObjectName.quote(name));
+        MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+        server.registerMBean(this, objectName);
+        return objectName;
+    }
+    
+}
@@ -0,0 +1,58 @@
+/*
+ * This file is part of gotadate.
+ *
+ * gotadate is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * gotadate is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with gotadate.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.aperigeek.gotadate.metrics;
+
+/**
+ * JMX view of {@link ParserStats}. Latencies are in nanoseconds.
+ * 
+ * @author Vivien Barousse
+ */
+public interface ParserStatsMBean {
+    
+    public long getDocuments();
+    
+    public long getCharacters();
+    
+    public long getTokens();
+    
+    public long getNumericDateMatches();
+    
+    public long getMonthFirstMatches();
+    
+    public long getRelativeMatches();
+    
+    public long getTimeMatches();
+    
+    public long getFailedAttempts();
+    
+    public long getInputErrors();
+    
+    public long getCalls();
+    
+    public long getMeanLatency();
+    
+    public long getMedianLatency();
+    
+    public long getP99Latency();
+    
+    public long getP999Latency();
+    
+    public long getMaxLatency();
+    
+    public void reset();
+    
+}
@@ -0,0 +1,140 @@
+/*
+ * This file is part of gotadate.
+ *
+ * gotadate is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * gotadate is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with gotadate.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.aperigeek.gotadate.parser;
+
+import com.aperigeek.gotadate.token.Keyword;
+import com.aperigeek.gotadate.token.Keywords;
+import java.util.Set;
+
+/**
+ * Finds the places in a text where a date may start, without tokenizing it.
+ * 
+ * A match always starts with a number, a month name, "yesterday",
+ * "tomorrow", "at", or a word placed before a number of days like "vor",
+ * in any of the languages of the keywords. The chars starting such tokens
+ * are kept in a bitmap covering all the chars: digits, and the first
+ * letters of the keywords, in any case. Most chars are rejected with a
+ * single lookup in this bitmap. An anchor is such a char at the start of a
+ * token, ie not preceded by a char of the same kind. Words are only anchors
+ * if they match one of the keywords.
+ * 
+ * An AnchorScanner is immutable, and can be shared between threads.
+ * 
+ * @author Vivien Barousse
+ */
+public final class AnchorScanner {
+    
+    /**
+     * Keywords a match can start with, besides numbers.
+     */
+    private static final Set<Keyword> START_KEYWORDS =
+            Grammar.getDefault().getStartKeywords();
+    
+    private static final AnchorScanner DEFAULT =
+            new AnchorScanner(Keywords.getDefault());
+    
+    /**
+     * One bit per char, set for the chars which may start a match.
+     */
+    private final long[] anchors = newBitmap();
+    
+    private final Keywords keywords;
+
+    public AnchorScanner(Keywords keywords) {
+        this.keywords = keywords;
+        for (int ch = 0; ch <= Character.MAX_VALUE; ch++) {
+            if (Character.isDigit(ch) || (Character.isLetter(ch)
+                    && keywords.mayStart((char) ch, START_KEYWORDS))) {
+                set(anchors, ch);
+            }
+        }
+    }
+    
+    private static long[] newBitmap() {
+        return new long[(Character.MAX_VALUE + 1) / 64];
+    }
+    
+    private static void set(long[] bitmap, int ch) {
+        bitmap[ch >>> 6] |= 1L << ch;
+    }
+    
+    private static boolean isSet(long[] bitmap, char ch) {
+        return (bitmap[ch >>> 6] & (1L << ch)) != 0;
+    }
+    
+    /**
+     * Returns the scanner for the default keywords.
+     */
+    public static AnchorScanner getDefault() {
+        return DEFAULT;
+    }
+    
+    /**
+     * Returns the scanner for the given keywords, sharing the default one
+     * when possible.
+     */
+    public static AnchorScanner forKeywords(Keywords keywords) {
+        return keywords == Keywords.getDefault()
+                ? DEFAULT : new AnchorScanner(keywords);
+    }
+    
+    /**
+     * Checks if a match may start with the given char.
+     */
+    public boolean isAnchor(char ch) {
+        return isSet(anchors, ch);
+    }
+    
+    /**
+     * Returns the offset of the first anchor in the given range, or -1 if
+     * there is none. The char at start is assumed to start a token.
+     * 
+     * @param text the text to scan
+     * @param start index of the first char to scan
+     * @param end index after the last char to scan
+     */
+    public int next(CharSequence text, int start, int end) {
+        char previous = ' ';
+        for (int i = start; i < end; i++) {
+            char ch = text.charAt(i);
+            if (!isSet(anchors, ch)) {
+                previous = ch;
+            } else if (Character.isDigit(ch)) {
+                if (!Character.isDigit(previous)) {
+                    return i;
+                }
+                previous = ch;
+            } else if (!Character.isLetter(previous)) {
+                int wordEnd = i + 1;
+                while (wordEnd < end
+                        && Character.isLetter(text.charAt(wordEnd))) {
+                    wordEnd++;
+                }
+                if (START_KEYWORDS.contains(
+                        keywords.match(text, i, wordEnd))) {
+                    return i;
+                }
+                i = wordEnd - 1;
+                previous = text.charAt(i);
+            } else {
+                previous = ch;
+            }
+        }
+        return -1;
+    }
+    
+}
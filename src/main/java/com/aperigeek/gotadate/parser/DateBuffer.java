@@ -0,0 +1,104 @@
+/*
+ * This file is part of gotadate.
+ *
+ * gotadate is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * gotadate is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with gotadate.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.aperigeek.gotadate.parser;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Date;
+import java.util.List;
+
+/**
+ * A growable array of parsed dates, stored as milliseconds since the epoch.
+ * 
+ * A parser fills a DateBuffer without creating any object, the array being
+ * grown only when full. A buffer can be cleared and reused for many
+ * inputs. Date objects are only created when asked for.
+ * 
+ * @author Vivien Barousse
+ */
+public final class DateBuffer {
+    
+    private long[] millis;
+    
+    private int size;
+
+    public DateBuffer() {
+        this(16);
+    }
+
+    public DateBuffer(int capacity) {
+        this.millis = new long[Math.max(capacity, 1)];
+    }
+    
+    public void add(long millis) {
+        if (size == this.millis.length) {
+            this.millis = Arrays.copyOf(this.millis, size * 2);
+        }
+        this.millis[size++] = millis;
+    }
+    
+    public int size() {
+        return size;
+    }
+    
+    public boolean isEmpty() {
+        return size == 0;
+    }
+    
+    /**
+     * Returns the i-th date, in milliseconds since the epoch.
+     */
+    public long getMillis(int i) {
+        if (i >= size) {
+            throw new IndexOutOfBoundsException("Index " + i + ", size " + size);
+        }
+        return millis[i];
+    }
+    
+    /**
+     * Creates a Date for the i-th date.
+     */
+    public Date getDate(int i) {
+        return new Date(getMillis(i));
+    }
+    
+    /**
+     * Returns a copy of the dates, in milliseconds since the epoch.
+     */
+    public long[] toArray() {
+        return Arrays.copyOf(millis, size);
+    }
+    
+    /**
+     * Creates a Date for each of the dates.
+     */
+    public List<Date> toDates() {
+        List<Date> dates = new ArrayList<Date>(size);
+        for (int i = 0; i < size; i++) {
+            dates.add(new Date(millis[i]));
+        }
+        return dates;
+    }
+    
+    /**
+     * Removes all the dates, keeping the array for reuse.
+     */
+    public void clear() {
+        size = 0;
+    }
+    
+}
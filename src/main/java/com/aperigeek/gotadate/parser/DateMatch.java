@@ -0,0 +1,90 @@
+/*
+ * This file is part of gotadate.
+ *
+ * gotadate is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * gotadate is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with gotadate.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.aperigeek.gotadate.parser;
+
+import java.util.Date;
+
+/**
+ * A date found in a text, with the rule it matched and its position in the
+ * text.
+ * 
+ * A match combining a date and a time, as in "tomorrow at 5pm", has the
+ * kind of its date. Offsets are -1 if the tokenizer doesn't report them.
+ * 
+ * @author Vivien Barousse
+ */
+public final class DateMatch {
+    
+    private final Date date;
+    
+    private final MatchKind kind;
+    
+    private final int start;
+    
+    private final int end;
+
+    /**
+     * @param date the parsed date
+     * @param kind the rule the date has been matched with
+     * @param start index of the first character of the match
+     * @param end index after the last character of the match
+     */
+    public DateMatch(Date date, MatchKind kind, int start, int end) {
+        this.date = date;
+        this.kind = kind;
+        this.start = start;
+        this.end = end;
+    }
+
+    public Date getDate() {
+        return date;
+    }
+
+    public MatchKind getKind() {
+        return kind;
+    }
+
+    public int getStart() {
+        return start;
+    }
+
+    public int getEnd() {
+        return end;
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+        if (!(obj instanceof DateMatch)) {
+            return false;
+        }
+        DateMatch other = (DateMatch) obj;
+        return date.equals(other.date) && kind == other.kind
+                && start == other.start && end == other.end;
+    }
+
+    @Override
+    public int hashCode() {
+        return ((date.hashCode() * 31 + kind.hashCode()) * 31 + start) * 31
+                + end;
+    }
+
+    @Override
+    public String toString() {
+        return kind + " " + date + " [" + start + ", " + end + "[";
+    }
+    
+}
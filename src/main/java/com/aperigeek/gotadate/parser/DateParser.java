@@ -17,23 +17,22 @@
 package com.aperigeek.gotadate.parser;
 
 import com.aperigeek.gotadate.parser.la.LookAheadTable;
-import com.aperigeek.gotadate.token.DateTokenizer;
-import com.aperigeek.gotadate.token.Token;
+import com.aperigeek.gotadate.token.Keyword;
+import com.aperigeek.gotadate.token.Keywords;
+import com.aperigeek.gotadate.token.TokenBuffer;
+import com.aperigeek.gotadate.token.TokenSource;
+import com.aperigeek.gotadate.token.TokenStream;
 import com.aperigeek.gotadate.token.TokenType;
+import com.aperigeek.gotadate.token.Tokenizer;
 import com.aperigeek.gotadate.token.TokenizerException;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.ZonedDateTime;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collections;
 import java.util.Date;
-import java.util.HashMap;
-import java.util.HashSet;
 import java.util.List;
-import java.util.Map;
-import java.util.Set;
-import org.joda.time.DateTime;
-import org.joda.time.DateTimeZone;
-import org.joda.time.LocalDate;
-import org.joda.time.LocalTime;
-import org.joda.time.ReadableInstant;
 
 /**
  *
@@ -41,420 +40,687 @@ import org.joda.time.ReadableInstant;
  */
 public class DateParser {
 
-    private LookAheadTable next;
-
-    private Token token;
+    /**
+     * Tokens to parse. The token at index 0 is the current token.
+     */
+    private TokenStream tokens;
+    
+    /**
+     * Number of tokens consumed so far.
+     */
+    private int position;
+    
+    /**
+     * Offset, in the source, after the last consumed token.
+     */
+    private int consumedEnd = -1;
+    
+    /**
+     * Offset, in the source, of the first token of the last match.
+     */
+    private int matchStart;
+    
+    /**
+     * Rule of the last match found by parseMatch().
+     */
+    private MatchKind matchKind;
+    
+    /**
+     * Instant of the last match found by parseMatch().
+     */
+    private long matchMillis;
 
-    private DateTimeZone zone = DateTimeZone.getDefault();
+    /**
+     * Reference time zone, null for the system default zone.
+     */
+    private ZoneId zone;
 
-    private DateTime now = DateTime.now(zone);
+    private long nowMillis;
+    
+    /**
+     * Reference day, counted from 1970-01-01, in the reference time zone.
+     * Computed on first use, as it requires the zone rules.
+     */
+    private long today;
+    
+    private int currentYear;
+    
+    private ZoneOffsets offsets;
 
     private List<Date> parsed = new ArrayList<Date>();
     
-    private Map<String, Integer> MONTHS_MAP = new HashMap<String, Integer>() {{
-        put("january", 1);
-        put("jan", 1);
-        put("february", 2);
-        put("feb", 2);
-        put("march", 3);
-        put("mar", 3);
-        put("april", 4);
-        put("apr", 4);
-        put("may", 5);
-        put("june", 6);
-        put("jun", 6);
-        put("july", 7);
-        put("jul", 7);
-        put("august", 8);
-        put("aug", 8);
-        put("september", 9);
-        put("sept", 9);
-        put("sep", 9);
-        put("october", 10);
-        put("oct", 10);
-        put("november", 11);
-        put("nov", 11);
-        put("december", 12);
-        put("dec", 12);
-    }};
-    
-    private Set<String> ORDINALS_SET = new HashSet<String>() {{
-        add("st");
-        add("nd");
-        add("rd");
-        add("th");
-    }};
+    private final Grammar grammar = Grammar.getDefault();
+    
+    /**
+     * Transitions taken by the last scan, one per token.
+     */
+    private int[] path = new int[16];
+    
+    /**
+     * Number of tokens matched by the last scan.
+     */
+    private int matchLength;
+    
+    /**
+     * Fields read from the last rule matched, by ordinal.
+     */
+    private final int[] fields = new int[Field.values().length];
+    
+    /**
+     * Fields set by the last rule matched, as a bit mask of their ordinals.
+     */
+    private int fieldsSet;
+    
+    /**
+     * Receiver of the parsing activity, or null if it isn't monitored.
+     */
+    private ParserMetrics metrics;
+    
+    /**
+     * Number of matches found in the input.
+     */
+    private int matchCount;
+    
+    /**
+     * Returned by date parse methods when the tokens don't match.
+     */
+    protected static final long NO_DATE = Long.MIN_VALUE;
+    
+    /**
+     * Returned by time parse methods when the tokens don't match.
+     */
+    protected static final int NO_TIME = -1;
+    
+    /**
+     * Last year whose dates can be represented by java.util.Date.
+     */
+    private static final int MAX_YEAR = 292278993;
+
+    /**
+     * Creates a parser resolving relative dates against the current time,
+     * in the system default time zone. The default zone is only looked up
+     * once a date is found.
+     */
+    public DateParser(Tokenizer tokenizer) throws DateParseException {
+        this(createStream(tokenizer, Keywords.getDefault()),
+                Instant.ofEpochMilli(System.currentTimeMillis()), null);
+    }
 
-    public DateParser(DateTokenizer tokenizer) throws DateParseException {
-        this.next = new LookAheadTable(tokenizer);
-        next();
+    /**
+     * Creates a parser resolving relative dates against the given reference
+     * time, in the reference time zone.
+     * 
+     * Unlike the default constructor, this one doesn't query the system
+     * clock nor the default time zone.
+     */
+    public DateParser(Tokenizer tokenizer, Keywords keywords,
+                      ZonedDateTime now) throws DateParseException {
+        this(createStream(tokenizer, keywords), now);
+    }
+
+    public DateParser(TokenStream tokens, ZonedDateTime now) {
+        this(tokens, now.toInstant(), now.getZone());
+    }
+
+    /**
+     * Creates a parser resolving relative dates against the given instant,
+     * in the given time zone. The zone rules are only looked up once a date
+     * is found.
+     * 
+     * @param zone the reference time zone, or null for the system default
+     * zone
+     */
+    public DateParser(TokenStream tokens, Instant now, ZoneId zone) {
+        this.tokens = tokens;
+        setReference(now.toEpochMilli(), zone);
+    }
+
+    /**
+     * Prepares this parser to parse a new input, from the same TokenStream.
+     * The stream itself must be reset by the caller. Lists previously
+     * returned by getParsed() are left untouched.
+     * 
+     * @param now reference instant
+     * @param zone reference time zone, or null for the system default zone
+     */
+    public void reset(Instant now, ZoneId zone) {
+        this.position = 0;
+        this.consumedEnd = -1;
+        this.matchCount = 0;
+        setReference(now.toEpochMilli(), zone);
+        if (!parsed.isEmpty()) {
+            this.parsed = new ArrayList<Date>();
+        }
+    }
+    
+    /**
+     * Prepares this parser to parse a new input, like
+     * {@link #reset(Instant, ZoneId)}.
+     * 
+     * @param now reference time, in the reference time zone
+     */
+    public void reset(ZonedDateTime now) {
+        reset(now.toInstant(), now.getZone());
+    }
+    
+    private void setReference(long nowMillis, ZoneId zone) {
+        this.nowMillis = nowMillis;
+        this.zone = zone;
+        if (offsets == null || !sameZone(offsets.getZone(), zone)) {
+            offsets = new ZoneOffsets(zone);
+        }
+        this.today = NO_DATE;
+    }
+    
+    private static boolean sameZone(ZoneId a, ZoneId b) {
+        return a == null ? b == null : a.equals(b);
+    }
+    
+    /**
+     * Returns the reference day, resolving the zone rules on first call.
+     */
+    private long today() {
+        if (today == NO_DATE) {
+            today = offsets.toDay(nowMillis);
+            currentYear = (int) EpochDays.yearOf(today);
+        }
+        return today;
+    }
+    
+    private int currentYear() {
+        today();
+        return currentYear;
+    }
+    
+    /**
+     * Creates the best TokenStream for the given tokenizer: tokenizers able
+     * to fill a TokenBuffer directly don't need to create Token objects.
+     */
+    private static TokenStream createStream(Tokenizer tokenizer,
+                                            Keywords keywords) {
+        if (tokenizer instanceof TokenSource) {
+            return new TokenBuffer((TokenSource) tokenizer, keywords);
+        }
+        return new LookAheadTable(tokenizer, keywords,
+                Grammar.getDefault().getLongestMatch() + 1);
     }
 
     protected void next() throws DateParseException {
         try {
-            token = next.pop();
+            consumedEnd = tokens.getEnd(0);
+            tokens.advance();
+            position++;
         } catch (TokenizerException ex) {
-            throw new DateParseException("Unable to read from source", ex);
+            throw readError(ex);
         }
     }
 
-    protected Token lookahead(int i) throws DateParseException {
+    /**
+     * Returns the type of the i-th token, 0 being the current token, or
+     * null if the end of input is reached before it.
+     */
+    protected TokenType lookahead(int i) throws DateParseException {
         try {
-            return next.get(i);
+            return tokens.getType(i);
         } catch (TokenizerException ex) {
-            throw new DateParseException("Unable to read from source", ex);
+            throw readError(ex);
         }
     }
 
+    /**
+     * Parses the whole input, and stores the parsed dates in the list
+     * returned by getParsed().
+     */
     public void parse() throws DateParseException {
-        while (token != null) {
-            LocalDate date = null;
-            LocalTime time = null;
-            try {
-                if (isDate()) {
-                    date = parseDate();
-                } else if (isRelativeDate()) {
-                    date = parseRelativeDate();
-                } else if (isMonthName(token)) {
-                    date = parseDateMonthFirst();
-                }
-                if (isTime()) {
-                    time = parseTime();
-                }
-                if (date == null) {
-                    if (isDate()) {
-                        date = parseDate();
-                    } else if (isRelativeDate()) {
-                        date = parseRelativeDate();
-                    } else if (isMonthName(token)) {
-                        date = parseDateMonthFirst();
-                    }
-                }
-            } catch (UnexpectedTokenException ex) {
-            } finally {
-                if (time != null) {
-                    ReadableInstant ref =
-                            (date == null) ? now : date.toDateMidnight();
-                    DateTime dt = time.toDateTime(ref);
-                    parsed.add(dt.toDate());
-                } else if (date != null) {
-                    parsed.add(date.toDate());
-                }
-            }
-            next();
+        DocumentParseEvent event = new DocumentParseEvent();
+        long started = startCall(event);
+        while (parseNext()) {
+            parsed.add(new Date(matchMillis));
         }
+        endCall(event, started, true);
     }
-
+    
     /**
-     * Parse a date and store it in the parsed dates list
-     * 
-     * A date is defined by the following syntax:
-     * Date:
-     *     number "/" number "/" number
+     * Parses the input, handing each date to the given sink as soon as it
+     * is parsed. Parsing stops at the end of input, or as soon as the sink
+     * returns false. In that case, the remaining input isn't read, and a
+     * later call resumes parsing after the last date.
      * 
-     * The interpretation of this string depends on the value of each number.
-     * The parser tries to determine which value is the day, the month and
-     * the year.
+     * @param sink receiver of the parsed dates
+     * @return true if the whole input has been parsed, false if the sink
+     * stopped the parsing
      */
-    protected LocalDate parseDate() throws DateParseException,
-                                           UnexpectedTokenException {
-        int[] ls = new int[3];
-
-        ls[0] = getInt();
-        if (isOrdinal(token)) {
-            next();
-        }
-        
-        if (isToken('/')) {
-            check('/');
-            ls[1] = getInt();
-            check('/');
-            ls[2] = getInt();
-        } else if (isMonthName(token)) {
-            ls[1] = getMonth();
-            if (isTokenType(TokenType.NUMBER)) {
-                ls[2] = getInt();
+    public boolean parse(DateSink sink) throws DateParseException {
+        DocumentParseEvent event = new DocumentParseEvent();
+        long started = startCall(event);
+        while (parseNext()) {
+            if (!sink.accept(new Date(matchMillis))) {
+                endCall(event, started, false);
+                return false;
             }
-        } else {
-            throw new UnexpectedTokenException();
         }
-
-        if (ls[1] > 12 && ls[0] <= 12) {
-            int tmp = ls[1];
-            ls[1] = ls[0];
-            ls[0] = tmp;
+        endCall(event, started, true);
+        return true;
+    }
+    
+    /**
+     * Parses the whole input, and appends the instant of each date to the
+     * given buffer, in milliseconds since the epoch. No object is created
+     * per date, unless the buffer has to grow.
+     * 
+     * @param buffer receiver of the parsed dates
+     */
+    public void parse(DateBuffer buffer) throws DateParseException {
+        DocumentParseEvent event = new DocumentParseEvent();
+        long started = startCall(event);
+        while (parseNext()) {
+            buffer.add(matchMillis);
         }
-        
-        if (ls[2] == 0) {
-            ls[2] = now.getYear();
+        endCall(event, started, true);
+    }
+    
+    /**
+     * Parses the input, handing each match, with its rule and its position
+     * in the source, to the given sink as soon as it is parsed. Parsing
+     * stops as in parse(DateSink).
+     * 
+     * @param sink receiver of the matches
+     * @return true if the whole input has been parsed, false if the sink
+     * stopped the parsing
+     */
+    public boolean parseMatches(MatchSink sink) throws DateParseException {
+        DocumentParseEvent event = new DocumentParseEvent();
+        long started = startCall(event);
+        while (parseNext()) {
+            if (!sink.accept(getMatch())) {
+                endCall(event, started, false);
+                return false;
+            }
         }
-
-        LocalDate date = new LocalDate(ls[2], ls[1], ls[0]);
-        return date;
+        endCall(event, started, true);
+        return true;
     }
     
-    protected LocalDate parseRelativeDate() throws DateParseException, 
-                                                   UnexpectedTokenException {
-        if (isToken("yesterday")) {
-            next();
-            return now.minusDays(1).toLocalDate();
-        } else if (isToken("tomorrow")) {
-            next();
-            return now.plusDays(1).toLocalDate();
-        } else if (token.getType() == TokenType.NUMBER) {
-            int val = getInt();
-            check("days"); // 'days' is the only supported unit yet
-            check("ago"); // 'ago' is the only supported time indicator yet
-            return now.minusDays(val).toLocalDate();
+    /**
+     * Starts timing a call to a public parse method. The event is created
+     * by the caller, so that it can be optimized away when Flight Recorder
+     * doesn't record it.
+     */
+    private long startCall(DocumentParseEvent event) {
+        event.begin();
+        return metrics == null ? 0 : System.nanoTime();
+    }
+    
+    /**
+     * Reports a call to a public parse method to Flight Recorder and to the
+     * metrics, if any.
+     * 
+     * @param started value of System.nanoTime() when the call started
+     * @param complete true if the end of input has been reached
+     */
+    private void endCall(DocumentParseEvent event, long started,
+                         boolean complete) {
+        if (event.shouldCommit()) {
+            event.complete = complete;
+            event.characters = complete ? getInputLength() : 0;
+            event.tokens = position;
+            event.matches = matchCount;
+            event.commit();
+        }
+        if (metrics == null) {
+            return;
+        }
+        metrics.callCompleted(System.nanoTime() - started);
+        if (complete) {
+            metrics.documentParsed(getInputLength(), position);
         }
-        
-        throw new UnexpectedTokenException();
     }
     
-    protected LocalDate parseDateMonthFirst() throws DateParseException, 
-                                                   UnexpectedTokenException {
-        
-        int[] ls = new int[3];
-        
-        ls[1] = MONTHS_MAP.get(token.getValue());
-        next();
-        
-        ls[0] = getInt();
-        
-        if (isOrdinal(token)) {
-            next();
+    /**
+     * Parses the input up to the end of the next match. The match is then
+     * available from getMatchMillis(), and is handed over by the public
+     * parse methods.
+     * 
+     * @return false if the end of input has been reached without a match
+     */
+    protected boolean parseNext() throws DateParseException {
+        while (lookahead(0) != null) {
+            if (parseAttempt()) {
+                return true;
+            }
         }
-        if (isToken(',')) {
+        return false;
+    }
+    
+    /**
+     * Tries to parse a match at the current token. If nothing is matched,
+     * the current token is skipped.
+     * 
+     * @return true if a match has been found
+     */
+    protected boolean parseAttempt() throws DateParseException {
+        int start = position;
+        matchStart = getStart();
+        boolean matched = parseMatch();
+        if (position == start) {
             next();
         }
-        
-        if (isTokenType(TokenType.NUMBER)) {
-            ls[2] = getInt();
+        return matched;
+    }
+    
+    /**
+     * Returns the instant of the last match, in milliseconds since the
+     * epoch.
+     */
+    protected long getMatchMillis() {
+        return matchMillis;
+    }
+    
+    /**
+     * Returns the last match found by parseAttempt(), with its rule and its
+     * position in the source.
+     */
+    protected DateMatch getMatch() {
+        return new DateMatch(new Date(matchMillis), matchKind, matchStart,
+                consumedEnd);
+    }
+    
+    /**
+     * Tries to parse a date, a time, or both, starting at the current
+     * token.
+     * 
+     * The grammar automaton reads the tokens once, and tells which rule
+     * matches the longest sequence of them, if any. A date may then be
+     * followed by a time, or a time by a date. The fields of the rules are
+     * computed as day numbers and seconds of day, and only converted to an
+     * instant once the whole match is parsed, without creating any object.
+     * 
+     * A rule whose fields don't denote a valid date or time, as in
+     * "31/02/2011", consumes its tokens but isn't matched. Whatever was
+     * matched before it is kept. The instant and the rule of the match are
+     * stored, to be reported by the public parse methods.
+     * 
+     * @return true if a date, a time or both have been found
+     */
+    protected boolean parseMatch() throws DateParseException {
+        long date = NO_DATE;
+        int time = NO_TIME;
+        FailedAttemptEvent failure = new FailedAttemptEvent();
+        if (failure.isEnabled()) {
+            failure.begin();
+            failure.offset = getStart();
         }
         
-        if (ls[2] == 0) {
-            ls[2] = now.getYear();
+        int rule = scan(Grammar.ANY);
+        if (rule == Grammar.DEAD) {
+            if ((metrics != null || failure.isEnabled()) && isMatchStart()) {
+                attemptFailed(failure, "No rule matches");
+            }
+            return false;
         }
-        
-        LocalDate date = new LocalDate(ls[2], ls[1], ls[0]);
-        return date;
-    }
-
-    protected LocalTime parseTime() throws DateParseException,
-                                           UnexpectedTokenException {
-        boolean desambiguate = false;
-        
-        // Skip the "at", which is used only to denote a date
-        if (isToken("at")) {
-            desambiguate = true;
-            next();
+        if (grammar.getRule(rule).isTime()) {
+            time = parseTime(rule);
+            if (time != NO_TIME && (rule = scan(Grammar.DATES))
+                    != Grammar.DEAD) {
+                date = parseDate(rule);
+            }
+        } else {
+            date = parseDate(rule);
+            if (date != NO_DATE && (rule = scan(Grammar.TIMES))
+                    != Grammar.DEAD) {
+                time = parseTime(rule);
+            }
         }
         
-        int[] ls = new int[3];
-
-        ls[0] = getInt();
-        if (isToken(':')) {
-            check(':');
-            ls[1] = getInt();
+        if (date == NO_DATE) {
+            if (time == NO_TIME) {
+                attemptFailed(failure, "Invalid date or time");
+                return false;
+            }
+            matchKind = MatchKind.TIME;
+            date = today();
         }
-        if (isToken(':')) {
-            check(':');
-            ls[2] = getInt();
-            desambiguate = false;
+        matchMillis = offsets.toMillis(date, time == NO_TIME ? 0 : time);
+        matchCount++;
+        if (metrics != null) {
+            metrics.matched(matchKind);
         }
-
-        if (isToken("am")) {
-            next();
-            desambiguate = false;
-        } else if (isToken("pm")) {
-            ls[0] = (ls[0] % 12) + 12;
-            next();
-            desambiguate = false;
+        return true;
+    }
+    
+    private void attemptFailed(FailedAttemptEvent event, String reason) {
+        if (event.shouldCommit()) {
+            event.reason = reason;
+            event.commit();
         }
-        
-        if (desambiguate && ls[0] <= 7) {
-            ls[0] += 12;
+        if (metrics != null) {
+            metrics.attemptFailed();
         }
-
-        LocalTime time = new LocalTime(ls[0], ls[1], ls[2]);
-        return time;
     }
-
-    protected boolean isDate() throws DateParseException {
-        if (token == null) {
-            return false;
+    
+    /**
+     * Checks if a match may start at the current token. If not, parseMatch()
+     * doesn't consume any token.
+     */
+    protected boolean isMatchStart() throws DateParseException {
+        int symbol = symbolOf(0);
+        return symbol != Grammar.DEAD && grammar.target(
+                grammar.transition(Grammar.ANY, symbol)) != Grammar.DEAD;
+    }
+    
+    /**
+     * Runs the grammar automaton on the tokens from the current one,
+     * without consuming them, and records the transitions taken.
+     * 
+     * @param start the state to start from
+     * @return the index of the rule matching the longest sequence of tokens,
+     * or Grammar.DEAD if none matches. The length of the sequence is stored
+     * in matchLength.
+     */
+    private int scan(int start) throws DateParseException {
+        int state = start;
+        int rule = Grammar.DEAD;
+        for (int i = 0; ; i++) {
+            int symbol = symbolOf(i);
+            if (symbol == Grammar.DEAD) {
+                break;
+            }
+            int transition = grammar.transition(state, symbol);
+            state = grammar.target(transition);
+            if (state == Grammar.DEAD) {
+                break;
+            }
+            
+            if (i == path.length) {
+                path = Arrays.copyOf(path, i * 2);
+            }
+            path[i] = transition;
+            if (grammar.getAccepted(state) != Grammar.DEAD) {
+                rule = grammar.getAccepted(state);
+                matchLength = i + 1;
+            }
         }
-        
-        if (token.getType() != TokenType.NUMBER) {
-            return false;
+        return rule;
+    }
+    
+    /**
+     * Returns the grammar symbol of the i-th token, or Grammar.DEAD if no
+     * rule uses it.
+     */
+    private int symbolOf(int i) throws DateParseException {
+        TokenType type = lookahead(i);
+        if (type == null) {
+            return Grammar.DEAD;
         }
         
-        if (isToken('/', lookahead(0))) {
-            return true;
-        } else if (isMonthName(lookahead(0))) {
-            return true;
-        } else if (isOrdinal(lookahead(0))) {
-            return true;
-        } else {
-            return false;
+        try {
+            switch (type) {
+                case NUMBER:
+                    return grammar.numberSymbol();
+                case SEPARATOR:
+                    return grammar.separatorSymbol(tokens.getChar(i));
+                case STRING:
+                    Keyword keyword = tokens.getKeyword(i);
+                    return keyword == null ? Grammar.DEAD
+                            : grammar.keywordSymbol(keyword);
+                default:
+                    return Grammar.DEAD;
+            }
+        } catch (TokenizerException ex) {
+            throw readError(ex);
         }
     }
     
-    protected boolean isRelativeDate() throws DateParseException {
-        if (token == null) {
-            return false;
+    /**
+     * Reads the fields set by the given rule on the last scanned tokens,
+     * and consumes these tokens.
+     */
+    private void readFields(int rule) throws DateParseException {
+        Arrays.fill(fields, 0);
+        fieldsSet = 0;
+        try {
+            for (int i = 0; i < matchLength; i++) {
+                Term term = grammar.getAction(path[i], rule);
+                Field field = term.getField();
+                if (field == null) {
+                    continue;
+                }
+                
+                int value = term.getValue();
+                if (term.isFromToken()) {
+                    value = lookahead(i) == TokenType.NUMBER
+                            ? tokens.getInt(i)
+                            : tokens.getKeyword(i).getMonth();
+                }
+                fields[field.ordinal()] = value;
+                fieldsSet |= 1 << field.ordinal();
+            }
+        } catch (TokenizerException ex) {
+            throw readError(ex);
         }
         
-        if (isToken("yesterday") ||
-                isToken("tomorrow")) {
-            return true;
-        } else if (token.getType() == TokenType.NUMBER
-                && isToken("days", lookahead(0)) 
-                && isToken("ago", lookahead(1))) {
-            return true;
+        for (int i = 0; i < matchLength; i++) {
+            next();
         }
-        
-        return false;
     }
     
-    protected boolean isOrdinal(Token t) {
-        if (t != null &&
-                t.getType() == TokenType.STRING &&
-                ORDINALS_SET.contains(t.getValue())) {
-            return true;
-        }
-        
-        return false;
+    private int getField(Field field) {
+        return fields[field.ordinal()];
     }
     
-    protected boolean isMonthName(Token t) {
-        if (t != null && 
-                t.getType() == TokenType.STRING &&
-                MONTHS_MAP.containsKey(t.getValue())) {
-            return true;
-        }
-        
-        return false;
+    private boolean isSet(Field field) {
+        return (fieldsSet & (1 << field.ordinal())) != 0;
     }
-
-    protected boolean isTime() throws DateParseException {
-        if (token == null) {
-            return false;
-        }
+    
+    /**
+     * Parses a date matched by the given rule: "23/10/1988", "23rd October",
+     * "October 23, 1988", "tomorrow", "3 days ago"...
+     * 
+     * For numeric dates, the parser tries to determine which value is the
+     * day and which is the month.
+     * 
+     * @return the parsed day, counted from 1970-01-01, or NO_DATE if the
+     * fields don't denote a valid date
+     */
+    private long parseDate(int rule) throws DateParseException {
+        readFields(rule);
+        matchKind = grammar.getRule(rule).getKind();
         
-        if (isToken("at")) {
-            return true;
+        if (isSet(Field.DAYS_BEFORE)) {
+            return today() - getField(Field.DAYS_BEFORE);
         }
         
-        if (token.getType() != TokenType.NUMBER) {
-            return false;
+        int day = getField(Field.DAY);
+        int month = getField(Field.MONTH);
+        int year = getField(Field.YEAR);
+        if (month > 12 && day <= 12) {
+            int tmp = month;
+            month = day;
+            day = tmp;
         }
         
-        if (isToken(':', lookahead(0)) ||
-                isToken("pm", lookahead(0)) ||
-                isToken("am", lookahead(0))) {
-            return true;
-        }
-        
-        return false;
-    }
-
-    protected boolean isToken(char ch) {
-        return isToken(ch, token);
-    }
-
-    protected boolean isToken(char ch, Token token) {
-        if (token == null || token.getType() != TokenType.SEPARATOR) {
-            return false;
-        }
-
-        Token<Character> t = token;
-        char actual = t.getValue();
-        if (actual != ch) {
-            return false;
+        if (year == 0) {
+            year = currentYear();
         }
 
-        return true;
+        return createDate(year, month, day);
     }
 
-    protected boolean isToken(String s) {
-        return isToken(s, token);
-    }
-
-    protected boolean isToken(String s, Token token) {
-        if (token == null || token.getType() != TokenType.STRING) {
-            return false;
-        }
-
-        Token<String> t = token;
-        String actual = t.getValue();
-        if (!actual.equals(s)) {
-            return false;
+    /**
+     * Parses a time matched by the given rule, as in "at 6", "11:10 PM" or
+     * "23:10:55". Hours up to 7 following "at" are afternoon hours, unless
+     * qualified by seconds or am/pm.
+     * 
+     * @return the parsed time, in seconds since midnight, or NO_TIME if the
+     * fields don't denote a valid time
+     */
+    private int parseTime(int rule) throws DateParseException {
+        readFields(rule);
+        
+        int hour = getField(Field.HOUR);
+        if (isSet(Field.PM)) {
+            hour = (hour % 12) + 12;
+        } else if (isSet(Field.AT) && !isSet(Field.AM)
+                && !isSet(Field.SECOND) && hour <= 7) {
+            hour += 12;
         }
 
-        return true;
+        return createTime(hour, getField(Field.MINUTE),
+                getField(Field.SECOND));
     }
     
-    protected boolean isTokenType(TokenType type) {
-        try {
-            doCheckType(type);
-            return true;
-        } catch (UnexpectedTokenException ex) {
-            return false;
-        }
-    }
-
-    protected void check(char ch) throws UnexpectedTokenException,
-                                         DateParseException {
-        doCheckType(TokenType.SEPARATOR);
-
-        Character chVal = (Character) token.getValue();
-        if (ch != chVal) {
-            throw new UnexpectedTokenException();
+    /**
+     * Returns the day number of the given date, or NO_DATE if the fields
+     * don't denote an existing date, as in "31/02/2011".
+     */
+    protected long createDate(int year, int month, int day) {
+        if (year > MAX_YEAR || month < 1 || month > 12 || day < 1
+                || day > EpochDays.daysInMonth(year, month)) {
+            return NO_DATE;
         }
-        next();
+        return EpochDays.of(year, month, day);
     }
-
-    protected void check(String str) throws UnexpectedTokenException,
-                                         DateParseException {
-        doCheckType(TokenType.STRING);
-
-        String strVal = (String) token.getValue();
-        if (!strVal.equals(str)) {
-            throw new UnexpectedTokenException();
+    
+    /**
+     * Returns the second of day of the given time, or NO_TIME if the fields
+     * don't denote a valid time of day, as in "at 25".
+     */
+    protected int createTime(int hour, int minute, int second) {
+        if (hour > 23 || minute > 59 || second > 59) {
+            return NO_TIME;
         }
-        next();
-    }
-
-    protected void checkType(TokenType type) throws DateParseException,
-                                                    UnexpectedTokenException {
-        doCheckType(type);
-        next();
+        return (hour * 60 + minute) * 60 + second;
     }
 
-    protected void doCheckType(TokenType type)
-            throws UnexpectedTokenException {
-        if (token == null || token.getType() != type) {
-            throw new UnexpectedTokenException();
+    /**
+     * Returns the offset, in the source, of the current token.
+     */
+    private int getStart() throws DateParseException {
+        try {
+            return tokens.getStart(0);
+        } catch (TokenizerException ex) {
+            throw readError(ex);
         }
     }
 
-    protected int getInt() throws DateParseException,
-                                  UnexpectedTokenException {
-        doCheckType(TokenType.NUMBER);
-
-        Number nbValue = (Number) token.getValue();
-        next();
-        return nbValue.intValue();
+    /**
+     * Returns the number of characters of the input, once read to the end.
+     * The input of a TokenStream is counted up to the end of its last
+     * token.
+     */
+    protected long getInputLength() {
+        return Math.max(consumedEnd, 0);
     }
     
-    protected int getMonth() throws UnexpectedTokenException, 
-                                    DateParseException {
-        doCheckType(TokenType.STRING);
-
-        String value = (String) token.getValue();
-        next();
-        return MONTHS_MAP.get(value);
+    /**
+     * Wraps an error of the token stream, and reports it to the metrics,
+     * if any.
+     */
+    protected DateParseException readError(TokenizerException ex) {
+        if (metrics != null) {
+            metrics.inputError();
+        }
+        return new DateParseException("Unable to read from source", ex);
     }
 
     public List<Date> getParsed() {
@@ -462,11 +728,26 @@ public class DateParser {
     }
 
     public Date getNow() {
-        return new Date(now.getMillis());
+        return new Date(nowMillis);
     }
 
     public void setNow(Date now) {
-        this.now = new DateTime().withMillis(now.getTime());
+        setReference(now.getTime(), zone);
+    }
+    
+    public ParserMetrics getMetrics() {
+        return metrics;
+    }
+    
+    /**
+     * Sets the receiver of the activity of this parser: its matches, its
+     * failed attempts and, for each call to a public parse method, its
+     * duration and the size of the input once read to the end.
+     * 
+     * @param metrics the receiver, or null to disable monitoring
+     */
+    public void setMetrics(ParserMetrics metrics) {
+        this.metrics = metrics;
     }
 
 }
@@ -0,0 +1,57 @@
+/*
+ * This file is part of gotadate.
+ *
+ * gotadate is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * gotadate is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with gotadate.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.aperigeek.gotadate.parser;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * Flight Recorder event of a call to one of the public parse methods of a
+ * DateParser.
+ * 
+ * @author Vivien Barousse
+ */
+@Name("com.aperigeek.gotadate.DocumentParse")
+@Label("Document Parse")
+@Category({"Gotadate", "Parser"})
+@Description("A call to a parse method of a DateParser")
+@StackTrace(false)
+final class DocumentParseEvent extends Event {
+    
+    @Label("Complete")
+    @Description("Whether the end of the input has been reached, or the"
+            + " caller stopped the parsing")
+    boolean complete;
+    
+    @Label("Characters")
+    @Description("Number of characters of the input, or 0 if the parsing"
+            + " has been stopped")
+    long characters;
+    
+    @Label("Tokens")
+    @Description("Number of tokens consumed from the input so far")
+    long tokens;
+    
+    @Label("Matches")
+    @Description("Number of matches found in the input so far")
+    int matches;
+    
+}
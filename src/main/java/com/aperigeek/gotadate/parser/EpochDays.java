@@ -0,0 +1,95 @@
+/*
+ * This file is part of gotadate.
+ *
+ * gotadate is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * gotadate is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with gotadate.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.aperigeek.gotadate.parser;
+
+/**
+ * Calendar arithmetic on days counted from 1970-01-01, in the proleptic
+ * gregorian calendar, without creating any object.
+ * 
+ * @author Vivien Barousse
+ */
+final class EpochDays {
+    
+    static final long SECONDS_PER_DAY = 24 * 60 * 60;
+    
+    static final long MILLIS_PER_DAY = SECONDS_PER_DAY * 1000L;
+    
+    private static final int[] DAYS_IN_MONTH = {
+        31, 28, 31, 30, 31, 30, 31, 31, 30, 31, 30, 31
+    };
+    
+    /**
+     * Days in the year before the first day of each month, in non leap
+     * years.
+     */
+    private static final int[] DAYS_BEFORE_MONTH = {
+        0, 31, 59, 90, 120, 151, 181, 212, 243, 273, 304, 334
+    };
+    
+    /**
+     * Leap years before 1970, counted from year 0.
+     */
+    private static final long LEAP_YEARS_BEFORE_EPOCH = leapYearsBefore(1970);
+    
+    private EpochDays() {
+    }
+    
+    static boolean isLeapYear(long year) {
+        return (year & 3) == 0 && (year % 100 != 0 || year % 400 == 0);
+    }
+    
+    static int daysInMonth(long year, int month) {
+        if (month == 2 && isLeapYear(year)) {
+            return 29;
+        }
+        return DAYS_IN_MONTH[month - 1];
+    }
+    
+    /**
+     * Returns the day number of the given date, which must be valid.
+     */
+    static long of(long year, int month, int day) {
+        long days = 365 * (year - 1970)
+                + leapYearsBefore(year) - LEAP_YEARS_BEFORE_EPOCH
+                + DAYS_BEFORE_MONTH[month - 1] + day - 1;
+        if (month > 2 && isLeapYear(year)) {
+            days++;
+        }
+        return days;
+    }
+    
+    /**
+     * Returns the year of the given day number.
+     */
+    static long yearOf(long day) {
+        long year = 1970 + Math.floorDiv(day * 400, 146097);
+        while (of(year, 1, 1) > day) {
+            year--;
+        }
+        while (of(year + 1, 1, 1) <= day) {
+            year++;
+        }
+        return year;
+    }
+    
+    private static long leapYearsBefore(long year) {
+        long y = year - 1;
+        return Math.floorDiv(y, 4) - Math.floorDiv(y, 100)
+                + Math.floorDiv(y, 400);
+    }
+    
+}
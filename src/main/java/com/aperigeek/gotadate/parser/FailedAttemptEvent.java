@@ -0,0 +1,48 @@
+/*
+ * This file is part of gotadate.
+ *
+ * gotadate is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * gotadate is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with gotadate.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.aperigeek.gotadate.parser;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Enabled;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * Flight Recorder event of tokens that may start a match but don't form
+ * one. Disabled by default, as there may be one per word of the input.
+ * 
+ * @author Vivien Barousse
+ */
+@Name("com.aperigeek.gotadate.FailedAttempt")
+@Label("Failed Parse Attempt")
+@Category({"Gotadate", "Parser"})
+@Description("Tokens that may start a date or a time but don't form one")
+@StackTrace(false)
+@Enabled(false)
+final class FailedAttemptEvent extends Event {
+    
+    @Label("Offset")
+    @Description("Offset, in the source, of the first token of the attempt")
+    int offset;
+    
+    @Label("Reason")
+    String reason;
+    
+}
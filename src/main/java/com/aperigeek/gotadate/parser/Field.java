@@ -0,0 +1,48 @@
+/*
+ * This file is part of gotadate.
+ *
+ * gotadate is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * gotadate is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with gotadate.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.aperigeek.gotadate.parser;
+
+/**
+ * The parts of a date or a time a grammar term can set.
+ * 
+ * @author Vivien Barousse
+ */
+enum Field {
+    
+    DAY,
+    MONTH,
+    YEAR,
+    
+    /**
+     * Days before the reference day: 1 for "yesterday", -1 for "tomorrow".
+     */
+    DAYS_BEFORE,
+    
+    HOUR,
+    MINUTE,
+    SECOND,
+    
+    /**
+     * Set when the time follows "at", which makes small hours afternoon
+     * hours, unless they are qualified.
+     */
+    AT,
+    
+    AM,
+    PM;
+    
+}
@@ -0,0 +1,526 @@
+/*
+ * This file is part of gotadate.
+ *
+ * gotadate is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * gotadate is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with gotadate.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.aperigeek.gotadate.parser;
+
+import static com.aperigeek.gotadate.parser.Term.either;
+import static com.aperigeek.gotadate.parser.Term.keyword;
+import static com.aperigeek.gotadate.parser.Term.month;
+import static com.aperigeek.gotadate.parser.Term.number;
+import static com.aperigeek.gotadate.parser.Term.optional;
+import static com.aperigeek.gotadate.parser.Term.separator;
+
+import com.aperigeek.gotadate.token.Keyword;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.EnumSet;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * The productions recognized by the parser, declared as rules, and compiled
+ * into a deterministic automaton over the tokens.
+ * 
+ * Tokens are first mapped to symbols: numbers, each separator and keyword
+ * used by the rules, and month names. The automaton then reads one symbol
+ * per token, with a single table lookup, until no rule can go further.
+ * The longest prefix matched by a rule wins, the first declared rule
+ * winning ties. No token is ever examined twice.
+ * 
+ * Each transition remembers, for each rule, the term it matched, so that
+ * the fields of the winning rule can be read once its length is known.
+ * 
+ * Rules must be deterministic: a token can't match two terms of the same
+ * rule at the same place. They must also start with a number or a keyword,
+ * the only tokens AnchorScanner looks for.
+ * 
+ * @author Vivien Barousse
+ */
+final class Grammar {
+    
+    /**
+     * Start state matching any rule.
+     */
+    static final int ANY = 0;
+    
+    /**
+     * Start state matching the date rules only.
+     */
+    static final int DATES = 1;
+    
+    /**
+     * Start state matching the time rules only.
+     */
+    static final int TIMES = 2;
+    
+    static final int DEAD = -1;
+    
+    private static final int NUMBER = 0;
+    
+    private static final int MONTH = 1;
+    
+    private static final Grammar DEFAULT = new Grammar(
+            // 23/10/1988
+            new Rule(MatchKind.NUMERIC_DATE,
+                number(Field.DAY), optional(keyword(Keyword.ORDINAL)),
+                separator('/'), number(Field.MONTH),
+                separator('/'), number(Field.YEAR)),
+            // 23rd October 1988, 23 de octubre de 1988
+            new Rule(MatchKind.NUMERIC_DATE,
+                number(Field.DAY), optional(keyword(Keyword.ORDINAL)),
+                optional(keyword(Keyword.OF)), month(),
+                optional(optional(keyword(Keyword.OF)), number(Field.YEAR))),
+            new Rule(MatchKind.RELATIVE,
+                keyword(Keyword.YESTERDAY, Field.DAYS_BEFORE, 1)),
+            new Rule(MatchKind.RELATIVE,
+                keyword(Keyword.TOMORROW, Field.DAYS_BEFORE, -1)),
+            // 3 days ago
+            new Rule(MatchKind.RELATIVE,
+                number(Field.DAYS_BEFORE), keyword(Keyword.DAYS),
+                keyword(Keyword.AGO)),
+            // vor 3 Tagen
+            new Rule(MatchKind.RELATIVE,
+                keyword(Keyword.BEFORE), number(Field.DAYS_BEFORE),
+                keyword(Keyword.DAYS)),
+            // October 23rd, 1988
+            new Rule(MatchKind.MONTH_FIRST,
+                month(), number(Field.DAY),
+                optional(keyword(Keyword.ORDINAL)), optional(separator(',')),
+                optional(number(Field.YEAR))),
+            // at 6, at 11:10 PM
+            new Rule(MatchKind.TIME,
+                keyword(Keyword.AT, Field.AT, 1), number(Field.HOUR),
+                optional(separator(':'), number(Field.MINUTE),
+                    optional(separator(':'), number(Field.SECOND))),
+                optional(meridiem())),
+            // 23:10:55
+            new Rule(MatchKind.TIME,
+                number(Field.HOUR), separator(':'), number(Field.MINUTE),
+                optional(separator(':'), number(Field.SECOND)),
+                optional(meridiem())),
+            // 5pm
+            new Rule(MatchKind.TIME,
+                number(Field.HOUR), meridiem()));
+    
+    private final Rule[] rules;
+    
+    /**
+     * Separators used by the rules. The symbol of a separator follows
+     * the number and month symbols, in this order.
+     */
+    private final char[] separators;
+    
+    /**
+     * Symbol of each keyword, by ordinal, or DEAD if no rule uses it.
+     */
+    private final int[] keywordSymbols = new int[Keyword.values().length];
+    
+    private final int symbolCount;
+    
+    /**
+     * Transition table: the state reached from state s on symbol c is
+     * found at index s * symbolCount + c.
+     */
+    private final int[] transitions;
+    
+    /**
+     * Index of the rule matched when the tokens read end in the given
+     * state, or DEAD.
+     */
+    private final int[] accepting;
+    
+    /**
+     * Term matched by each rule on each transition, at index
+     * transition * rules.length + rule, or null.
+     */
+    private final Term[] actions;
+    
+    private final Set<Keyword> startKeywords = EnumSet.noneOf(Keyword.class);
+    
+    /**
+     * Number of tokens of the longest match.
+     */
+    private final int longestMatch;
+
+    Grammar(Rule... rules) {
+        for (Rule rule : rules) {
+            Term first = rule.getTerms()[0];
+            if (first.getType() != Term.Type.NUMBER
+                    && first.getType() != Term.Type.KEYWORD
+                    && first.getType() != Term.Type.MONTH) {
+                throw new IllegalArgumentException(
+                        "Rules must start with a number or a keyword");
+            }
+        }
+        this.rules = rules;
+        
+        // Symbols
+        StringBuilder chars = new StringBuilder();
+        Arrays.fill(keywordSymbols, DEAD);
+        List<Keyword> keywords = new ArrayList<Keyword>();
+        for (Rule rule : rules) {
+            collectSymbols(rule.getTerms(), chars, keywords);
+        }
+        this.separators = chars.toString().toCharArray();
+        int symbols = 2 + separators.length;
+        for (Keyword keyword : keywords) {
+            keywordSymbols[keyword.ordinal()] = symbols++;
+        }
+        this.symbolCount = symbols;
+        
+        // Non deterministic automaton, one branch per rule
+        Nfa nfa = new Nfa();
+        BitSet any = new BitSet(), dates = new BitSet(), times = new BitSet();
+        for (int r = 0; r < rules.length; r++) {
+            int start = nfa.newState(r);
+            int end = build(nfa, r, rules[r].getTerms(), start);
+            nfa.accepting.set(end);
+            any.set(start);
+            (rules[r].isTime() ? times : dates).set(start);
+        }
+        
+        // Subset construction, the three start states first
+        List<BitSet> states = new ArrayList<BitSet>();
+        Map<BitSet, Integer> ids = new HashMap<BitSet, Integer>();
+        for (BitSet start : new BitSet[] { any, dates, times }) {
+            BitSet closure = nfa.closure(start);
+            ids.put(closure, states.size());
+            states.add(closure);
+        }
+        List<int[]> rows = new ArrayList<int[]>();
+        List<Term[]> terms = new ArrayList<Term[]>();
+        for (int s = 0; s < states.size(); s++) {
+            int[] row = new int[symbolCount];
+            Term[] rowTerms = new Term[symbolCount * rules.length];
+            for (int symbol = 0; symbol < symbolCount; symbol++) {
+                BitSet targets = new BitSet();
+                BitSet from = states.get(s);
+                for (int n = from.nextSetBit(0); n >= 0;
+                        n = from.nextSetBit(n + 1)) {
+                    for (Edge edge : nfa.edges.get(n)) {
+                        if (edge.symbol != symbol) {
+                            continue;
+                        }
+                        int index = symbol * rules.length + nfa.rules.get(n);
+                        if (rowTerms[index] != null) {
+                            throw new IllegalArgumentException(
+                                    "Ambiguous rule " + nfa.rules.get(n));
+                        }
+                        rowTerms[index] = edge.term;
+                        targets.set(edge.to);
+                    }
+                }
+                
+                if (targets.isEmpty()) {
+                    row[symbol] = DEAD;
+                    continue;
+                }
+                BitSet target = nfa.closure(targets);
+                Integer id = ids.get(target);
+                if (id == null) {
+                    id = states.size();
+                    ids.put(target, id);
+                    states.add(target);
+                }
+                row[symbol] = id;
+            }
+            rows.add(row);
+            terms.add(rowTerms);
+        }
+        
+        this.transitions = new int[states.size() * symbolCount];
+        this.actions = new Term[transitions.length * rules.length];
+        this.accepting = new int[states.size()];
+        for (int s = 0; s < states.size(); s++) {
+            System.arraycopy(rows.get(s), 0, transitions, s * symbolCount,
+                    symbolCount);
+            System.arraycopy(terms.get(s), 0, actions,
+                    s * symbolCount * rules.length,
+                    symbolCount * rules.length);
+            
+            BitSet accepted = (BitSet) states.get(s).clone();
+            accepted.and(nfa.accepting);
+            int first = DEAD;
+            for (int n = accepted.nextSetBit(0); n >= 0;
+                    n = accepted.nextSetBit(n + 1)) {
+                int rule = nfa.rules.get(n);
+                if (first == DEAD || rule < first) {
+                    first = rule;
+                }
+            }
+            accepting[s] = first;
+        }
+        
+        for (Keyword keyword : Keyword.values()) {
+            int symbol = keyword.isMonth() ? MONTH
+                    : keywordSymbols[keyword.ordinal()];
+            if (symbol != DEAD && transitions[ANY * symbolCount + symbol]
+                    != DEAD) {
+                startKeywords.add(keyword);
+            }
+        }
+        
+        this.longestMatch = longestPath(ANY, new int[states.size()]);
+    }
+    
+    /**
+     * Returns the number of symbols of the longest path from the given
+     * state. Rules have no repetition, so the automaton has no cycle.
+     * 
+     * @param lengths lengths already computed, plus one, by state
+     */
+    private int longestPath(int state, int[] lengths) {
+        if (lengths[state] == 0) {
+            int longest = 0;
+            for (int symbol = 0; symbol < symbolCount; symbol++) {
+                int target = transitions[state * symbolCount + symbol];
+                if (target != DEAD) {
+                    longest = Math.max(longest,
+                            1 + longestPath(target, lengths));
+                }
+            }
+            lengths[state] = longest + 1;
+        }
+        return lengths[state] - 1;
+    }
+    
+    private static Term meridiem() {
+        return either(keyword(Keyword.AM, Field.AM, 1),
+                keyword(Keyword.PM, Field.PM, 1));
+    }
+    
+    private static void collectSymbols(Term[] terms, StringBuilder chars,
+                                       List<Keyword> keywords) {
+        for (Term term : terms) {
+            switch (term.getType()) {
+                case SEPARATOR:
+                    if (chars.indexOf(String.valueOf(term.getSeparator()))
+                            < 0) {
+                        chars.append(term.getSeparator());
+                    }
+                    break;
+                case KEYWORD:
+                    if (term.getKeyword().isMonth()) {
+                        throw new IllegalArgumentException(
+                                "Months must be matched with month()");
+                    }
+                    if (!keywords.contains(term.getKeyword())) {
+                        keywords.add(term.getKeyword());
+                    }
+                    break;
+                case OPTIONAL:
+                case EITHER:
+                    collectSymbols(term.getChildren(), chars, keywords);
+                    break;
+                default:
+                    break;
+            }
+        }
+    }
+    
+    private int build(Nfa nfa, int rule, Term[] terms, int state) {
+        for (Term term : terms) {
+            state = build(nfa, rule, term, state);
+        }
+        return state;
+    }
+    
+    /**
+     * Adds the transitions matching the given term from the given state.
+     * 
+     * @return the state reached once the term is matched
+     */
+    private int build(Nfa nfa, int rule, Term term, int state) {
+        switch (term.getType()) {
+            case OPTIONAL: {
+                int end = build(nfa, rule, term.getChildren(), state);
+                nfa.epsilons.get(state).set(end);
+                return end;
+            }
+            case EITHER: {
+                int end = nfa.newState(rule);
+                for (Term child : term.getChildren()) {
+                    int branch = build(nfa, rule, child, state);
+                    nfa.epsilons.get(branch).set(end);
+                }
+                return end;
+            }
+            default: {
+                int end = nfa.newState(rule);
+                nfa.edges.get(state).add(
+                        new Edge(symbolOf(term), end, term));
+                return end;
+            }
+        }
+    }
+    
+    private int symbolOf(Term term) {
+        switch (term.getType()) {
+            case NUMBER:
+                return NUMBER;
+            case MONTH:
+                return MONTH;
+            case SEPARATOR:
+                return separatorSymbol(term.getSeparator());
+            default:
+                return keywordSymbols[term.getKeyword().ordinal()];
+        }
+    }
+    
+    static Grammar getDefault() {
+        return DEFAULT;
+    }
+    
+    int numberSymbol() {
+        return NUMBER;
+    }
+    
+    /**
+     * Returns the symbol of the given separator, or DEAD if no rule uses
+     * it.
+     */
+    int separatorSymbol(char ch) {
+        for (int i = 0; i < separators.length; i++) {
+            if (separators[i] == ch) {
+                return 2 + i;
+            }
+        }
+        return DEAD;
+    }
+    
+    /**
+     * Returns the symbol of the given keyword, or DEAD if no rule uses it.
+     */
+    int keywordSymbol(Keyword keyword) {
+        return keyword.isMonth() ? MONTH : keywordSymbols[keyword.ordinal()];
+    }
+    
+    /**
+     * Returns the index of the transition from the given state on the
+     * given symbol.
+     */
+    int transition(int state, int symbol) {
+        return state * symbolCount + symbol;
+    }
+    
+    /**
+     * Returns the state reached by the given transition, or DEAD.
+     */
+    int target(int transition) {
+        return transitions[transition];
+    }
+    
+    /**
+     * Returns the index of the rule matched by the tokens leading to the
+     * given state, or DEAD.
+     */
+    int getAccepted(int state) {
+        return accepting[state];
+    }
+    
+    Rule getRule(int index) {
+        return rules[index];
+    }
+    
+    /**
+     * Returns the term the given rule matched on the given transition.
+     */
+    Term getAction(int transition, int rule) {
+        return actions[transition * rules.length + rule];
+    }
+    
+    /**
+     * Returns the number of tokens of the longest match, like "at 11:10:55
+     * pm". The parser reads one more token to find the end of a match.
+     */
+    int getLongestMatch() {
+        return longestMatch;
+    }
+    
+    /**
+     * Returns the keywords a match may start with, besides numbers.
+     */
+    Set<Keyword> getStartKeywords() {
+        return startKeywords;
+    }
+    
+    private static final class Edge {
+        
+        private final int symbol;
+        
+        private final int to;
+        
+        private final Term term;
+
+        Edge(int symbol, int to, Term term) {
+            this.symbol = symbol;
+            this.to = to;
+            this.term = term;
+        }
+        
+    }
+    
+    /**
+     * A non deterministic automaton, built state by state.
+     */
+    private static final class Nfa {
+        
+        private final List<List<Edge>> edges = new ArrayList<List<Edge>>();
+        
+        private final List<BitSet> epsilons = new ArrayList<BitSet>();
+        
+        /**
+         * Index of the rule each state belongs to.
+         */
+        private final List<Integer> rules = new ArrayList<Integer>();
+        
+        private final BitSet accepting = new BitSet();
+        
+        int newState(int rule) {
+            edges.add(new ArrayList<Edge>());
+            epsilons.add(new BitSet());
+            rules.add(rule);
+            return rules.size() - 1;
+        }
+        
+        /**
+         * Returns the given states, and all the states reachable from them
+         * without reading any symbol.
+         */
+        BitSet closure(BitSet states) {
+            BitSet closure = (BitSet) states.clone();
+            boolean changed = true;
+            while (changed) {
+                changed = false;
+                for (int n = closure.nextSetBit(0); n >= 0;
+                        n = closure.nextSetBit(n + 1)) {
+                    BitSet next = epsilons.get(n);
+                    if (!next.isEmpty()) {
+                        int before = closure.cardinality();
+                        closure.or(next);
+                        changed |= closure.cardinality() != before;
+                    }
+                }
+            }
+            return closure;
+        }
+        
+    }
+    
+}
@@ -0,0 +1,104 @@
+/*
+ * This file is part of gotadate.
+ *
+ * gotadate is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * gotadate is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with gotadate.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.aperigeek.gotadate.parser;
+
+import com.aperigeek.gotadate.token.Keywords;
+import com.aperigeek.gotadate.token.TokenStream;
+import com.aperigeek.gotadate.token.Tokenizer;
+import java.time.DateTimeException;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.time.ZonedDateTime;
+import org.joda.time.DateTime;
+import org.joda.time.DateTimeZone;
+
+/**
+ * Joda-Time adapter of the parsers: conversions from Joda-Time to
+ * java.time, and factories of parsers taking a Joda-Time reference time.
+ * 
+ * The parsers themselves only depend on java.time. Joda-Time is an optional
+ * dependency, only needed on the classpath by the code using this class or
+ * a {@link com.aperigeek.gotadate.JodaDateExtractor}.
+ * 
+ * @author Vivien Barousse
+ */
+public final class JodaSupport {
+    
+    private JodaSupport() {
+    }
+    
+    /**
+     * Returns the java.time zone equivalent to the given Joda-Time zone.
+     * 
+     * Short IDs only known to Joda-Time, like "EST", are mapped with
+     * {@link ZoneId#SHORT_IDS}. Fixed zones, and zones java.time doesn't
+     * know at all, become the offset of the Joda-Time zone.
+     */
+    public static ZoneId toZoneId(DateTimeZone zone) {
+        if (!zone.isFixed()) {
+            try {
+                return ZoneId.of(zone.getID(), ZoneId.SHORT_IDS);
+            } catch (DateTimeException ex) {
+                // Not known to java.time, use its offset
+            }
+        }
+        return ZoneOffset.ofTotalSeconds(zone.getOffset(0L) / 1000);
+    }
+    
+    public static ZonedDateTime toZonedDateTime(DateTime dateTime) {
+        return ZonedDateTime.ofInstant(
+                Instant.ofEpochMilli(dateTime.getMillis()),
+                toZoneId(dateTime.getZone()));
+    }
+    
+    /**
+     * Joda-Time adapter of {@link DateParser#DateParser(Tokenizer, Keywords,
+     * ZonedDateTime)}.
+     */
+    public static DateParser newParser(Tokenizer tokenizer, Keywords keywords,
+                                       DateTime now)
+            throws DateParseException {
+        return new DateParser(tokenizer, keywords, toZonedDateTime(now));
+    }
+    
+    /**
+     * Joda-Time adapter of {@link DateParser#DateParser(TokenStream,
+     * ZonedDateTime)}.
+     */
+    public static DateParser newParser(TokenStream tokens, DateTime now) {
+        return new DateParser(tokens, toZonedDateTime(now));
+    }
+    
+    /**
+     * Joda-Time adapter of {@link SparseDateParser#SparseDateParser(
+     * CharSequence, Keywords, ZonedDateTime)}.
+     */
+    public static SparseDateParser newSparseParser(CharSequence text,
+                                                   Keywords keywords,
+                                                   DateTime now) {
+        return new SparseDateParser(text, keywords, toZonedDateTime(now));
+    }
+    
+    /**
+     * Joda-Time adapter of {@link DateParser#reset(ZonedDateTime)}.
+     */
+    public static void reset(DateParser parser, DateTime now) {
+        parser.reset(toZonedDateTime(now));
+    }
+    
+}
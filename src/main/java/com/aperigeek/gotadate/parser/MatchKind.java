@@ -0,0 +1,48 @@
+/*
+ * This file is part of gotadate.
+ *
+ * gotadate is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * gotadate is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with gotadate.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.aperigeek.gotadate.parser;
+
+/**
+ * The rule a date has been matched with.
+ * 
+ * @author Vivien Barousse
+ */
+public enum MatchKind {
+    
+    /**
+     * A date starting with the day number, as in "23/10/1988" or
+     * "23rd October".
+     */
+    NUMERIC_DATE,
+    
+    /**
+     * A date starting with the month name, as in "October 23, 1988".
+     */
+    MONTH_FIRST,
+    
+    /**
+     * A date relative to the reference time, as in "tomorrow" or
+     * "3 days ago".
+     */
+    RELATIVE,
+    
+    /**
+     * A time alone, as in "at 5pm", on the reference day.
+     */
+    TIME;
+    
+}
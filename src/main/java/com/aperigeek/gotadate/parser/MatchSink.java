@@ -0,0 +1,34 @@
+/*
+ * This file is part of gotadate.
+ *
+ * gotadate is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * gotadate is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with gotadate.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.aperigeek.gotadate.parser;
+
+/**
+ * Receives matches as soon as they are parsed.
+ * 
+ * @author Vivien Barousse
+ */
+public interface MatchSink {
+    
+    /**
+     * Called for each match, in the order they appear in the text.
+     * 
+     * @param match the parsed match
+     * @return true to continue parsing, false to stop
+     */
+    public boolean accept(DateMatch match);
+    
+}
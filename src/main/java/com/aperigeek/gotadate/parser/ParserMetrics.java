@@ -0,0 +1,68 @@
+/*
+ * This file is part of gotadate.
+ *
+ * gotadate is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * gotadate is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with gotadate.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.aperigeek.gotadate.parser;
+
+/**
+ * Receives the activity of a parser, for monitoring purposes.
+ * 
+ * A parser has no metrics by default, and then only pays a null check per
+ * event. Implementations are called from the parsing threads, and must be
+ * thread-safe and cheap: they shouldn't block, nor allocate per event.
+ * 
+ * @author Vivien Barousse
+ * @see DateParser#setMetrics(ParserMetrics)
+ */
+public interface ParserMetrics {
+    
+    /**
+     * Called when a parser has read its input to the end. An input split
+     * among several parsers, as by DateExtractor.stream(), is reported once
+     * per part.
+     * 
+     * @param chars number of characters of the input
+     * @param tokens number of tokens consumed by the parser. The text a
+     * SparseDateParser skips isn't tokenized, and isn't counted.
+     */
+    public void documentParsed(long chars, long tokens);
+    
+    /**
+     * Called at the end of each call to one of the public parse methods.
+     * 
+     * @param nanos duration of the call, in nanoseconds
+     */
+    public void callCompleted(long nanos);
+    
+    /**
+     * Called for each match.
+     * 
+     * @param kind the rule the match has been parsed with
+     */
+    public void matched(MatchKind kind);
+    
+    /**
+     * Called when tokens that may start a match don't form one, either
+     * because no rule accepts them or because their fields don't denote a
+     * valid date or time, as in "31/02/2011".
+     */
+    public void attemptFailed();
+    
+    /**
+     * Called when the input can't be read, before the error is thrown.
+     */
+    public void inputError();
+    
+}
@@ -0,0 +1,51 @@
+/*
+ * This file is part of gotadate.
+ *
+ * gotadate is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * gotadate is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with gotadate.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.aperigeek.gotadate.parser;
+
+/**
+ * A production of the grammar: a sequence of terms, and the kind of match
+ * it produces.
+ * 
+ * @author Vivien Barousse
+ */
+final class Rule {
+    
+    private final MatchKind kind;
+    
+    private final Term[] terms;
+
+    Rule(MatchKind kind, Term... terms) {
+        this.kind = kind;
+        this.terms = terms;
+    }
+
+    MatchKind getKind() {
+        return kind;
+    }
+    
+    /**
+     * Checks if this rule matches a time, rather than a date.
+     */
+    boolean isTime() {
+        return kind == MatchKind.TIME;
+    }
+
+    Term[] getTerms() {
+        return terms;
+    }
+    
+}
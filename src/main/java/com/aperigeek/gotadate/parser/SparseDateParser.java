@@ -0,0 +1,202 @@
+/*
+ * This file is part of gotadate.
+ *
+ * gotadate is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * gotadate is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with gotadate.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.aperigeek.gotadate.parser;
+
+import com.aperigeek.gotadate.token.CharSequenceTokenizer;
+import com.aperigeek.gotadate.token.Keywords;
+import com.aperigeek.gotadate.token.TokenBuffer;
+import com.aperigeek.gotadate.token.TokenizerException;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.ZonedDateTime;
+
+/**
+ * A DateParser only tokenizing the parts of a text where a date may start.
+ * 
+ * The text is first scanned for anchors, the tokens a match can start with.
+ * The tokenizer and the parser only run from an anchor up to the first
+ * token which can't start a match. Such a token is skipped by a full parse,
+ * and the next attempt starts right after it, so that parsing resumes from
+ * the next anchor gives exactly the same matches as a full parse. Text
+ * without anchors, which is most of a typical text, is never tokenized.
+ * 
+ * @author Vivien Barousse
+ */
+public class SparseDateParser extends DateParser {
+    
+    private final AnchorScanner anchors;
+    
+    private final CharSequenceTokenizer tokenizer;
+    
+    private final TokenBuffer buffer;
+    
+    private CharSequence text;
+    
+    private int start;
+    
+    private int end;
+    
+    /**
+     * Index where to look for the next anchor.
+     */
+    private int from;
+    
+    /**
+     * Whether the tokenizer is running on a window started at an anchor.
+     */
+    private boolean inWindow;
+
+    public SparseDateParser(CharSequence text, Keywords keywords,
+                            ZonedDateTime now) {
+        this(text, 0, text.length(), AnchorScanner.forKeywords(keywords),
+                keywords, now.toInstant(), now.getZone());
+    }
+
+    /**
+     * Creates a parser for the given range of a text.
+     * 
+     * @param text the text to parse
+     * @param start index of the first character to parse
+     * @param end index after the last character to parse
+     * @param anchors scanner for the given keywords
+     * @param keywords keywords to recognize
+     * @param now reference time, in the reference time zone
+     */
+    public SparseDateParser(CharSequence text, int start, int end,
+                            AnchorScanner anchors, Keywords keywords,
+                            ZonedDateTime now) {
+        this(text, start, end, anchors, keywords, now.toInstant(),
+                now.getZone());
+    }
+
+    /**
+     * Creates a parser for the given range of a text.
+     * 
+     * @param text the text to parse
+     * @param start index of the first character to parse
+     * @param end index after the last character to parse
+     * @param anchors scanner for the given keywords
+     * @param keywords keywords to recognize
+     * @param now reference instant
+     * @param zone reference time zone, or null for the system default zone
+     */
+    public SparseDateParser(CharSequence text, int start, int end,
+                            AnchorScanner anchors, Keywords keywords,
+                            Instant now, ZoneId zone) {
+        this(new CharSequenceTokenizer(text, start, start), anchors, keywords,
+                now, zone);
+        reset(text, start, end, now, zone);
+    }
+    
+    private SparseDateParser(CharSequenceTokenizer tokenizer,
+                             AnchorScanner anchors, Keywords keywords,
+                             Instant now, ZoneId zone) {
+        this(new TokenBuffer(tokenizer, keywords), tokenizer, anchors, now,
+                zone);
+    }
+    
+    private SparseDateParser(TokenBuffer buffer,
+                             CharSequenceTokenizer tokenizer,
+                             AnchorScanner anchors, Instant now, ZoneId zone) {
+        super(buffer, now, zone);
+        this.buffer = buffer;
+        this.tokenizer = tokenizer;
+        this.anchors = anchors;
+    }
+    
+    /**
+     * Prepares this parser to parse the given range of a new text.
+     * 
+     * @param text the text to parse
+     * @param start index of the first character to parse
+     * @param end index after the last character to parse
+     * @param now reference time, in the reference time zone
+     */
+    public void reset(CharSequence text, int start, int end,
+                      ZonedDateTime now) {
+        reset(text, start, end, now.toInstant(), now.getZone());
+    }
+    
+    /**
+     * Prepares this parser to parse the given range of a new text.
+     * 
+     * @param text the text to parse
+     * @param start index of the first character to parse
+     * @param end index after the last character to parse
+     * @param now reference instant
+     * @param zone reference time zone, or null for the system default zone
+     */
+    public void reset(CharSequence text, int start, int end, Instant now,
+                      ZoneId zone) {
+        if (start < 0 || end > text.length() || start > end) {
+            throw new IndexOutOfBoundsException("Invalid range [" + start
+                    + ", " + end + "[ for length " + text.length());
+        }
+        
+        reset(now, zone);
+        // Drop the previous text, the tokenizer runs on windows of this one
+        tokenizer.reset(text, start, start);
+        buffer.reset(tokenizer);
+        this.text = text;
+        this.start = start;
+        this.end = end;
+        this.from = start;
+        this.inWindow = false;
+    }
+
+    @Override
+    protected long getInputLength() {
+        return end - start;
+    }
+
+    @Override
+    protected boolean parseNext() throws DateParseException {
+        try {
+            while (true) {
+                if (!inWindow) {
+                    int anchor = anchors.next(text, from, end);
+                    if (anchor < 0) {
+                        from = end;
+                        return false;
+                    }
+                    tokenizer.reset(text, anchor, end);
+                    buffer.reset(tokenizer);
+                    inWindow = true;
+                }
+                
+                while (lookahead(0) != null && isMatchStart()) {
+                    if (parseAttempt()) {
+                        return true;
+                    }
+                }
+                
+                if (lookahead(0) == null) {
+                    from = end;
+                    inWindow = false;
+                    return false;
+                }
+                
+                // This token can't start a match, skip to the next anchor
+                from = buffer.getEnd(0);
+                inWindow = false;
+            }
+        } catch (TokenizerException ex) {
+            throw readError(ex);
+        }
+    }
+    
+}
@@ -0,0 +1,148 @@
+/*
+ * This file is part of gotadate.
+ *
+ * gotadate is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * gotadate is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with gotadate.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.aperigeek.gotadate.parser;
+
+import com.aperigeek.gotadate.token.Keyword;
+
+/**
+ * An element of a grammar rule: a token to match, and the field it sets, or
+ * a group of terms.
+ * 
+ * Terms are immutable, and only created by their static factory methods.
+ * 
+ * @author Vivien Barousse
+ */
+final class Term {
+    
+    enum Type {
+        NUMBER,
+        SEPARATOR,
+        KEYWORD,
+        MONTH,
+        OPTIONAL,
+        EITHER
+    }
+    
+    private final Type type;
+    
+    private final char separator;
+    
+    private final Keyword keyword;
+    
+    private final Field field;
+    
+    /**
+     * Value set to the field, unless it is taken from the token.
+     */
+    private final int value;
+    
+    private final boolean fromToken;
+    
+    private final Term[] children;
+
+    private Term(Type type, char separator, Keyword keyword, Field field,
+                 int value, boolean fromToken, Term[] children) {
+        this.type = type;
+        this.separator = separator;
+        this.keyword = keyword;
+        this.field = field;
+        this.value = value;
+        this.fromToken = fromToken;
+        this.children = children;
+    }
+    
+    /**
+     * A number, whose value is set to the given field.
+     */
+    static Term number(Field field) {
+        return new Term(Type.NUMBER, '\0', null, field, 0, true, null);
+    }
+    
+    static Term separator(char separator) {
+        return new Term(Type.SEPARATOR, separator, null, null, 0, false,
+                null);
+    }
+    
+    static Term keyword(Keyword keyword) {
+        return keyword(keyword, null, 0);
+    }
+    
+    /**
+     * A keyword, setting the given value to the given field.
+     */
+    static Term keyword(Keyword keyword, Field field, int value) {
+        return new Term(Type.KEYWORD, '\0', keyword, field, value, false,
+                null);
+    }
+    
+    /**
+     * Any month name, setting the month field.
+     */
+    static Term month() {
+        return new Term(Type.MONTH, '\0', null, Field.MONTH, 0, true, null);
+    }
+    
+    /**
+     * A sequence of terms, which may be missing.
+     */
+    static Term optional(Term... terms) {
+        return new Term(Type.OPTIONAL, '\0', null, null, 0, false, terms);
+    }
+    
+    /**
+     * One of the given terms.
+     */
+    static Term either(Term... terms) {
+        return new Term(Type.EITHER, '\0', null, null, 0, false, terms);
+    }
+
+    Type getType() {
+        return type;
+    }
+
+    char getSeparator() {
+        return separator;
+    }
+
+    Keyword getKeyword() {
+        return keyword;
+    }
+
+    /**
+     * Returns the field set by this term, or null if it doesn't set any.
+     */
+    Field getField() {
+        return field;
+    }
+
+    int getValue() {
+        return value;
+    }
+
+    /**
+     * Checks if the value of the field is read from the token, rather than
+     * given by getValue().
+     */
+    boolean isFromToken() {
+        return fromToken;
+    }
+
+    Term[] getChildren() {
+        return children;
+    }
+    
+}
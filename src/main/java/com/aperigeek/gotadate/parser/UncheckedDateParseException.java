@@ -0,0 +1,36 @@
+/*
+ * This file is part of gotadate.
+ *
+ * gotadate is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * gotadate is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with gotadate.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.aperigeek.gotadate.parser;
+
+/**
+ * Wraps a DateParseException where checked exceptions can't be thrown, as
+ * in streams.
+ * 
+ * @author Vivien Barousse
+ */
+public class UncheckedDateParseException extends RuntimeException {
+
+    public UncheckedDateParseException(DateParseException cause) {
+        super(cause.getMessage(), cause);
+    }
+
+    @Override
+    public DateParseException getCause() {
+        return (DateParseException) super.getCause();
+    }
+
+}
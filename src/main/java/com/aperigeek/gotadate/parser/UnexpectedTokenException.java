@@ -19,7 +19,10 @@ package com.aperigeek.gotadate.parser;
 /**
  *
  * @author Vivien Barousse
+ * @deprecated the parser no longer uses exceptions to report tokens not
+ * matching a date; parse methods return null instead.
  */
+@Deprecated
 public class UnexpectedTokenException extends Exception {
     
 }
@@ -0,0 +1,137 @@
+/*
+ * This file is part of gotadate.
+ *
+ * gotadate is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * gotadate is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with gotadate.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.aperigeek.gotadate.parser;
+
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.time.zone.ZoneOffsetTransition;
+import java.time.zone.ZoneRules;
+
+/**
+ * Converts local dates and times to instants in a time zone, caching the
+ * offset of the last day converted.
+ * 
+ * Most days don't contain any offset transition: the offset at midnight
+ * is then valid for the whole day, and is computed only once. Days with a
+ * transition are converted time by time, moving times in a gap forward
+ * and using the earlier offset in an overlap, like ZonedDateTime does.
+ * 
+ * The zone rules are only looked up on the first conversion. A null zone
+ * stands for the system default zone, which isn't resolved before either.
+ * 
+ * @author Vivien Barousse
+ */
+final class ZoneOffsets {
+    
+    private final ZoneId zone;
+    
+    private ZoneRules rules;
+    
+    private long cachedDay = Long.MIN_VALUE;
+    
+    /**
+     * Offset of the whole cached day, if it doesn't contain a transition.
+     */
+    private int cachedOffset;
+    
+    private boolean cachedFixed;
+
+    ZoneOffsets(ZoneId zone) {
+        this.zone = zone;
+    }
+    
+    /**
+     * Returns the zone given at construction, null for the default zone.
+     */
+    ZoneId getZone() {
+        return zone;
+    }
+    
+    private ZoneRules getRules() {
+        if (rules == null) {
+            rules = (zone == null ? ZoneId.systemDefault() : zone).getRules();
+        }
+        return rules;
+    }
+    
+    /**
+     * Returns the instant, in milliseconds, of the given local time.
+     * 
+     * @param day the local day, counted from 1970-01-01
+     * @param secondOfDay the local time of day, in seconds
+     */
+    long toMillis(long day, int secondOfDay) {
+        long local = day * EpochDays.SECONDS_PER_DAY + secondOfDay;
+        if (day != cachedDay) {
+            cache(day);
+        }
+        if (cachedFixed) {
+            return (local - cachedOffset) * 1000L;
+        }
+        return (local - offsetFromLocal(local)) * 1000L;
+    }
+    
+    private void cache(long day) {
+        long midnight = day * EpochDays.SECONDS_PER_DAY;
+        int offset = offsetFromLocal(midnight);
+        long start = midnight - offset;
+        ZoneRules zoneRules = getRules();
+        boolean fixed = zoneRules.isFixedOffset();
+        if (!fixed) {
+            ZoneOffsetTransition transition = zoneRules.nextTransition(
+                    Instant.ofEpochSecond(start - 1));
+            fixed = transition == null
+                    || transition.toEpochSecond()
+                        >= start + EpochDays.SECONDS_PER_DAY;
+        }
+        
+        cachedDay = day;
+        cachedOffset = offset;
+        cachedFixed = fixed;
+    }
+    
+    /**
+     * Returns the offset, in seconds, to subtract from the given local
+     * time to get an instant.
+     */
+    private int offsetFromLocal(long localSeconds) {
+        ZoneRules zoneRules = getRules();
+        if (zoneRules.isFixedOffset()) {
+            return zoneRules.getOffset(Instant.EPOCH).getTotalSeconds();
+        }
+        LocalDateTime local = LocalDateTime.ofEpochSecond(
+                localSeconds, 0, ZoneOffset.UTC);
+        ZoneOffsetTransition transition = zoneRules.getTransition(local);
+        if (transition != null) {
+            return transition.getOffsetBefore().getTotalSeconds();
+        }
+        return zoneRules.getOffset(local).getTotalSeconds();
+    }
+    
+    /**
+     * Returns the local day of the given instant.
+     */
+    long toDay(long millis) {
+        int offset = getRules().getOffset(Instant.ofEpochMilli(millis))
+                .getTotalSeconds();
+        return Math.floorDiv(millis + offset * 1000L,
+                EpochDays.MILLIS_PER_DAY);
+    }
+    
+}
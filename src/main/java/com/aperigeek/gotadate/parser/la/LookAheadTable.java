@@ -16,42 +16,157 @@
  */
 package com.aperigeek.gotadate.parser.la;
 
+import com.aperigeek.gotadate.token.Keyword;
+import com.aperigeek.gotadate.token.Keywords;
 import com.aperigeek.gotadate.token.Token;
+import com.aperigeek.gotadate.token.TokenStream;
+import com.aperigeek.gotadate.token.TokenType;
 import com.aperigeek.gotadate.token.Tokenizer;
 import com.aperigeek.gotadate.token.TokenizerException;
-import java.util.LinkedList;
 
 /**
- *
+ * A TokenStream reading Token objects from a Tokenizer.
+ * 
+ * Tokens are kept in a circular array, sized for the look ahead needed by
+ * the parser. Tokens skipped with advance() stay in the array and are
+ * handed back to the tokenizer to be refilled, so that a whole text can be
+ * read with only a handful of Token objects. As a consequence, a token
+ * returned by get() is only valid until the stream is advanced past it.
+ * Tokens returned by pop() are never reused.
+ * 
  * @author Vivien Barousse
  */
-public class LookAheadTable {
+public class LookAheadTable implements TokenStream {
+    
+    /**
+     * Default number of tokens held by the table. The parser reads whole
+     * dates and times, like "23 / 10 / 1988" or "at 10 : 30 : 00 pm", plus
+     * the token following them, so that most matches fit in 16 tokens
+     * without growing the table. DateParser sizes its tables from the
+     * longest rule of its grammar.
+     */
+    public static final int DEFAULT_CAPACITY = 16;
     
     private Tokenizer source;
     
-    private LinkedList<Token<? extends Object>> aheadQueue;
+    private Keywords keywords;
+    
+    private Token<Object>[] ring;
+    
+    private int mask;
+    
+    private int head;
+    
+    private int size;
 
     public LookAheadTable(Tokenizer source) {
+        this(source, Keywords.getDefault());
+    }
+
+    public LookAheadTable(Tokenizer source, Keywords keywords) {
+        this(source, keywords, DEFAULT_CAPACITY);
+    }
+
+    /**
+     * Creates a look ahead table.
+     * 
+     * @param source tokenizer to read tokens from
+     * @param keywords keywords to recognize in STRING tokens
+     * @param capacity number of tokens held without growing the table, it
+     * is rounded up to a power of two
+     */
+    public LookAheadTable(Tokenizer source, Keywords keywords, int capacity) {
         this.source = source;
-        aheadQueue = new LinkedList<Token<? extends Object>>();
+        this.keywords = keywords;
+        allocate(Integer.highestOneBit(Math.max(1, capacity - 1)) << 1);
+    }
+    
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    private void allocate(int capacity) {
+        ring = new Token[capacity];
+        mask = capacity - 1;
     }
     
     public Token<? extends Object> get(int i) throws TokenizerException {
         ensureSize(i + 1);
         
-        return aheadQueue.get(i);
+        return ring[(head + i) & mask];
     }
     
     public Token<? extends Object> pop() throws TokenizerException {
         ensureSize(1);
         
-        return aheadQueue.pop();
+        Token<? extends Object> token = ring[head];
+        ring[head] = null;
+        head = (head + 1) & mask;
+        size--;
+        return token;
     }
     
+    @SuppressWarnings("unchecked")
     protected void ensureSize(int size) throws TokenizerException {
-        while (size >= aheadQueue.size()) {
-            aheadQueue.add(source.next());
+        while (this.size < size) {
+            if (this.size == ring.length) {
+                grow();
+            }
+            
+            int index = (head + this.size) & mask;
+            Token<Object> spare = ring[index];
+            if (spare == null) {
+                ring[index] = (Token<Object>) source.next();
+            } else {
+                ring[index] = (Token<Object>) source.next(spare);
+            }
+            this.size++;
+        }
+    }
+    
+    /**
+     * Doubles the capacity of the table, when a look ahead deeper than
+     * expected is requested.
+     */
+    private void grow() {
+        Token<Object>[] old = ring;
+        int oldMask = mask;
+        
+        allocate(old.length * 2);
+        for (int i = 0; i < size; i++) {
+            ring[i] = old[(head + i) & oldMask];
         }
+        head = 0;
+    }
+
+    public TokenType getType(int i) throws TokenizerException {
+        Token<? extends Object> token = get(i);
+        return token == null ? null : token.getType();
+    }
+
+    public int getInt(int i) throws TokenizerException {
+        return ((Number) get(i).getValue()).intValue();
+    }
+
+    public char getChar(int i) throws TokenizerException {
+        return (Character) get(i).getValue();
+    }
+
+    public Keyword getKeyword(int i) throws TokenizerException {
+        return keywords.lookup((String) get(i).getValue());
+    }
+
+    public int getStart(int i) throws TokenizerException {
+        return get(i).getStart();
+    }
+
+    public int getEnd(int i) throws TokenizerException {
+        return get(i).getEnd();
+    }
+
+    public void advance() throws TokenizerException {
+        ensureSize(1);
+        
+        // The token stays in the array, to be refilled later on
+        head = (head + 1) & mask;
+        size--;
     }
     
 }
@@ -0,0 +1,357 @@
+/*
+ * This file is part of gotadate.
+ *
+ * gotadate is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * gotadate is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with gotadate.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.aperigeek.gotadate.server;
+
+import com.aperigeek.gotadate.DateExtractor;
+import com.aperigeek.gotadate.metrics.ParserStats;
+import com.aperigeek.gotadate.parser.DateMatch;
+import com.aperigeek.gotadate.parser.DateParseException;
+import com.aperigeek.gotadate.token.Keywords;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+import com.sun.net.httpserver.HttpServer;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.lang.reflect.Method;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.time.DateTimeException;
+import java.time.ZoneId;
+import java.time.ZonedDateTime;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * HTTP server exposing date extraction as a JSON service, so that several
+ * applications share a single warmed-up extractor.
+ * 
+ * The server answers to:
+ * <ul>
+ *   <li>POST /extract, with a <code>{"text": ..., "now": ...}</code>
+ *   body, returning <code>{"matches": [...]}</code>;</li>
+ *   <li>POST /batch, with a <code>{"texts": [...], "now": ...}</code>
+ *   body, returning <code>{"results": [{"matches": [...]}, ...]}</code>,
+ *   one result per text;</li>
+ *   <li>GET /stats, returning the parser statistics, if the extractor
+ *   records them in a {@link ParserStats}.</li>
+ * </ul>
+ * 
+ * Each match is written as <code>{"start": ..., "end": ..., "kind": ...,
+ * "date": ...}</code>, the date being an ISO-8601 offset date time. The
+ * optional "now" is an ISO-8601 zoned date time; it defaults to the current
+ * time in the server's time zone. Dates are written in the zone of "now".
+ * 
+ * Requests are handled on virtual threads when the JVM supports them, and
+ * on a pool of one thread per processor otherwise.
+ * 
+ * @author Vivien Barousse
+ */
+public final class ExtractionServer {
+    
+    private static final Logger LOG =
+            Logger.getLogger(ExtractionServer.class.getName());
+    
+    /**
+     * Maximum size of a request body, in bytes.
+     */
+    static final int MAX_BODY_SIZE = 16 * 1024 * 1024;
+    
+    private final DateExtractor extractor;
+    
+    private final ZoneId zone;
+    
+    private final HttpServer server;
+    
+    private final ExecutorService executor;
+
+    /**
+     * Creates a server, bound to the given address but not started yet.
+     * 
+     * @param extractor extractor shared by all the requests
+     * @param zone time zone of the reference times
+     * @param address address to listen to, with port 0 for any free port
+     */
+    public ExtractionServer(DateExtractor extractor, ZoneId zone,
+                            InetSocketAddress address) throws IOException {
+        this.extractor = extractor;
+        this.zone = zone;
+        this.server = HttpServer.create(address, 0);
+        this.executor = createExecutor();
+        
+        server.setExecutor(executor);
+        server.createContext("/extract", new JsonHandler("POST") {
+            Object handle(Map<?, ?> request) throws DateParseException {
+                ZonedDateTime now = now(request);
+                return matches(extractor.extractMatches(
+                        string(request.get("text"), "text"), now),
+                        now.getZone());
+            }
+        });
+        server.createContext("/batch", new JsonHandler("POST") {
+            Object handle(Map<?, ?> request) throws DateParseException {
+                ZonedDateTime now = now(request);
+                if (!(request.get("texts") instanceof List)) {
+                    throw new IllegalArgumentException(
+                            "Missing \"texts\" array");
+                }
+                List<Object> results = new ArrayList<Object>();
+                for (Object text : (List<?>) request.get("texts")) {
+                    results.add(matches(extractor.extractMatches(
+                            string(text, "texts"), now), now.getZone()));
+                }
+                return object("results", results);
+            }
+        });
+        server.createContext("/stats", new JsonHandler("GET") {
+            Object handle(Map<?, ?> request) {
+                return stats();
+            }
+        });
+    }
+    
+    /**
+     * Starts answering requests, in a background thread.
+     */
+    public void start() {
+        server.start();
+    }
+    
+    /**
+     * Stops the server, waiting up to the given delay for the requests
+     * being handled to complete.
+     * 
+     * @param delay maximum time to wait, in seconds
+     */
+    public void stop(int delay) {
+        server.stop(delay);
+        executor.shutdown();
+    }
+    
+    /**
+     * Returns the address the server listens to, with the actual port if
+     * it was bound to any free port.
+     */
+    public InetSocketAddress getAddress() {
+        return server.getAddress();
+    }
+    
+    /**
+     * Creates an executor running each task in a new virtual thread, or
+     * a fixed pool when virtual threads aren't available. Virtual threads
+     * are looked up by reflection, so the server still runs on older JVMs.
+     */
+    static ExecutorService createExecutor() {
+        try {
+            Method factory = Executors.class.getMethod(
+                    "newVirtualThreadPerTaskExecutor");
+            return (ExecutorService) factory.invoke(null);
+        } catch (ReflectiveOperationException ex) {
+            final AtomicInteger count = new AtomicInteger();
+            return Executors.newFixedThreadPool(
+                    Runtime.getRuntime().availableProcessors(),
+                    new ThreadFactory() {
+                        public Thread newThread(Runnable task) {
+                            Thread thread = new Thread(task,
+                                    "gotadate-http-" + count.incrementAndGet());
+                            thread.setDaemon(true);
+                            return thread;
+                        }
+                    });
+        }
+    }
+    
+    private ZonedDateTime now(Map<?, ?> request) {
+        Object now = request.get("now");
+        if (now == null) {
+            return ZonedDateTime.now(zone);
+        }
+        try {
+            return ZonedDateTime.parse(string(now, "now"));
+        } catch (DateTimeException ex) {
+            throw new IllegalArgumentException("Invalid \"now\": " + now);
+        }
+    }
+    
+    /**
+     * Writes matches, with their dates in the zone of the reference time.
+     */
+    private static Object matches(List<DateMatch> matches, ZoneId zone) {
+        List<Object> result = new ArrayList<Object>(matches.size());
+        for (DateMatch match : matches) {
+            Map<String, Object> item = new LinkedHashMap<String, Object>();
+            item.put("start", match.getStart());
+            item.put("end", match.getEnd());
+            item.put("kind", match.getKind().name());
+            item.put("date", match.getDate().toInstant().atZone(zone)
+                    .toOffsetDateTime().toString());
+            result.add(item);
+        }
+        return object("matches", result);
+    }
+    
+    private Object stats() {
+        if (!(extractor.getMetrics() instanceof ParserStats)) {
+            return object("enabled", Boolean.FALSE);
+        }
+        ParserStats stats = (ParserStats) extractor.getMetrics();
+        Map<String, Object> result = new LinkedHashMap<String, Object>();
+        result.put("enabled", Boolean.TRUE);
+        result.put("documents", stats.getDocuments());
+        result.put("characters", stats.getCharacters());
+        result.put("calls", stats.getCalls());
+        result.put("failedAttempts", stats.getFailedAttempts());
+        result.put("meanLatency", stats.getMeanLatency());
+        result.put("p99Latency", stats.getP99Latency());
+        result.put("maxLatency", stats.getMaxLatency());
+        return result;
+    }
+    
+    private static String string(Object value, String name) {
+        if (!(value instanceof String)) {
+            throw new IllegalArgumentException(
+                    "Expected a string for \"" + name + "\"");
+        }
+        return (String) value;
+    }
+    
+    private static Map<String, Object> object(String name, Object value) {
+        Map<String, Object> object = new LinkedHashMap<String, Object>();
+        object.put(name, value);
+        return object;
+    }
+    
+    /**
+     * Handler reading a JSON object and answering with a JSON document.
+     */
+    private abstract static class JsonHandler implements HttpHandler {
+        
+        private final String method;
+
+        JsonHandler(String method) {
+            this.method = method;
+        }
+        
+        abstract Object handle(Map<?, ?> request) throws DateParseException;
+
+        public void handle(HttpExchange exchange) throws IOException {
+            try {
+                if (!method.equals(exchange.getRequestMethod())) {
+                    exchange.getResponseHeaders().set("Allow", method);
+                    respond(exchange, 405, error("Method not allowed"));
+                    return;
+                }
+                
+                Map<?, ?> request;
+                if (method.equals("GET")) {
+                    request = new LinkedHashMap<String, Object>();
+                } else {
+                    byte[] body = readBody(exchange.getRequestBody());
+                    if (body == null) {
+                        respond(exchange, 413, error("Request too large"));
+                        return;
+                    }
+                    Object document = Json.parse(
+                            new String(body, StandardCharsets.UTF_8));
+                    if (!(document instanceof Map)) {
+                        throw new IllegalArgumentException(
+                                "Expected a JSON object");
+                    }
+                    request = (Map<?, ?>) document;
+                }
+                
+                respond(exchange, 200, handle(request));
+            } catch (IllegalArgumentException ex) {
+                respond(exchange, 400, error(ex.getMessage()));
+            } catch (DateParseException ex) {
+                respond(exchange, 500, error(ex.getMessage()));
+            } catch (RuntimeException ex) {
+                LOG.log(Level.SEVERE, "Unable to handle "
+                        + exchange.getRequestURI(), ex);
+                respond(exchange, 500, error("Internal error"));
+            } finally {
+                exchange.close();
+            }
+        }
+        
+        /**
+         * Reads a request body, or returns null if it's too large.
+         */
+        private static byte[] readBody(InputStream in) throws IOException {
+            byte[] body = in.readNBytes(MAX_BODY_SIZE + 1);
+            return body.length > MAX_BODY_SIZE ? null : body;
+        }
+        
+        private static void respond(HttpExchange exchange, int status,
+                                    Object response) throws IOException {
+            byte[] body = Json.write(response).getBytes(StandardCharsets.UTF_8);
+            exchange.getResponseHeaders().set("Content-Type",
+                    "application/json; charset=utf-8");
+            exchange.sendResponseHeaders(status, body.length);
+            try (OutputStream out = exchange.getResponseBody()) {
+                out.write(body);
+            }
+        }
+        
+        private static Object error(String message) {
+            return object("error", message);
+        }
+        
+    }
+    
+    /**
+     * Starts a server on localhost.
+     * 
+     * Usage: <code>ExtractionServer [port [zone [locale...]]]</code>. The
+     * port defaults to 8080, the zone to the system default, and the
+     * locales to the default keywords.
+     */
+    public static void main(String[] args) throws Exception {
+        int port = args.length > 0 ? Integer.parseInt(args[0]) : 8080;
+        ZoneId zone = args.length > 1 ? ZoneId.of(args[1])
+                : ZoneId.systemDefault();
+        Keywords keywords;
+        if (args.length > 2) {
+            Locale[] locales = new Locale[args.length - 2];
+            for (int i = 0; i < locales.length; i++) {
+                locales[i] = Locale.forLanguageTag(args[i + 2]);
+            }
+            keywords = Keywords.forLocales(locales);
+        } else {
+            keywords = new DateExtractor().getKeywords();
+        }
+        
+        ParserStats stats = new ParserStats();
+        stats.register("server");
+        ExtractionServer server = new ExtractionServer(
+                new DateExtractor(keywords, stats), zone,
+                new InetSocketAddress(InetAddress.getLoopbackAddress(), port));
+        server.start();
+        System.out.println("Listening on " + server.getAddress());
+    }
+    
+}
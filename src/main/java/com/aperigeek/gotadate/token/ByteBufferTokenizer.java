@@ -0,0 +1,353 @@
+/*
+ * This file is part of gotadate.
+ *
+ * gotadate is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * gotadate is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with gotadate.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.aperigeek.gotadate.token;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Splits UTF-8 encoded bytes into Token that can be recognized by the
+ * parser, without decoding them to chars first.
+ * 
+ * This tokenizer produces the same tokens as CharSequenceTokenizer on the
+ * decoded text, but mostly ASCII input is scanned byte by byte: ASCII
+ * bytes are classified through a lookup table, digits are accumulated
+ * directly into the token value, and words are matched against the
+ * keywords as they are scanned. Only non-ASCII sequences are decoded,
+ * one code point at a time. Heap and direct buffers are both scanned in
+ * place, without being copied.
+ * 
+ * Offsets and columns are counted in bytes, from the position of the
+ * buffer, so that a match can be sliced from the buffer. A malformed
+ * sequence is read as one U+FFFD separator per byte, and a code point
+ * outside the Basic Multilingual Plane as a single separator.
+ * 
+ * @author Vivien Barousse
+ */
+public class ByteBufferTokenizer implements Tokenizer, TokenSource {
+    
+    private static final byte OTHER = 0;
+    
+    private static final byte SPACE = 1;
+    
+    private static final byte DIGIT = 2;
+    
+    private static final byte LETTER = 3;
+    
+    private static final int REPLACEMENT = 0xFFFD;
+    
+    /**
+     * Class of each ASCII char, as CharSequenceTokenizer sees it.
+     */
+    private static final byte[] ASCII = new byte[128];
+    
+    static {
+        for (char ch = 0; ch < ASCII.length; ch++) {
+            ASCII[ch] = classOf((int) ch);
+        }
+    }
+    
+    private ByteBuffer buffer;
+    
+    private byte[] array;
+    
+    private int end;
+    
+    private int pos;
+    
+    private int line = 1;
+    
+    private int lineStart;
+    
+    /**
+     * Index, in the scanned array or buffer, of the first byte of the
+     * source. Reported offsets are relative to it.
+     */
+    private int offset;
+    
+    /**
+     * Number of bytes of the last code point read by decode().
+     */
+    private int decodedLength;
+    
+    private TokenType tokenType;
+    
+    private int tokenValue;
+    
+    private Keyword tokenKeyword;
+    
+    private int tokenStart;
+    
+    private int tokenCol;
+
+    /**
+     * Creates a tokenizer for the remaining bytes of the given buffer. The
+     * position and limit of the buffer are left untouched, and its content
+     * shouldn't be modified while tokenizing.
+     * 
+     * @param bytes UTF-8 encoded text
+     */
+    public ByteBufferTokenizer(ByteBuffer bytes) {
+        reset(bytes);
+    }
+
+    /**
+     * Restarts this tokenizer on the remaining bytes of a new buffer.
+     * 
+     * @param bytes UTF-8 encoded text
+     */
+    public void reset(ByteBuffer bytes) {
+        if (bytes.hasArray()) {
+            this.buffer = null;
+            this.array = bytes.array();
+            this.offset = bytes.arrayOffset() + bytes.position();
+            this.end = bytes.arrayOffset() + bytes.limit();
+        } else {
+            this.buffer = bytes;
+            this.array = null;
+            this.offset = bytes.position();
+            this.end = bytes.limit();
+        }
+        this.pos = offset;
+        this.line = 1;
+        this.lineStart = pos - 1;
+    }
+    
+    private int byteAt(int i) {
+        return array != null ? array[i] : buffer.get(i);
+    }
+    
+    /**
+     * Decodes the non-ASCII sequence starting at the given index, and stores
+     * its length in decodedLength.
+     * 
+     * @return the decoded code point, or U+FFFD if the sequence is malformed
+     */
+    private int decode(int i) {
+        int lead = byteAt(i) & 0xFF;
+        int length;
+        int min;
+        int cp;
+        if (lead >= 0xC2 && lead <= 0xDF) {
+            length = 2;
+            min = 0x80;
+            cp = lead & 0x1F;
+        } else if (lead >= 0xE0 && lead <= 0xEF) {
+            length = 3;
+            min = 0x800;
+            cp = lead & 0x0F;
+        } else if (lead >= 0xF0 && lead <= 0xF4) {
+            length = 4;
+            min = 0x10000;
+            cp = lead & 0x07;
+        } else {
+            decodedLength = 1;
+            return REPLACEMENT;
+        }
+        
+        decodedLength = 1;
+        if (i + length > end) {
+            return REPLACEMENT;
+        }
+        for (int k = 1; k < length; k++) {
+            int b = byteAt(i + k);
+            if ((b & 0xC0) != 0x80) {
+                return REPLACEMENT;
+            }
+            cp = (cp << 6) | (b & 0x3F);
+        }
+        if (cp < min || cp > Character.MAX_CODE_POINT
+                || (cp >= Character.MIN_SURROGATE
+                    && cp <= Character.MAX_SURROGATE)) {
+            return REPLACEMENT;
+        }
+        decodedLength = length;
+        return cp;
+    }
+    
+    /**
+     * Returns the class of the given code point. Code points outside the
+     * BMP are surrogate pairs to CharSequenceTokenizer, and never letters.
+     */
+    private static byte classOf(int cp) {
+        if (cp > Character.MAX_VALUE) {
+            return OTHER;
+        }
+        char ch = (char) cp;
+        if (Character.isSpaceChar(ch)) {
+            return SPACE;
+        } else if (Character.isDigit(ch)) {
+            return DIGIT;
+        } else if (Character.isLetter(ch)) {
+            return LETTER;
+        }
+        return OTHER;
+    }
+    
+    private void addDigit(int digit) {
+        // Saturate instead of overflowing on very long numbers
+        long value = tokenValue * 10L + digit;
+        tokenValue = (int) Math.min(value, Integer.MAX_VALUE);
+    }
+
+    /**
+     * Scans the next token, and stores its attributes in the token* fields.
+     * 
+     * @param keywords keywords to match words against, or null
+     * @return false if the end of input has been reached
+     */
+    private boolean scan(Keywords keywords) {
+        int cp;
+        int length;
+        byte cls;
+        while (true) {
+            if (pos >= end) {
+                return false;
+            }
+            int b = byteAt(pos);
+            if (b >= 0) {
+                cp = b;
+                length = 1;
+                cls = ASCII[b];
+            } else {
+                cp = decode(pos);
+                length = decodedLength;
+                cls = classOf(cp);
+            }
+            if (cls != SPACE) {
+                break;
+            }
+            pos += length;
+        }
+        
+        if (cp == '\r' || cp == '\n') {
+            line++;
+            lineStart = pos;
+        }
+        tokenStart = pos;
+        tokenCol = pos - lineStart;
+        pos += length;
+        
+        if (cls == DIGIT) {
+            tokenType = TokenType.NUMBER;
+            tokenValue = 0;
+            addDigit(Character.digit(cp, 10));
+            while (pos < end) {
+                int b = byteAt(pos);
+                if (b >= '0' && b <= '9') {
+                    addDigit(b - '0');
+                    pos++;
+                } else if (b < 0 && classOf(cp = decode(pos)) == DIGIT) {
+                    addDigit(Character.digit(cp, 10));
+                    pos += decodedLength;
+                } else {
+                    break;
+                }
+            }
+        } else if (cls == LETTER) {
+            tokenType = TokenType.STRING;
+            int state = keywords == null ? Keywords.DEAD
+                    : keywords.step(Keywords.START, (char) cp);
+            while (pos < end) {
+                int b = byteAt(pos);
+                if (b >= 0) {
+                    if (ASCII[b] != LETTER) {
+                        break;
+                    }
+                    cp = b;
+                    pos++;
+                } else {
+                    cp = decode(pos);
+                    if (classOf(cp) != LETTER) {
+                        break;
+                    }
+                    pos += decodedLength;
+                }
+                if (state != Keywords.DEAD) {
+                    state = keywords.step(state, (char) cp);
+                }
+            }
+            tokenKeyword = keywords == null ? null : keywords.accepted(state);
+        } else {
+            tokenType = TokenType.SEPARATOR;
+            char ch = cp > Character.MAX_VALUE
+                    ? Character.highSurrogate(cp) : (char) cp;
+            tokenValue = Character.toLowerCase(ch);
+        }
+        return true;
+    }
+
+    public Token<? extends Object> next() {
+        return next(null);
+    }
+
+    @Override
+    public Token<? extends Object> next(Token<Object> reuse) {
+        if (!scan(null)) {
+            return null;
+        }
+        
+        Object value;
+        switch (tokenType) {
+            case NUMBER:
+                value = Integer.valueOf(tokenValue);
+                break;
+            case SEPARATOR:
+                value = Character.valueOf((char) tokenValue);
+                break;
+            default:
+                value = decode(tokenStart, pos).toLowerCase();
+                break;
+        }
+        
+        if (reuse == null) {
+            return new Token<Object>(tokenType, value, line, tokenCol,
+                    tokenStart - offset, pos - offset);
+        }
+        reuse.set(tokenType, value, line, tokenCol, tokenStart - offset,
+                pos - offset);
+        return reuse;
+    }
+
+    public boolean next(TokenBuffer buffer, Keywords keywords) {
+        if (!scan(keywords)) {
+            return false;
+        }
+        
+        if (tokenType == TokenType.STRING) {
+            buffer.add(tokenKeyword, tokenStart - offset, pos - offset, line,
+                    tokenCol);
+        } else {
+            buffer.add(tokenType, tokenValue, tokenStart - offset,
+                    pos - offset, line, tokenCol);
+        }
+        return true;
+    }
+    
+    private String decode(int start, int end) {
+        if (array != null) {
+            return new String(array, start, end - start,
+                    StandardCharsets.UTF_8);
+        }
+        byte[] bytes = new byte[end - start];
+        for (int i = start; i < end; i++) {
+            bytes[i - start] = buffer.get(i);
+        }
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+}
@@ -0,0 +1,263 @@
+/*
+ * This file is part of gotadate.
+ *
+ * gotadate is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * gotadate is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with gotadate.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.aperigeek.gotadate.token;
+
+import java.nio.CharBuffer;
+
+/**
+ * Splits an in-memory character sequence into Token that can be recognized
+ * by the parser.
+ * 
+ * This tokenizer produces exactly the same tokens as DateTokenizer, but
+ * scans its source directly by index instead of pulling characters one by
+ * one from a Reader. Character arrays, and CharBuffer backed by an array,
+ * are scanned in place, without being copied.
+ * 
+ * @author Vivien Barousse
+ */
+public class CharSequenceTokenizer implements Tokenizer, TokenSource {
+    
+    private CharSequence text;
+    
+    private char[] array;
+    
+    private int end;
+    
+    private int pos;
+    
+    private int line = 1;
+    
+    private int lineStart;
+    
+    /**
+     * Index, in the scanned array, of the first character of the source
+     * sequence. Offsets reported in a TokenBuffer are relative to it.
+     */
+    private int offset;
+    
+    private TokenType tokenType;
+    
+    private int tokenValue;
+    
+    private int tokenStart;
+    
+    private int tokenCol;
+
+    public CharSequenceTokenizer(CharSequence text) {
+        this(text, 0, text.length());
+    }
+
+    /**
+     * Creates a tokenizer for the given range of a character sequence.
+     * 
+     * @param text the source text
+     * @param start index of the first character to read
+     * @param end index after the last character to read
+     */
+    public CharSequenceTokenizer(CharSequence text, int start, int end) {
+        reset(text, start, end);
+    }
+
+    public CharSequenceTokenizer(char[] array) {
+        this(array, 0, array.length);
+    }
+
+    /**
+     * Creates a tokenizer for the given range of a character array. The
+     * array is not copied, and shouldn't be modified while tokenizing.
+     * 
+     * @param array the source characters
+     * @param offset index of the first character to read
+     * @param length number of characters to read
+     */
+    public CharSequenceTokenizer(char[] array, int offset, int length) {
+        reset(array, offset, length);
+    }
+
+    /**
+     * Restarts this tokenizer on a new text, so that a single tokenizer can
+     * be reused for many short texts.
+     * 
+     * @param text the source text
+     */
+    public void reset(CharSequence text) {
+        reset(text, 0, text.length());
+    }
+
+    /**
+     * Restarts this tokenizer on the given range of a new text.
+     * 
+     * @param text the source text
+     * @param start index of the first character to read
+     * @param end index after the last character to read
+     */
+    public void reset(CharSequence text, int start, int end) {
+        if (start < 0 || end > text.length() || start > end) {
+            throw new IndexOutOfBoundsException("Invalid range [" + start
+                    + ", " + end + "[ for length " + text.length());
+        }
+        
+        if (text instanceof CharBuffer && ((CharBuffer) text).hasArray()) {
+            CharBuffer buffer = (CharBuffer) text;
+            int offset = buffer.arrayOffset() + buffer.position();
+            this.text = null;
+            this.array = buffer.array();
+            this.offset = offset;
+            this.pos = offset + start;
+            this.end = offset + end;
+        } else {
+            this.text = text;
+            this.array = null;
+            this.offset = 0;
+            this.pos = start;
+            this.end = end;
+        }
+        this.line = 1;
+        this.lineStart = pos - 1;
+    }
+
+    /**
+     * Restarts this tokenizer on the given range of a new character array.
+     * 
+     * @param array the source characters
+     * @param offset index of the first character to read
+     * @param length number of characters to read
+     */
+    public void reset(char[] array, int offset, int length) {
+        if (offset < 0 || length < 0 || offset + length > array.length) {
+            throw new IndexOutOfBoundsException("Invalid range [" + offset
+                    + ", " + (offset + length) + "[ for length "
+                    + array.length);
+        }
+        
+        this.text = null;
+        this.array = array;
+        this.offset = 0;
+        this.pos = offset;
+        this.end = offset + length;
+        this.line = 1;
+        this.lineStart = pos - 1;
+    }
+    
+    private char charAt(int i) {
+        return array != null ? array[i] : text.charAt(i);
+    }
+
+    /**
+     * Scans the next token, and stores its attributes in the token* fields.
+     * 
+     * @return false if the end of input has been reached
+     */
+    private boolean scan() {
+        while (pos < end && Character.isSpaceChar(charAt(pos))) {
+            pos++;
+        }
+        
+        if (pos >= end) {
+            return false;
+        }
+        
+        int start = pos;
+        char ch = charAt(pos);
+        if (ch == '\r' || ch == '\n') {
+            line++;
+            lineStart = pos;
+        }
+        tokenStart = start;
+        tokenCol = start - lineStart;
+        
+        if (Character.isDigit(ch)) {
+            tokenType = TokenType.NUMBER;
+            tokenValue = 0;
+            do {
+                // Saturate instead of overflowing on very long numbers
+                long value = tokenValue * 10L + Character.digit(ch, 10);
+                tokenValue = (int) Math.min(value, Integer.MAX_VALUE);
+                pos++;
+            } while (pos < end && Character.isDigit(ch = charAt(pos)));
+        } else if (Character.isLetter(ch)) {
+            pos++;
+            while (pos < end && Character.isLetter(charAt(pos))) {
+                pos++;
+            }
+            tokenType = TokenType.STRING;
+        } else {
+            pos++;
+            tokenType = TokenType.SEPARATOR;
+            tokenValue = Character.toLowerCase(ch);
+        }
+        return true;
+    }
+
+    public Token<? extends Object> next() {
+        return next(null);
+    }
+
+    @Override
+    public Token<? extends Object> next(Token<Object> reuse) {
+        if (!scan()) {
+            return null;
+        }
+        
+        Object value;
+        switch (tokenType) {
+            case NUMBER:
+                value = Integer.valueOf(tokenValue);
+                break;
+            case SEPARATOR:
+                value = Character.valueOf((char) tokenValue);
+                break;
+            default:
+                value = substring(tokenStart, pos).toLowerCase();
+                break;
+        }
+        
+        if (reuse == null) {
+            return new Token<Object>(tokenType, value, line, tokenCol,
+                    tokenStart - offset, pos - offset);
+        }
+        reuse.set(tokenType, value, line, tokenCol, tokenStart - offset,
+                pos - offset);
+        return reuse;
+    }
+
+    public boolean next(TokenBuffer buffer, Keywords keywords) {
+        if (!scan()) {
+            return false;
+        }
+        
+        if (tokenType == TokenType.STRING) {
+            Keyword keyword = array != null
+                    ? keywords.match(array, tokenStart, pos)
+                    : keywords.match(text, tokenStart, pos);
+            buffer.add(keyword, tokenStart - offset,
+                    pos - offset, line, tokenCol);
+        } else {
+            buffer.add(tokenType, tokenValue, tokenStart - offset,
+                    pos - offset, line, tokenCol);
+        }
+        return true;
+    }
+    
+    private String substring(int start, int end) {
+        if (array != null) {
+            return new String(array, start, end - start);
+        }
+        return text.subSequence(start, end).toString();
+    }
+
+}
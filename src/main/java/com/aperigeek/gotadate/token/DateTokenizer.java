@@ -16,7 +16,6 @@
  */
 package com.aperigeek.gotadate.token;
 
-import java.io.EOFException;
 import java.io.IOException;
 import java.io.Reader;
 
@@ -25,7 +24,7 @@ import java.io.Reader;
  * 
  * @author Vivien Barousse
  */
-public class DateTokenizer implements Tokenizer {
+public class DateTokenizer implements Tokenizer, TokenSource {
 
     private Reader reader;
 
@@ -33,27 +32,49 @@ public class DateTokenizer implements Tokenizer {
 
     private int col = 0;
 
+    /**
+     * Number of characters read so far.
+     */
+    private int read = 0;
+
     private int ch;
+    
+    private TokenType tokenType;
+    
+    private StringBuilder tokenText = new StringBuilder();
+    
+    private int tokenValue;
+    
+    private int tokenStart;
+    
+    private int tokenEnd;
+    
+    private int tokenLine;
+    
+    private int tokenCol;
 
     public DateTokenizer(Reader reader) throws TokenizerException {
         this.reader = reader;
         
         try {
             readChar();
-        } catch (EOFException ex) {
-            // Will be catched at next call to readChar()
         } catch (IOException ex) {
             throw new TokenizerException("Unable to read from source", ex);
         }
     }
 
-    protected void readChar() throws EOFException, IOException {
+    /**
+     * Reads the next character into ch. At the end of input, ch is set to -1,
+     * which doesn't match any character class.
+     */
+    protected void readChar() throws IOException {
         int next = reader.read();
         if (next == -1) {
             ch = -1;
-            throw new EOFException();
+            return;
         }
 
+        read++;
         col++;
         if (next == '\r' || next == '\n') {
             col = 0;
@@ -62,62 +83,109 @@ public class DateTokenizer implements Tokenizer {
 
         ch = (char) next;
     }
+    
+    /**
+     * Returns the offset of the current character in the source.
+     */
+    private int offset() {
+        return ch == -1 ? read : read - 1;
+    }
 
-    public Token<? extends Object> next() throws TokenizerException {
+    /**
+     * Scans the next token, and stores its attributes in the token* fields.
+     * 
+     * @return false if the end of input has been reached
+     */
+    private boolean scan() throws TokenizerException {
         try {
-            try {
-                while (Character.isSpaceChar(ch)) {
-                    readChar();
-                }
-            } catch (EOFException ex) {
-                // Continue, will fail later
+            while (Character.isSpaceChar(ch)) {
+                readChar();
             }
 
             if (ch == -1) {
-                return null;
+                return false;
             }
 
-            StringBuilder builder = new StringBuilder();
-
-            int tokenCol = this.col,
-                    tokenLine = this.line;
-
-            TokenType type = TokenType.EMPTY;
-
-            try {
-                if (Character.isDigit(ch)) {
-                    type = TokenType.NUMBER;
-                    while (Character.isDigit(ch)) {
-                        builder.append((char) ch);
-                        readChar();
-                    }
-                } else if (Character.isLetter(ch)) {
-                    type = TokenType.STRING;
-                    while (Character.isLetter(ch)) {
-                        builder.append((char) ch);
-                        readChar();
-                    }
-                } else {
-                    type = TokenType.SEPARATOR;
-                    builder.append((char) ch);
+            tokenText.setLength(0);
+            tokenStart = offset();
+            tokenCol = this.col;
+            tokenLine = this.line;
+
+            if (Character.isDigit(ch)) {
+                tokenType = TokenType.NUMBER;
+                tokenValue = 0;
+                while (Character.isDigit(ch)) {
+                    // Saturate instead of overflowing on very long numbers
+                    long value = tokenValue * 10L + Character.digit(ch, 10);
+                    tokenValue = (int) Math.min(value, Integer.MAX_VALUE);
                     readChar();
                 }
-            } catch (EOFException ex) {
-                // Continue, will fail at next call
-            }
-
-            Object value = builder.toString().toLowerCase();
-            if (type == TokenType.NUMBER) {
-                Integer intValue = Integer.valueOf(value.toString());
-                return new Token<Number>(type, intValue, tokenLine, tokenCol);
-            } else if (type == TokenType.SEPARATOR) {
-                Character chValue = value.toString().charAt(0);
-                return new Token<Character>(type, chValue, tokenLine, tokenCol);
+            } else if (Character.isLetter(ch)) {
+                tokenType = TokenType.STRING;
+                while (Character.isLetter(ch)) {
+                    tokenText.append((char) ch);
+                    readChar();
+                }
+            } else {
+                tokenType = TokenType.SEPARATOR;
+                tokenText.append((char) ch);
+                readChar();
             }
-            return new Token<Object>(type, value, tokenLine, tokenCol);
+            
+            tokenEnd = offset();
+            return true;
         } catch (IOException ex) {
             throw new TokenizerException("Unable to read from source", ex);
         }
     }
 
+    public Token<? extends Object> next() throws TokenizerException {
+        return next(null);
+    }
+
+    @Override
+    public Token<? extends Object> next(Token<Object> reuse)
+            throws TokenizerException {
+        if (!scan()) {
+            return null;
+        }
+        
+        Object value;
+        if (tokenType == TokenType.NUMBER) {
+            value = Integer.valueOf(tokenValue);
+        } else if (tokenType == TokenType.SEPARATOR) {
+            value = Character.toLowerCase(tokenText.charAt(0));
+        } else {
+            value = tokenText.toString().toLowerCase();
+        }
+        
+        if (reuse == null) {
+            return new Token<Object>(tokenType, value, tokenLine, tokenCol,
+                    tokenStart, tokenEnd);
+        }
+        reuse.set(tokenType, value, tokenLine, tokenCol, tokenStart, tokenEnd);
+        return reuse;
+    }
+
+    public boolean next(TokenBuffer buffer, Keywords keywords)
+            throws TokenizerException {
+        if (!scan()) {
+            return false;
+        }
+        
+        if (tokenType == TokenType.NUMBER) {
+            buffer.add(tokenType, tokenValue, tokenStart, tokenEnd,
+                    tokenLine, tokenCol);
+        } else if (tokenType == TokenType.SEPARATOR) {
+            char value = Character.toLowerCase(tokenText.charAt(0));
+            buffer.add(tokenType, value, tokenStart, tokenEnd,
+                    tokenLine, tokenCol);
+        } else {
+            Keyword keyword = keywords.match(tokenText, 0, tokenText.length());
+            buffer.add(keyword, tokenStart, tokenEnd,
+                    tokenLine, tokenCol);
+        }
+        return true;
+    }
+
 }
@@ -0,0 +1,78 @@
+/*
+ * This file is part of gotadate.
+ *
+ * gotadate is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * gotadate is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with gotadate.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.aperigeek.gotadate.token;
+
+/**
+ * Words having a meaning for the parser.
+ * 
+ * @author Vivien Barousse
+ */
+public enum Keyword {
+    
+    JANUARY(1),
+    FEBRUARY(2),
+    MARCH(3),
+    APRIL(4),
+    MAY(5),
+    JUNE(6),
+    JULY(7),
+    AUGUST(8),
+    SEPTEMBER(9),
+    OCTOBER(10),
+    NOVEMBER(11),
+    DECEMBER(12),
+    ORDINAL,
+    /**
+     * Word between the parts of a date, as in "23rd of October".
+     */
+    OF,
+    YESTERDAY,
+    TOMORROW,
+    DAYS,
+    AGO,
+    /**
+     * Word meaning "ago", placed before the number of days, as the German
+     * "vor 3 Tagen".
+     */
+    BEFORE,
+    AT,
+    AM,
+    PM;
+    
+    private final int month;
+
+    private Keyword() {
+        this(0);
+    }
+
+    private Keyword(int month) {
+        this.month = month;
+    }
+    
+    public boolean isMonth() {
+        return month != 0;
+    }
+
+    /**
+     * Returns the month (1 to 12) named by this keyword, or 0 if this
+     * keyword isn't a month name.
+     */
+    public int getMonth() {
+        return month;
+    }
+    
+}
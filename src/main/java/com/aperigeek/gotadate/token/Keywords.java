@@ -0,0 +1,339 @@
+/*
+ * This file is part of gotadate.
+ *
+ * gotadate is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * gotadate is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with gotadate.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.aperigeek.gotadate.token;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.SortedMap;
+import java.util.TreeMap;
+
+/**
+ * Keywords recognized in a text stream: month names, ordinal suffixes and
+ * the words used in relative dates and times.
+ * 
+ * Keywords are compiled into a trie, stored as a transition table, which
+ * is matched case-insensitively against the characters of a word where
+ * they lie. Matching a word doesn't create any object, and most words are
+ * rejected after their first or second character. The vocabularies of
+ * several languages are compiled into the same trie, so that the cost of
+ * matching a word doesn't depend on the number of languages.
+ * 
+ * A Keywords instance is immutable once built, and can be shared by any
+ * number of parsers, in any number of threads.
+ * 
+ * @author Vivien Barousse
+ */
+public final class Keywords {
+    
+    private static final Keywords DEFAULT =
+            new Keywords(Vocabulary.ENGLISH.getWords());
+    
+    /**
+     * State of the trie before reading any character.
+     */
+    static final int START = 0;
+    
+    /**
+     * State reached when the characters read can't lead to any keyword.
+     */
+    static final int DEAD = -1;
+    
+    /**
+     * Character class of each char below 256, or -1 for chars not appearing
+     * in any keyword.
+     */
+    private final int[] latinClasses = new int[256];
+    
+    /**
+     * Chars above 255 appearing in keywords, sorted, and their class.
+     */
+    private final char[] otherChars;
+    
+    private final int[] otherClasses;
+    
+    private final int classCount;
+    
+    /**
+     * Transition table: the state reached from state s on a char of class c
+     * is found at index s * classCount + c.
+     */
+    private final int[] transitions;
+    
+    /**
+     * Keyword matched when the word ends in the given state, or null.
+     */
+    private final Keyword[] accepting;
+    
+    /**
+     * Keywords reachable from each state, as a bit mask of their ordinals.
+     */
+    private final long[] reachable;
+    
+    private Keywords(Map<String, Keyword> words) {
+        // Character classes: all the case variants of a char share a class
+        Arrays.fill(latinClasses, -1);
+        SortedMap<Character, Integer> others = new TreeMap<Character, Integer>();
+        int classes = 0;
+        for (String word : words.keySet()) {
+            for (int i = 0; i < word.length(); i++) {
+                char ch = word.charAt(i);
+                if (classOf(ch, others) < 0) {
+                    setClass(ch, classes, others);
+                    setClass(Character.toUpperCase(ch), classes, others);
+                    setClass(Character.toTitleCase(ch), classes, others);
+                    classes++;
+                }
+            }
+        }
+        this.classCount = classes;
+        this.otherChars = new char[others.size()];
+        this.otherClasses = new int[others.size()];
+        int n = 0;
+        for (Map.Entry<Character, Integer> e : others.entrySet()) {
+            otherChars[n] = e.getKey();
+            otherClasses[n] = e.getValue();
+            n++;
+        }
+        
+        // Trie, built as a growing transition table
+        int[] table = new int[16 * classCount];
+        Arrays.fill(table, DEAD);
+        List<Keyword> accept = new ArrayList<Keyword>();
+        accept.add(null);
+        for (Map.Entry<String, Keyword> e : words.entrySet()) {
+            String word = e.getKey();
+            int state = START;
+            for (int i = 0; i < word.length(); i++) {
+                int index = state * classCount + classOf(word.charAt(i));
+                if (table[index] == DEAD) {
+                    if (accept.size() * classCount >= table.length) {
+                        int length = table.length;
+                        table = Arrays.copyOf(table, length * 2);
+                        Arrays.fill(table, length, table.length, DEAD);
+                    }
+                    table[index] = accept.size();
+                    accept.add(null);
+                }
+                state = table[index];
+            }
+            accept.set(state, e.getValue());
+        }
+        this.transitions = Arrays.copyOf(table, accept.size() * classCount);
+        this.accepting = accept.toArray(new Keyword[accept.size()]);
+        
+        // States are numbered after their parent, so children are done first
+        this.reachable = new long[accepting.length];
+        for (int state = accepting.length - 1; state >= 0; state--) {
+            if (accepting[state] != null) {
+                reachable[state] |= 1L << accepting[state].ordinal();
+            }
+            for (int cls = 0; cls < classCount; cls++) {
+                int child = transitions[state * classCount + cls];
+                if (child != DEAD) {
+                    reachable[state] |= reachable[child];
+                }
+            }
+        }
+    }
+    
+    private void setClass(char ch, int cls, Map<Character, Integer> others) {
+        if (ch < latinClasses.length) {
+            latinClasses[ch] = cls;
+        } else {
+            others.put(ch, cls);
+        }
+    }
+    
+    private int classOf(char ch, Map<Character, Integer> others) {
+        if (ch < latinClasses.length) {
+            return latinClasses[ch];
+        }
+        Integer cls = others.get(ch);
+        return cls == null ? -1 : cls;
+    }
+    
+    /**
+     * Returns the class of the given char, or -1 if it doesn't appear in
+     * any keyword.
+     */
+    private int classOf(char ch) {
+        if (ch < latinClasses.length) {
+            return latinClasses[ch];
+        }
+        int i = Arrays.binarySearch(otherChars, ch);
+        if (i < 0) {
+            // Chars whose lower case is not in the keywords' upper case
+            // variants, like the Kelvin sign
+            char lower = Character.toLowerCase(ch);
+            if (lower < latinClasses.length) {
+                return latinClasses[lower];
+            }
+            i = Arrays.binarySearch(otherChars, lower);
+        }
+        return i < 0 ? -1 : otherClasses[i];
+    }
+    
+    /**
+     * Returns the state reached from the given state on the given char, so
+     * that a tokenizer can match a word while scanning it.
+     */
+    int step(int state, char ch) {
+        int cls = classOf(ch);
+        if (cls < 0) {
+            return DEAD;
+        }
+        return transitions[state * classCount + cls];
+    }
+    
+    /**
+     * Returns the keyword matched by a word ending in the given state, or
+     * null.
+     */
+    Keyword accepted(int state) {
+        return state == DEAD ? null : accepting[state];
+    }
+    
+    /**
+     * Returns the shared, default (english) keywords.
+     */
+    public static Keywords getDefault() {
+        return DEFAULT;
+    }
+    
+    /**
+     * Compiles the words of all the given vocabularies. A word appearing in
+     * several vocabularies with different meanings, like "ago", keeps the
+     * meaning of the first one.
+     */
+    public static Keywords of(Vocabulary... vocabularies) {
+        if (vocabularies.length == 0) {
+            throw new IllegalArgumentException("No vocabulary");
+        }
+        Map<String, Keyword> words = new LinkedHashMap<String, Keyword>();
+        for (Vocabulary vocabulary : vocabularies) {
+            for (Map.Entry<String, Keyword> e
+                    : vocabulary.getWords().entrySet()) {
+                if (!words.containsKey(e.getKey())) {
+                    words.put(e.getKey(), e.getValue());
+                }
+            }
+        }
+        return new Keywords(words);
+    }
+    
+    /**
+     * Compiles the built-in vocabularies of the given locales.
+     * 
+     * @throws IllegalArgumentException if there is no vocabulary for one of
+     * these locales
+     * @see Vocabulary#forLocale(Locale)
+     */
+    public static Keywords forLocales(Locale... locales) {
+        Vocabulary[] vocabularies = new Vocabulary[locales.length];
+        for (int i = 0; i < locales.length; i++) {
+            vocabularies[i] = Vocabulary.forLocale(locales[i]);
+        }
+        return of(vocabularies);
+    }
+    
+    /**
+     * Returns the keyword matching the given range of characters, ignoring
+     * case, or null if these characters aren't a keyword.
+     * 
+     * @param text the characters to match
+     * @param start index of the first character of the word
+     * @param end index after the last character of the word
+     */
+    public Keyword match(CharSequence text, int start, int end) {
+        int state = START;
+        for (int i = start; i < end && state != DEAD; i++) {
+            state = step(state, text.charAt(i));
+        }
+        return state == DEAD ? null : accepting[state];
+    }
+    
+    /**
+     * Returns the keyword matching the given range of characters, ignoring
+     * case, or null if these characters aren't a keyword.
+     * 
+     * @param text the characters to match
+     * @param start index of the first character of the word
+     * @param end index after the last character of the word
+     */
+    public Keyword match(char[] text, int start, int end) {
+        int state = START;
+        for (int i = start; i < end && state != DEAD; i++) {
+            state = step(state, text[i]);
+        }
+        return state == DEAD ? null : accepting[state];
+    }
+    
+    /**
+     * Checks if a word starting with the given char may be one of the given
+     * keywords, ignoring case.
+     */
+    public boolean mayStart(char ch, Set<Keyword> keywords) {
+        int state = step(START, ch);
+        if (state == DEAD) {
+            return false;
+        }
+        for (Keyword keyword : keywords) {
+            if ((reachable[state] & (1L << keyword.ordinal())) != 0) {
+                return true;
+            }
+        }
+        return false;
+    }
+    
+    /**
+     * Returns the keyword matching the given word, ignoring case, or null if
+     * the word isn't a keyword.
+     */
+    public Keyword lookup(String word) {
+        return match(word, 0, word.length());
+    }
+    
+    /**
+     * Checks if the given word is a month name.
+     */
+    public boolean isMonth(String word) {
+        Keyword keyword = lookup(word);
+        return keyword != null && keyword.isMonth();
+    }
+    
+    /**
+     * Returns the month (1 to 12) named by the given word, or 0 if the word
+     * is not a month name.
+     */
+    public int getMonth(String word) {
+        Keyword keyword = lookup(word);
+        return keyword == null ? 0 : keyword.getMonth();
+    }
+    
+    /**
+     * Checks if the given word is an ordinal suffix, as in "23rd".
+     */
+    public boolean isOrdinal(String word) {
+        return lookup(word) == Keyword.ORDINAL;
+    }
+    
+}
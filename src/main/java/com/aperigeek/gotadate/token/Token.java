@@ -29,12 +29,41 @@ public class Token<T> {
     private int line;
     
     private int col;
+    
+    private int start;
+    
+    private int end;
 
     public Token(TokenType type, T value, int line, int col) {
+        this(type, value, line, col, -1, -1);
+    }
+
+    /**
+     * @param start offset, in the source, of the first character of the token
+     * @param end offset, in the source, after the last character of the token
+     */
+    public Token(TokenType type, T value, int line, int col,
+                 int start, int end) {
+        this.type = type;
+        this.value = value;
+        this.line = line;
+        this.col = col;
+        this.start = start;
+        this.end = end;
+    }
+
+    /**
+     * Reinitializes this token, so that a tokenizer can reuse it instead of
+     * creating a new one.
+     */
+    void set(TokenType type, T value, int line, int col, int start,
+             int end) {
         this.type = type;
         this.value = value;
         this.line = line;
         this.col = col;
+        this.start = start;
+        this.end = end;
     }
 
     public TokenType getType() {
@@ -52,5 +81,21 @@ public class Token<T> {
     public T getValue() {
         return value;
     }
+
+    /**
+     * Returns the offset, in the source, of the first character of this
+     * token, or -1 if unknown.
+     */
+    public int getStart() {
+        return start;
+    }
+
+    /**
+     * Returns the offset, in the source, after the last character of this
+     * token, or -1 if unknown.
+     */
+    public int getEnd() {
+        return end;
+    }
     
 }
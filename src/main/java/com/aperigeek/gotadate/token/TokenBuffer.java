@@ -0,0 +1,232 @@
+/*
+ * This file is part of gotadate.
+ *
+ * gotadate is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * gotadate is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with gotadate.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.aperigeek.gotadate.token;
+
+/**
+ * A TokenStream storing its tokens in primitive arrays.
+ * 
+ * Each token is stored as a set of ints: its type, its value, its start and
+ * end offsets in the source, its line and its column. The value is the
+ * number itself for NUMBER tokens, the character for SEPARATOR tokens and
+ * the matched keyword for STRING tokens. No object is created per token.
+ * 
+ * Tokens are kept in circular arrays, which only hold the current token and
+ * the tokens looked ahead. The arrays grow if a deeper look ahead is
+ * requested, and are reused for the whole stream.
+ * 
+ * @author Vivien Barousse
+ */
+public class TokenBuffer implements TokenStream {
+    
+    private static final TokenType[] TYPES = TokenType.values();
+    
+    private static final Keyword[] KEYWORDS = Keyword.values();
+    
+    private static final int INITIAL_CAPACITY = 8;
+    
+    private TokenSource source;
+    
+    private Keywords keywords;
+    
+    private byte[] types;
+    
+    private int[] values;
+    
+    private int[] starts;
+    
+    private int[] ends;
+    
+    private int[] lines;
+    
+    private int[] cols;
+    
+    private int mask;
+    
+    private int head;
+    
+    private int size;
+    
+    private boolean eof;
+
+    public TokenBuffer(TokenSource source) {
+        this(source, Keywords.getDefault());
+    }
+
+    public TokenBuffer(TokenSource source, Keywords keywords) {
+        this.source = source;
+        this.keywords = keywords;
+        allocate(INITIAL_CAPACITY);
+    }
+    
+    /**
+     * Discards the buffered tokens, and starts reading tokens from the given
+     * source. The arrays are kept, so that a single buffer can be reused for
+     * many inputs.
+     */
+    public void reset(TokenSource source) {
+        this.source = source;
+        this.head = 0;
+        this.size = 0;
+        this.eof = false;
+    }
+    
+    private void allocate(int capacity) {
+        types = new byte[capacity];
+        values = new int[capacity];
+        starts = new int[capacity];
+        ends = new int[capacity];
+        lines = new int[capacity];
+        cols = new int[capacity];
+        mask = capacity - 1;
+    }
+    
+    /**
+     * Appends a token at the end of the buffer. This method is meant to be
+     * called by the TokenSource feeding this buffer.
+     */
+    public void add(TokenType type, int value, int start, int end,
+                    int line, int col) {
+        if (size == types.length) {
+            grow();
+        }
+        
+        int index = (head + size) & mask;
+        types[index] = (byte) type.ordinal();
+        values[index] = value;
+        starts[index] = start;
+        ends[index] = end;
+        lines[index] = line;
+        cols[index] = col;
+        size++;
+    }
+    
+    /**
+     * Appends a STRING token at the end of the buffer.
+     * 
+     * @param keyword the keyword matched by the token, or null
+     */
+    public void add(Keyword keyword, int start, int end, int line, int col) {
+        int value = keyword == null ? 0 : keyword.ordinal() + 1;
+        add(TokenType.STRING, value, start, end, line, col);
+    }
+    
+    private void grow() {
+        byte[] oldTypes = types;
+        int[] oldValues = values, oldStarts = starts, oldEnds = ends,
+                oldLines = lines, oldCols = cols;
+        int oldMask = mask;
+        
+        allocate(oldTypes.length * 2);
+        for (int i = 0; i < size; i++) {
+            int from = (head + i) & oldMask;
+            types[i] = oldTypes[from];
+            values[i] = oldValues[from];
+            starts[i] = oldStarts[from];
+            ends[i] = oldEnds[from];
+            lines[i] = oldLines[from];
+            cols[i] = oldCols[from];
+        }
+        head = 0;
+    }
+    
+    /**
+     * Makes sure the i-th token is buffered, if it exists.
+     * 
+     * @return the index of the i-th token in the arrays, or -1 if the end
+     * of input is reached before it
+     */
+    protected int fill(int i) throws TokenizerException {
+        while (size <= i) {
+            if (eof || !source.next(this, keywords)) {
+                eof = true;
+                return -1;
+            }
+        }
+        return (head + i) & mask;
+    }
+    
+    /**
+     * Returns the index of the i-th token, failing if it doesn't exist.
+     * 
+     * As filling the buffer may reallocate the arrays, the index must be
+     * computed before reading any of them.
+     */
+    private int index(int i) throws TokenizerException {
+        int index = fill(i);
+        if (index < 0) {
+            throw new IllegalStateException("No token at " + i);
+        }
+        return index;
+    }
+
+    public TokenType getType(int i) throws TokenizerException {
+        int index = fill(i);
+        return index < 0 ? null : TYPES[types[index]];
+    }
+
+    public int getInt(int i) throws TokenizerException {
+        int index = index(i);
+        return values[index];
+    }
+
+    public char getChar(int i) throws TokenizerException {
+        int index = index(i);
+        return (char) values[index];
+    }
+
+    public Keyword getKeyword(int i) throws TokenizerException {
+        int index = index(i);
+        int value = values[index];
+        return value == 0 ? null : KEYWORDS[value - 1];
+    }
+    
+    /**
+     * Returns the offset, in the source, of the first character of the i-th
+     * token.
+     */
+    public int getStart(int i) throws TokenizerException {
+        int index = index(i);
+        return starts[index];
+    }
+    
+    /**
+     * Returns the offset, in the source, after the last character of the
+     * i-th token.
+     */
+    public int getEnd(int i) throws TokenizerException {
+        int index = index(i);
+        return ends[index];
+    }
+    
+    public int getLine(int i) throws TokenizerException {
+        int index = index(i);
+        return lines[index];
+    }
+    
+    public int getCol(int i) throws TokenizerException {
+        int index = index(i);
+        return cols[index];
+    }
+
+    public void advance() throws TokenizerException {
+        if (fill(0) >= 0) {
+            head = (head + 1) & mask;
+            size--;
+        }
+    }
+    
+}
@@ -0,0 +1,37 @@
+/*
+ * This file is part of gotadate.
+ *
+ * gotadate is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * gotadate is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with gotadate.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.aperigeek.gotadate.token;
+
+/**
+ * A tokenizer able to write its tokens directly to a TokenBuffer, without
+ * creating Token objects.
+ * 
+ * @author Vivien Barousse
+ */
+public interface TokenSource {
+    
+    /**
+     * Reads the next token and appends it to the given buffer.
+     * 
+     * @param buffer the buffer to append the token to
+     * @param keywords keywords to recognize in STRING tokens
+     * @return false if the end of input has been reached, true otherwise
+     */
+    public boolean next(TokenBuffer buffer, Keywords keywords)
+            throws TokenizerException;
+    
+}
@@ -0,0 +1,71 @@
+/*
+ * This file is part of gotadate.
+ *
+ * gotadate is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * gotadate is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with gotadate.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.aperigeek.gotadate.token;
+
+/**
+ * Sequential access to tokens, with look ahead.
+ * 
+ * Token are designated by their position relative to the current token:
+ * 0 is the current token, 1 the token after it, and so on. Unlike
+ * Tokenizer, a TokenStream exposes the attributes of each token directly,
+ * so that implementations don't need to create a Token object for each of
+ * them.
+ * 
+ * @author Vivien Barousse
+ */
+public interface TokenStream {
+    
+    /**
+     * Returns the type of the i-th token, or null if the end of input is
+     * reached before it.
+     */
+    public TokenType getType(int i) throws TokenizerException;
+    
+    /**
+     * Returns the value of the i-th token, which must be a NUMBER.
+     */
+    public int getInt(int i) throws TokenizerException;
+    
+    /**
+     * Returns the value of the i-th token, which must be a SEPARATOR.
+     */
+    public char getChar(int i) throws TokenizerException;
+    
+    /**
+     * Returns the keyword matched by the i-th token, which must be a STRING,
+     * or null if the token isn't a keyword.
+     */
+    public Keyword getKeyword(int i) throws TokenizerException;
+    
+    /**
+     * Returns the offset, in the source, of the first character of the i-th
+     * token, or -1 if unknown.
+     */
+    public int getStart(int i) throws TokenizerException;
+    
+    /**
+     * Returns the offset, in the source, after the last character of the
+     * i-th token, or -1 if unknown.
+     */
+    public int getEnd(int i) throws TokenizerException;
+    
+    /**
+     * Moves to the next token.
+     */
+    public void advance() throws TokenizerException;
+    
+}
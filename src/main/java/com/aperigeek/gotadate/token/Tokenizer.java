@@ -24,4 +24,18 @@ public interface Tokenizer {
     
     public Token<? extends Object> next() throws TokenizerException;
     
+    /**
+     * Reads the next token, reusing the given token object if possible.
+     * 
+     * The given token belongs to the tokenizer after this call, and mustn't
+     * be used by the caller anymore, unless it is the returned token.
+     * 
+     * @param reuse a token that is no longer used
+     * @return the next token, or null at the end of input
+     */
+    public default Token<? extends Object> next(Token<Object> reuse)
+            throws TokenizerException {
+        return next();
+    }
+    
 }
@@ -0,0 +1,204 @@
+/*
+ * This file is part of gotadate.
+ *
+ * gotadate is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * gotadate is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with gotadate.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.aperigeek.gotadate.token;
+
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * The words of a language having a meaning for the parser: month names and
+ * their abbreviations, ordinal suffixes, relative words and am/pm
+ * equivalents.
+ * 
+ * Vocabularies are merged into a single Keywords instance, so that a text
+ * is scanned once whatever the number of languages enabled. Words are
+ * matched ignoring case, and accents must be given explicitly: "fevrier"
+ * and "février" are two distinct words.
+ * 
+ * Only single words can be keywords. Relative forms spanning several
+ * words, like the French "il y a 3 jours", aren't recognized.
+ * 
+ * Words which are just as often something else than a date are left out,
+ * since matching ignores case and context: the German "morgen" (tomorrow)
+ * is also the noun "Morgen" (morning) of "Guten Morgen", and the Spanish
+ * "mañana" (tomorrow) also means morning, as in "por la mañana".
+ * 
+ * @author Vivien Barousse
+ */
+public final class Vocabulary {
+    
+    public static final Vocabulary ENGLISH = new Vocabulary(Locale.ENGLISH,
+            words(
+                "january", Keyword.JANUARY, "jan", Keyword.JANUARY,
+                "february", Keyword.FEBRUARY, "feb", Keyword.FEBRUARY,
+                "march", Keyword.MARCH, "mar", Keyword.MARCH,
+                "april", Keyword.APRIL, "apr", Keyword.APRIL,
+                "may", Keyword.MAY,
+                "june", Keyword.JUNE, "jun", Keyword.JUNE,
+                "july", Keyword.JULY, "jul", Keyword.JULY,
+                "august", Keyword.AUGUST, "aug", Keyword.AUGUST,
+                "september", Keyword.SEPTEMBER, "sept", Keyword.SEPTEMBER,
+                "sep", Keyword.SEPTEMBER,
+                "october", Keyword.OCTOBER, "oct", Keyword.OCTOBER,
+                "november", Keyword.NOVEMBER, "nov", Keyword.NOVEMBER,
+                "december", Keyword.DECEMBER, "dec", Keyword.DECEMBER,
+                
+                "st", Keyword.ORDINAL, "nd", Keyword.ORDINAL,
+                "rd", Keyword.ORDINAL, "th", Keyword.ORDINAL,
+                "of", Keyword.OF,
+                
+                "yesterday", Keyword.YESTERDAY,
+                "tomorrow", Keyword.TOMORROW,
+                "days", Keyword.DAYS,
+                "ago", Keyword.AGO,
+                "at", Keyword.AT,
+                "am", Keyword.AM,
+                "pm", Keyword.PM));
+    
+    public static final Vocabulary FRENCH = new Vocabulary(Locale.FRENCH,
+            words(
+                "janvier", Keyword.JANUARY, "janv", Keyword.JANUARY,
+                "février", Keyword.FEBRUARY, "fevrier", Keyword.FEBRUARY,
+                "févr", Keyword.FEBRUARY, "fevr", Keyword.FEBRUARY,
+                "mars", Keyword.MARCH,
+                "avril", Keyword.APRIL, "avr", Keyword.APRIL,
+                "mai", Keyword.MAY,
+                "juin", Keyword.JUNE,
+                "juillet", Keyword.JULY, "juil", Keyword.JULY,
+                "août", Keyword.AUGUST, "aout", Keyword.AUGUST,
+                "septembre", Keyword.SEPTEMBER, "sept", Keyword.SEPTEMBER,
+                "octobre", Keyword.OCTOBER, "oct", Keyword.OCTOBER,
+                "novembre", Keyword.NOVEMBER, "nov", Keyword.NOVEMBER,
+                "décembre", Keyword.DECEMBER, "decembre", Keyword.DECEMBER,
+                "déc", Keyword.DECEMBER, "dec", Keyword.DECEMBER,
+                
+                "er", Keyword.ORDINAL, "re", Keyword.ORDINAL,
+                "e", Keyword.ORDINAL, "ème", Keyword.ORDINAL,
+                "eme", Keyword.ORDINAL,
+                
+                "hier", Keyword.YESTERDAY,
+                "demain", Keyword.TOMORROW,
+                "à", Keyword.AT));
+    
+    public static final Vocabulary GERMAN = new Vocabulary(Locale.GERMAN,
+            words(
+                "januar", Keyword.JANUARY, "jänner", Keyword.JANUARY,
+                "jan", Keyword.JANUARY,
+                "februar", Keyword.FEBRUARY, "feb", Keyword.FEBRUARY,
+                "märz", Keyword.MARCH, "maerz", Keyword.MARCH,
+                "mär", Keyword.MARCH,
+                "april", Keyword.APRIL, "apr", Keyword.APRIL,
+                "mai", Keyword.MAY,
+                "juni", Keyword.JUNE, "jun", Keyword.JUNE,
+                "juli", Keyword.JULY, "jul", Keyword.JULY,
+                "august", Keyword.AUGUST, "aug", Keyword.AUGUST,
+                "september", Keyword.SEPTEMBER, "sept", Keyword.SEPTEMBER,
+                "sep", Keyword.SEPTEMBER,
+                "oktober", Keyword.OCTOBER, "okt", Keyword.OCTOBER,
+                "november", Keyword.NOVEMBER, "nov", Keyword.NOVEMBER,
+                "dezember", Keyword.DECEMBER, "dez", Keyword.DECEMBER,
+                
+                "gestern", Keyword.YESTERDAY,
+                "tage", Keyword.DAYS, "tagen", Keyword.DAYS,
+                "vor", Keyword.BEFORE,
+                "um", Keyword.AT,
+                "vormittags", Keyword.AM,
+                "nachmittags", Keyword.PM, "abends", Keyword.PM));
+    
+    public static final Vocabulary SPANISH = new Vocabulary(
+            new Locale("es"),
+            words(
+                "enero", Keyword.JANUARY, "ene", Keyword.JANUARY,
+                "febrero", Keyword.FEBRUARY, "feb", Keyword.FEBRUARY,
+                "marzo", Keyword.MARCH, "mar", Keyword.MARCH,
+                "abril", Keyword.APRIL, "abr", Keyword.APRIL,
+                "mayo", Keyword.MAY, "may", Keyword.MAY,
+                "junio", Keyword.JUNE, "jun", Keyword.JUNE,
+                "julio", Keyword.JULY, "jul", Keyword.JULY,
+                "agosto", Keyword.AUGUST, "ago", Keyword.AUGUST,
+                "septiembre", Keyword.SEPTEMBER, "setiembre", Keyword.SEPTEMBER,
+                "sept", Keyword.SEPTEMBER, "sep", Keyword.SEPTEMBER,
+                "octubre", Keyword.OCTOBER, "oct", Keyword.OCTOBER,
+                "noviembre", Keyword.NOVEMBER, "nov", Keyword.NOVEMBER,
+                "diciembre", Keyword.DECEMBER, "dic", Keyword.DECEMBER,
+                
+                "º", Keyword.ORDINAL, "ª", Keyword.ORDINAL,
+                "de", Keyword.OF,
+                
+                "ayer", Keyword.YESTERDAY,
+                "días", Keyword.DAYS, "dias", Keyword.DAYS,
+                "hace", Keyword.BEFORE));
+    
+    private final Locale locale;
+    
+    private final Map<String, Keyword> words;
+
+    /**
+     * @param locale language of the words
+     * @param words keywords, by word
+     */
+    public Vocabulary(Locale locale, Map<String, Keyword> words) {
+        this.locale = locale;
+        Map<String, Keyword> lower = new LinkedHashMap<String, Keyword>();
+        for (Map.Entry<String, Keyword> e : words.entrySet()) {
+            if (e.getKey().isEmpty()) {
+                throw new IllegalArgumentException("Empty keyword for "
+                        + e.getValue());
+            }
+            lower.put(e.getKey().toLowerCase(locale), e.getValue());
+        }
+        this.words = Collections.unmodifiableMap(lower);
+    }
+    
+    private static Map<String, Keyword> words(Object... pairs) {
+        Map<String, Keyword> words = new LinkedHashMap<String, Keyword>();
+        for (int i = 0; i < pairs.length; i += 2) {
+            words.put((String) pairs[i], (Keyword) pairs[i + 1]);
+        }
+        return words;
+    }
+    
+    /**
+     * Returns the built-in vocabulary of the language of the given locale.
+     * 
+     * @throws IllegalArgumentException if there is no vocabulary for this
+     * language
+     */
+    public static Vocabulary forLocale(Locale locale) {
+        for (Vocabulary vocabulary : new Vocabulary[] {
+                ENGLISH, FRENCH, GERMAN, SPANISH }) {
+            if (vocabulary.locale.getLanguage().equals(locale.getLanguage())) {
+                return vocabulary;
+            }
+        }
+        throw new IllegalArgumentException("No vocabulary for " + locale);
+    }
+
+    public Locale getLocale() {
+        return locale;
+    }
+
+    /**
+     * Returns the keywords of this vocabulary, by lower case word.
+     */
+    public Map<String, Keyword> getWords() {
+        return words;
+    }
+    
+}
@@ -0,0 +1,105 @@
+/*
+ * This file is part of gotadate.
+ *
+ * gotadate is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * gotadate is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with gotadate.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.aperigeek.gotadate;
+
+import java.time.ZoneId;
+import java.time.ZonedDateTime;
+import java.util.Date;
+import java.util.List;
+
+/**
+ *
+ * @author Vivien Barousse
+ */
+public class DateCacheTest extends TestCase {
+    
+    private static final ZoneId ZONE = ZoneId.of("Europe/Paris");
+    
+    private static final ZonedDateTime NOW =
+            ZonedDateTime.of(1988, 10, 23, 12, 0, 0, 0, ZONE);
+    
+    private final DateExtractor extractor = new DateExtractor();
+    
+    public void testHit() throws Exception {
+        DateCache cache = new DateCache(extractor, 100);
+        
+        List<Date> first = cache.extract("tomorrow at 5pm", NOW);
+        List<Date> second = cache.extract("tomorrow at 5pm", NOW);
+        
+        assertEquals(extractor.extract("tomorrow at 5pm", NOW), first);
+        assertEquals(first, second);
+        assertEquals(1, cache.getHitCount());
+        assertEquals(1, cache.getMissCount());
+        assertEquals(0.5, cache.getHitRate(), 0.0);
+    }
+    
+    public void testSameDay() throws Exception {
+        DateCache cache = new DateCache(extractor, 100);
+        ZonedDateTime evening = NOW.withHour(23);
+        
+        cache.extract("yesterday at 9", NOW);
+        List<Date> cached = cache.extract("yesterday at 9", evening);
+        
+        assertEquals(1, cache.getHitCount());
+        assertEquals(extractor.extract("yesterday at 9", evening), cached);
+    }
+    
+    public void testOtherDayOrZone() throws Exception {
+        DateCache cache = new DateCache(extractor, 100);
+        
+        cache.extract("3 days ago", NOW);
+        List<Date> nextDay = cache.extract("3 days ago", NOW.plusDays(1));
+        ZonedDateTime tokyo = NOW.withZoneSameLocal(ZoneId.of("Asia/Tokyo"));
+        List<Date> otherZone = cache.extract("3 days ago", tokyo);
+        
+        assertEquals(0, cache.getHitCount());
+        assertEquals(extractor.extract("3 days ago", NOW.plusDays(1)), nextDay);
+        assertEquals(extractor.extract("3 days ago", tokyo), otherZone);
+    }
+    
+    public void testNormalizedText() throws Exception {
+        DateCache cache = new DateCache(extractor, 100);
+        
+        cache.extract("Tomorrow  AT 5", NOW);
+        cache.extract(" tomorrow at 5 ", NOW);
+        
+        assertEquals(1, cache.getHitCount());
+        assertEquals("tomorrow at 5", DateCache.normalize("  Tomorrow  AT 5"));
+        assertEquals("a\tb", DateCache.normalize("A\tB"));
+    }
+    
+    public void testEviction() throws Exception {
+        DateCache cache = new DateCache(extractor, 20);
+        for (int i = 0; i < 100; i++) {
+            cache.extract(i + " days ago", NOW);
+        }
+        
+        assertTrue(cache.size() <= 20);
+        cache.clear();
+        assertEquals(0, cache.size());
+    }
+    
+    public void testCachedDatesAreCopies() throws Exception {
+        DateCache cache = new DateCache(extractor, 10);
+        
+        cache.extract("yesterday", NOW).get(0).setTime(0);
+        
+        assertEquals(extractor.extract("yesterday", NOW),
+                cache.extract("yesterday", NOW));
+    }
+    
+}
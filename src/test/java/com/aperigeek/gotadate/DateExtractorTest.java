@@ -0,0 +1,366 @@
+/*
+ * This file is part of gotadate.
+ *
+ * gotadate is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * gotadate is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with gotadate.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.aperigeek.gotadate;
+
+import com.aperigeek.gotadate.parser.DateMatch;
+import com.aperigeek.gotadate.parser.DateSink;
+import com.aperigeek.gotadate.parser.MatchKind;
+import com.aperigeek.gotadate.token.Keywords;
+import java.io.ByteArrayOutputStream;
+import java.io.StringReader;
+import java.lang.ref.WeakReference;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.ZonedDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Date;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.stream.Collectors;
+import javax.tools.JavaCompiler;
+import javax.tools.ToolProvider;
+
+/**
+ *
+ * @author Vivien Barousse
+ */
+public class DateExtractorTest extends TestCase {
+    
+    private static final ZoneId ZONE = ZoneId.of("Europe/Paris");
+    
+    private static final ZonedDateTime NOW =
+            ZonedDateTime.of(1988, 10, 23, 12, 0, 0, 0, ZONE);
+    
+    public void testExtract() throws Exception {
+        DateExtractor extractor = new DateExtractor();
+        List<Date> parsed = extractor.extract("abc 23/10/1988 def", NOW);
+        
+        assertEquals(1, parsed.size());
+        assertEquals(date(1988, 10, 23),
+                parsed.get(0));
+    }
+    
+    public void testExtractRelative() throws Exception {
+        DateExtractor extractor = new DateExtractor();
+        List<Date> parsed = extractor.extract("tomorrow at 10", NOW);
+        
+        assertEquals(1, parsed.size());
+        assertEquals(date(1988, 10, 24, 10, 0),
+                parsed.get(0));
+    }
+    
+    public void testExtractInstant() throws Exception {
+        DateExtractor extractor = new DateExtractor();
+        String text = "23/10/1988, tomorrow at 10 or 3 days ago";
+        
+        assertEquals(extractor.extract(text, NOW),
+                extractor.extract(text, NOW.toInstant(), NOW.getZone()));
+    }
+    
+    public void testExtractDefaultZone() throws Exception {
+        DateExtractor extractor = new DateExtractor();
+        Instant now = NOW.toInstant();
+        
+        assertEquals(extractor.extract("tomorrow at 10",
+                    ZonedDateTime.ofInstant(now, ZoneId.systemDefault())),
+                extractor.extract("tomorrow at 10", now, null));
+    }
+    
+    public void testExtractLocales() throws Exception {
+        DateExtractor extractor = new DateExtractor(Keywords.forLocales(
+                Locale.ENGLISH, Locale.FRENCH, Locale.GERMAN,
+                new Locale("es")));
+        Date october23 = date(1988, 10, 23);
+        
+        assertEquals(Arrays.asList(october23, october23, october23,
+                    october23),
+                extractor.extract("le 23 octobre 1988, am 23 Oktober 1988, "
+                    + "el 23 de octubre de 1988, the 23rd of October", NOW));
+        assertEquals(Arrays.asList(
+                    date(1988, 10, 20),
+                    date(1988, 10, 21),
+                    date(1988, 10, 22, 10, 0),
+                    date(1988, 10, 24, 9, 0)),
+                extractor.extract("vor 3 Tagen, hace 2 días, "
+                    + "hier à 10, demain um 9", NOW));
+    }
+    
+    public void testExtractLocalesMorning() throws Exception {
+        DateExtractor extractor = new DateExtractor(Keywords.forLocales(
+                Locale.GERMAN, new Locale("es")));
+        
+        assertTrue(extractor.extract("Guten Morgen,\nbis morgen", NOW)
+                .isEmpty());
+        assertTrue(extractor.extract("Nos vemos por la mañana", NOW)
+                .isEmpty());
+    }
+    
+    public void testExtractWithZone() throws Exception {
+        DateExtractor extractor = new DateExtractor();
+        ZoneId tokyo = ZoneId.of("Asia/Tokyo");
+        List<Date> parsed = extractor.extract("yesterday",
+                NOW.toInstant(), tokyo);
+        
+        assertEquals(1, parsed.size());
+        assertEquals(Date.from(LocalDate.of(1988, 10, 22).atStartOfDay(tokyo)
+                .toInstant()), parsed.get(0));
+    }
+    
+    public void testSharedBetweenThreads() throws Exception {
+        final DateExtractor extractor = new DateExtractor();
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        try {
+            List<Future<List<Date>>> results = new ArrayList<Future<List<Date>>>();
+            for (int i = 0; i < 64; i++) {
+                final ZonedDateTime now = NOW.plusDays(i);
+                results.add(executor.submit(new Callable<List<Date>>() {
+                    public List<Date> call() throws Exception {
+                        return extractor.extract("see you tomorrow", now);
+                    }
+                }));
+            }
+            
+            for (int i = 0; i < results.size(); i++) {
+                List<Date> parsed = results.get(i).get();
+                assertEquals(1, parsed.size());
+                assertEquals(Date.from(NOW.plusDays(i + 1).toLocalDate()
+                        .atStartOfDay(ZONE).toInstant()), parsed.get(0));
+            }
+        } finally {
+            executor.shutdown();
+        }
+    }
+    
+    public void testExtractToSink() throws Exception {
+        DateExtractor extractor = new DateExtractor();
+        final List<Date> received = new ArrayList<Date>();
+        boolean complete = extractor.extract("yesterday, today, tomorrow",
+                NOW, new DateSink() {
+            public boolean accept(Date date) {
+                received.add(date);
+                return true;
+            }
+        });
+        
+        assertTrue(complete);
+        assertEquals(2, received.size());
+    }
+    
+    public void testExtractToSinkStops() throws Exception {
+        DateExtractor extractor = new DateExtractor();
+        final List<Date> received = new ArrayList<Date>();
+        boolean complete = extractor.extract("yesterday, today, tomorrow",
+                NOW, new DateSink() {
+            public boolean accept(Date date) {
+                received.add(date);
+                return false;
+            }
+        });
+        
+        assertFalse(complete);
+        assertEquals(1, received.size());
+        assertEquals(date(1988, 10, 22),
+                received.get(0));
+    }
+    
+    public void testFindFirst() throws Exception {
+        DateExtractor extractor = new DateExtractor();
+        
+        assertEquals(date(1988, 10, 24),
+                extractor.findFirst("see you tomorrow, not 23/10/1988", NOW));
+        assertNull(extractor.findFirst("no date here", NOW));
+    }
+    
+    public void testContainsDate() throws Exception {
+        DateExtractor extractor = new DateExtractor();
+        
+        assertTrue(extractor.containsDate("see you tomorrow", NOW));
+        assertFalse(extractor.containsDate("see you", NOW));
+    }
+    
+    public void testExtractMatches() throws Exception {
+        DateExtractor extractor = new DateExtractor();
+        String text = "from 23/10/1988 to\ntomorrow at 10";
+        
+        List<DateMatch> matches = extractor.extractMatches(text, NOW);
+        assertEquals(2, matches.size());
+        assertEquals(new DateMatch(
+                date(1988, 10, 23),
+                MatchKind.NUMERIC_DATE, 5, 15), matches.get(0));
+        assertEquals(new DateMatch(date(1988, 10, 24, 10, 0),
+                MatchKind.RELATIVE, 19, 33), matches.get(1));
+        
+        assertEquals(matches, extractor.extractMatches(
+                new StringReader(text), NOW));
+    }
+    
+    public void testExtractBytes() throws Exception {
+        DateExtractor extractor = new DateExtractor(
+                Keywords.forLocales(Locale.ENGLISH, Locale.FRENCH));
+        String text = "Réunion le 23 août 1988 à 10, puis demain";
+        ByteBuffer bytes = ByteBuffer.wrap(text.getBytes(StandardCharsets.UTF_8));
+        
+        assertEquals(extractor.extract(text, NOW),
+                extractor.extract(bytes, NOW));
+        assertEquals(0, bytes.position());
+        
+        List<DateMatch> matches = extractor.extractMatches(bytes, NOW);
+        assertEquals(2, matches.size());
+        assertEquals(text.getBytes(StandardCharsets.UTF_8).length,
+                matches.get(1).getEnd());
+        // "é" takes two bytes
+        assertEquals(text.indexOf("23") + 1, matches.get(0).getStart());
+    }
+    
+    public void testExtractAll() throws Exception {
+        DateExtractor extractor = new DateExtractor();
+        String[] texts = {
+            "see you tomorrow", "no date here", "", "23/10/1988 at 10",
+            "yesterday or tomorrow"
+        };
+        
+        List<List<Date>> parsed = extractor.extractAll(texts, NOW);
+        
+        assertEquals(texts.length, parsed.size());
+        for (int i = 0; i < texts.length; i++) {
+            assertEquals(extractor.extract(texts[i], NOW), parsed.get(i));
+        }
+        assertEquals(parsed, extractor.extractAll(texts, NOW));
+    }
+    
+    public void testExtractAllReleasesTexts() throws Exception {
+        DateExtractor extractor = new DateExtractor();
+        StringBuilder text = new StringBuilder("see you tomorrow");
+        WeakReference<StringBuilder> ref =
+                new WeakReference<StringBuilder>(text);
+        
+        extractor.extractAll(Arrays.asList(text), NOW);
+        text = null;
+        for (int i = 0; i < 10 && ref.get() != null; i++) {
+            System.gc();
+            Thread.sleep(10);
+        }
+        assertNull(ref.get());
+    }
+    
+    public void testStream() throws Exception {
+        DateExtractor extractor = new DateExtractor();
+        String text = "tomorrow, yesterday and 23/10/1988";
+        
+        List<Date> dates = extractor.stream(text, NOW)
+                .map(DateMatch::getDate)
+                .collect(Collectors.toList());
+        assertEquals(extractor.extract(text, NOW), dates);
+    }
+    
+    public void testStreamIsLazy() throws Exception {
+        DateExtractor extractor = new DateExtractor();
+        int[] read = new int[1];
+        CharSequence text = new CountingSequence("tomorrow and then some "
+                + "words, but no date", read);
+        
+        DateMatch first = extractor.stream(text, NOW).findFirst().get();
+        assertEquals(date(1988, 10, 24),
+                first.getDate());
+        assertTrue(read[0] < text.length());
+    }
+    
+    public void testCompilesWithoutJoda() throws Exception {
+        JavaCompiler compiler = ToolProvider.getSystemJavaCompiler();
+        if (compiler == null) {
+            // Running on a JRE
+            return;
+        }
+        Path dir = Files.createTempDirectory("gotadate");
+        Path source = dir.resolve("Caller.java");
+        Files.write(source, Arrays.asList(
+                "import com.aperigeek.gotadate.DateExtractor;",
+                "public class Caller {",
+                "    Object call() throws Exception {",
+                "        return new DateExtractor().extract(\"23/10/1988\",",
+                "                java.time.ZonedDateTime.now());",
+                "    }",
+                "}"));
+        String classes = Paths.get(DateExtractor.class.getProtectionDomain()
+                .getCodeSource().getLocation().toURI()).toString();
+        ByteArrayOutputStream errors = new ByteArrayOutputStream();
+        
+        try {
+            int status = compiler.run(null, null, errors,
+                    "-classpath", classes, "-d", dir.toString(),
+                    source.toString());
+            assertEquals(errors.toString(), 0, status);
+        } finally {
+            Files.deleteIfExists(dir.resolve("Caller.class"));
+            Files.delete(source);
+            Files.delete(dir);
+        }
+    }
+    
+    private static Date date(int year, int month, int day) {
+        return Date.from(LocalDate.of(year, month, day).atStartOfDay(ZONE)
+                .toInstant());
+    }
+    
+    private static Date date(int year, int month, int day, int hour,
+                             int minute) {
+        return Date.from(LocalDateTime.of(year, month, day, hour, minute)
+                .atZone(ZONE).toInstant());
+    }
+    
+    /**
+     * Records how far the text has been read.
+     */
+    private static class CountingSequence implements CharSequence {
+        
+        private final String text;
+        
+        private final int[] read;
+
+        CountingSequence(String text, int[] read) {
+            this.text = text;
+            this.read = read;
+        }
+
+        public int length() {
+            return text.length();
+        }
+
+        public char charAt(int index) {
+            read[0] = Math.max(read[0], index + 1);
+            return text.charAt(index);
+        }
+
+        public CharSequence subSequence(int start, int end) {
+            return new CountingSequence(text.substring(start, end), read);
+        }
+        
+    }
+    
+}
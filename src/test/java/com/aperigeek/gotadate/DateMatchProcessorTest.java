@@ -0,0 +1,257 @@
+/*
+ * This file is part of gotadate.
+ *
+ * gotadate is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * gotadate is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with gotadate.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.aperigeek.gotadate;
+
+import com.aperigeek.gotadate.parser.DateMatch;
+import com.aperigeek.gotadate.token.Keywords;
+import java.time.ZoneId;
+import java.time.ZonedDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Flow;
+import java.util.concurrent.SubmissionPublisher;
+import java.util.concurrent.TimeUnit;
+
+/**
+ *
+ * @author Vivien Barousse
+ */
+public class DateMatchProcessorTest extends TestCase {
+    
+    private static final ZoneId ZONE = ZoneId.of("Europe/Paris");
+    
+    private static final ZonedDateTime NOW =
+            ZonedDateTime.of(1988, 10, 23, 12, 0, 0, 0, ZONE);
+    
+    private static final String[] CHUNKS = {
+        "see you on 23/1", "0/1988 at 5", "pm, or ", "tomorrow\n",
+        "lorem ipsum 12 march 1st ", "yesterday at 10:30",
+    };
+    
+    private final DateExtractor extractor = new DateExtractor(
+            Keywords.forLocales(Locale.ENGLISH, Locale.FRENCH));
+    
+    public void testMatches() throws Exception {
+        ChunkPublisher publisher = new ChunkPublisher(CHUNKS);
+        DateMatchProcessor processor = extractor.processor(NOW);
+        Collector collector = new Collector(Long.MAX_VALUE);
+        publisher.subscribe(processor);
+        processor.subscribe(collector);
+        
+        assertTrue(collector.completed);
+        assertNull(collector.error);
+        assertEquals(extractor.extractMatches(String.join("", CHUNKS), NOW),
+                collector.matches);
+    }
+    
+    public void testNoReadWithoutDemand() throws Exception {
+        ChunkPublisher publisher = new ChunkPublisher(CHUNKS);
+        DateMatchProcessor processor = extractor.processor(NOW);
+        Collector collector = new Collector(0);
+        publisher.subscribe(processor);
+        processor.subscribe(collector);
+        assertEquals(0, publisher.requested);
+        
+        collector.subscription.request(1);
+        assertEquals(1, collector.matches.size());
+        long requested = publisher.requested;
+        assertTrue(requested > 0);
+        
+        // The remaining matches are buffered, nothing more is read
+        assertFalse(collector.completed);
+        assertEquals(requested, publisher.requested);
+        
+        collector.subscription.request(Long.MAX_VALUE);
+        assertTrue(collector.completed);
+        assertEquals(extractor.extractMatches(String.join("", CHUNKS), NOW),
+                collector.matches);
+    }
+    
+    public void testBatchesSmallChunks() throws Exception {
+        String text = "see you on 23/10/1988 at 5pm, or tomorrow";
+        String[] chunks = new String[text.length()];
+        for (int i = 0; i < chunks.length; i++) {
+            chunks[i] = text.substring(i, i + 1);
+        }
+        ChunkPublisher publisher = new ChunkPublisher(chunks);
+        DateMatchProcessor processor = new DateMatchProcessor(
+                extractor, NOW, 8, 4);
+        Collector collector = new Collector(Long.MAX_VALUE);
+        publisher.subscribe(processor);
+        processor.subscribe(collector);
+        
+        assertTrue(collector.completed);
+        assertEquals(extractor.extractMatches(text, NOW), collector.matches);
+        // Chunks are requested by batches
+        assertEquals((chunks.length + 3) / 4, publisher.requests);
+    }
+    
+    public void testCancel() throws Exception {
+        ChunkPublisher publisher = new ChunkPublisher(CHUNKS);
+        DateMatchProcessor processor = extractor.processor(NOW);
+        Collector collector = new Collector(1);
+        publisher.subscribe(processor);
+        processor.subscribe(collector);
+        assertEquals(1, collector.matches.size());
+        
+        collector.subscription.cancel();
+        assertTrue(publisher.cancelled);
+        collector.subscription.request(10);
+        assertEquals(1, collector.matches.size());
+        assertFalse(collector.completed);
+    }
+    
+    public void testUpstreamError() throws Exception {
+        DateMatchProcessor processor = extractor.processor(NOW);
+        Collector collector = new Collector(Long.MAX_VALUE);
+        processor.subscribe(collector);
+        processor.onError(new IllegalStateException());
+        
+        assertTrue(collector.error instanceof IllegalStateException);
+        assertFalse(collector.completed);
+    }
+    
+    public void testSingleSubscriber() throws Exception {
+        DateMatchProcessor processor = extractor.processor(NOW);
+        processor.subscribe(new Collector(0));
+        Collector second = new Collector(0);
+        processor.subscribe(second);
+        
+        assertTrue(second.error instanceof IllegalStateException);
+    }
+    
+    public void testAsynchronous() throws Exception {
+        Collector collector = new Collector(1) {
+            @Override
+            public void onNext(DateMatch item) {
+                super.onNext(item);
+                subscription.request(1);
+            }
+        };
+        DateMatchProcessor processor = extractor.processor(NOW);
+        processor.subscribe(collector);
+        
+        StringBuilder text = new StringBuilder();
+        try (SubmissionPublisher<CharSequence> publisher =
+                new SubmissionPublisher<CharSequence>()) {
+            publisher.subscribe(processor);
+            for (int i = 0; i < 200; i++) {
+                String chunk = CHUNKS[i % CHUNKS.length];
+                text.append(chunk);
+                publisher.submit(chunk);
+            }
+        }
+        
+        assertTrue(collector.await());
+        assertNull(collector.error);
+        assertEquals(extractor.extractMatches(text.toString(), NOW),
+                collector.matches);
+    }
+    
+    /**
+     * Publishes its chunks synchronously, on request.
+     */
+    private static class ChunkPublisher
+            implements Flow.Publisher<CharSequence> {
+        
+        private final String[] chunks;
+        
+        private int next;
+        
+        private long requested;
+        
+        private int requests;
+        
+        private boolean cancelled;
+
+        public ChunkPublisher(String[] chunks) {
+            this.chunks = chunks;
+        }
+
+        public void subscribe(final Flow.Subscriber<? super CharSequence> s) {
+            s.onSubscribe(new Flow.Subscription() {
+                public void request(long n) {
+                    requested += n;
+                    requests++;
+                    for (long i = 0; i < n && next < chunks.length
+                            && !cancelled; i++) {
+                        s.onNext(chunks[next++]);
+                    }
+                    if (next == chunks.length && !cancelled) {
+                        cancelled = true;
+                        s.onComplete();
+                    }
+                }
+
+                public void cancel() {
+                    cancelled = true;
+                }
+            });
+        }
+        
+    }
+    
+    private static class Collector implements Flow.Subscriber<DateMatch> {
+        
+        private final long initialRequest;
+        
+        protected Flow.Subscription subscription;
+        
+        private final List<DateMatch> matches =
+                new ArrayList<DateMatch>();
+        
+        private volatile boolean completed;
+        
+        private volatile Throwable error;
+        
+        private final CountDownLatch done =
+                new CountDownLatch(1);
+
+        public Collector(long initialRequest) {
+            this.initialRequest = initialRequest;
+        }
+
+        public void onSubscribe(Flow.Subscription subscription) {
+            this.subscription = subscription;
+            if (initialRequest > 0) {
+                subscription.request(initialRequest);
+            }
+        }
+
+        public void onNext(DateMatch item) {
+            matches.add(item);
+        }
+
+        public void onError(Throwable throwable) {
+            error = throwable;
+            done.countDown();
+        }
+
+        public void onComplete() {
+            completed = true;
+            done.countDown();
+        }
+        
+        public boolean await() throws InterruptedException {
+            return done.await(10, TimeUnit.SECONDS);
+        }
+        
+    }
+    
+}
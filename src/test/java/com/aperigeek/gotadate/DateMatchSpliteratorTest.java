@@ -0,0 +1,114 @@
+/*
+ * This file is part of gotadate.
+ *
+ * gotadate is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * gotadate is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with gotadate.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.aperigeek.gotadate;
+
+import com.aperigeek.gotadate.parser.AnchorScanner;
+import com.aperigeek.gotadate.parser.DateMatch;
+import com.aperigeek.gotadate.token.Keywords;
+import java.time.ZoneId;
+import java.time.ZonedDateTime;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.Random;
+import java.util.Spliterator;
+import java.util.stream.Collectors;
+import java.util.stream.StreamSupport;
+
+/**
+ *
+ * @author Vivien Barousse
+ */
+public class DateMatchSpliteratorTest extends TestCase {
+    
+    private static final ZoneId ZONE = ZoneId.of("Europe/Paris");
+    
+    private static final ZonedDateTime NOW =
+            ZonedDateTime.of(1988, 10, 23, 12, 0, 0, 0, ZONE);
+    
+    private static final String[] WORDS = {
+        "23/10/1988", "10:30", "at", "5pm", "tomorrow", "yesterday", "3",
+        "days", "ago", "october", "23rd", "1988", "/", ":", "\n", "\r\n",
+        "lorem", "ipsum", "12", "march", "1st", "at 10"
+    };
+    
+    public void testMatchOffsets() throws Exception {
+        String text = "see you tomorrow at 5pm, or on 23/10/1988";
+        List<DateMatch> matches = collect(spliterator(text, 16));
+        
+        assertEquals(2, matches.size());
+        assertEquals("tomorrow at 5pm", text.substring(
+                matches.get(0).getStart(), matches.get(0).getEnd()));
+        assertEquals("23/10/1988", text.substring(
+                matches.get(1).getStart(), matches.get(1).getEnd()));
+    }
+    
+    public void testSplitAtLineBreak() throws Exception {
+        String text = "tomorrow at\n5pm";
+        Spliterator<DateMatch> suffix = spliterator(text, 2);
+        Spliterator<DateMatch> prefix = suffix.trySplit();
+        
+        assertNotNull(prefix);
+        assertEquals(1, collect(prefix).size());
+        assertEquals(1, collect(suffix).size());
+    }
+    
+    public void testNoLineBreak() throws Exception {
+        assertNull(spliterator("tomorrow at 5pm", 2).trySplit());
+    }
+    
+    public void testImmutableOnlyForStrings() throws Exception {
+        assertTrue(spliterator("23/10/1988", 2)
+                .hasCharacteristics(Spliterator.IMMUTABLE));
+        assertFalse(spliterator(new StringBuilder("23/10/1988"), 2)
+                .hasCharacteristics(Spliterator.IMMUTABLE));
+        assertTrue(spliterator(new StringBuilder("23/10/1988"), 2)
+                .hasCharacteristics(Spliterator.ORDERED));
+    }
+    
+    public void testSplitGivesSameDates() throws Exception {
+        StringBuilder text = new StringBuilder();
+        Random random = new Random(42);
+        for (int i = 0; i < 5000; i++) {
+            text.append(WORDS[random.nextInt(WORDS.length)]);
+            text.append(random.nextInt(4) == 0 ? "" : " ");
+        }
+        
+        List<Date> expected = new DateExtractor().extract(text, NOW);
+        for (int minSplitLength = 2; minSplitLength < 8192; minSplitLength *= 8) {
+            List<Date> dates = StreamSupport.stream(
+                    spliterator(text, minSplitLength), true)
+                    .map(DateMatch::getDate)
+                    .collect(Collectors.toList());
+            assertEquals(expected, dates);
+        }
+    }
+    
+    private static Spliterator<DateMatch> spliterator(CharSequence text,
+                                                      int minSplitLength) {
+        return new DateMatchSpliterator(text, 0, text.length(),
+                Keywords.getDefault(), AnchorScanner.getDefault(), NOW, null,
+                minSplitLength);
+    }
+    
+    private static List<DateMatch> collect(Spliterator<DateMatch> spliterator) {
+        List<DateMatch> matches = new ArrayList<DateMatch>();
+        spliterator.forEachRemaining(matches::add);
+        return matches;
+    }
+    
+}
@@ -0,0 +1,125 @@
+/*
+ * This file is part of gotadate.
+ *
+ * gotadate is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * gotadate is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with gotadate.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.aperigeek.gotadate;
+
+import com.aperigeek.gotadate.parser.DateMatch;
+import java.time.ZoneId;
+import java.time.ZonedDateTime;
+import java.util.List;
+import java.util.Random;
+
+/**
+ *
+ * @author Vivien Barousse
+ */
+public class IncrementalExtractorTest extends TestCase {
+    
+    private static final ZoneId ZONE = ZoneId.of("Europe/Paris");
+    
+    private static final ZonedDateTime NOW =
+            ZonedDateTime.of(1988, 10, 23, 12, 0, 0, 0, ZONE);
+    
+    private static final String[] WORDS = {
+        "23/10/1988", "10:30", "at", "5pm", "tomorrow", "yesterday", "3",
+        "days", "ago", "october", "23rd", "1988", "/", ":", "\n", "\r\n",
+        "lorem", "ipsum", "12", "march", "1st", "at 10", "2", "3"
+    };
+    
+    private final DateExtractor extractor = new DateExtractor();
+    
+    public void testEditKeepsOtherMatches() throws Exception {
+        String text = "on 23/10/1988\nsee you tomorrow\nat 5pm";
+        IncrementalExtractor incremental = extractor.incremental(text, NOW);
+        assertEquals(3, incremental.getMatches().size());
+        
+        int offset = text.indexOf("tomorrow");
+        List<DateMatch> window = incremental.edit(offset, "tomorrow".length(),
+                "3 days ago");
+        
+        assertEquals(1, window.size());
+        assertEquals("3 days ago", slice(incremental, window.get(0)));
+        List<DateMatch> matches = incremental.getMatches();
+        assertEquals(3, matches.size());
+        assertEquals("23/10/1988", slice(incremental, matches.get(0)));
+        assertEquals("at 5pm", slice(incremental, matches.get(2)));
+    }
+    
+    public void testEditLineBreaks() throws Exception {
+        String text = "from 23/10\n/1988 to tomorrow";
+        IncrementalExtractor incremental = extractor.incremental(text, NOW);
+        
+        // Joining the lines completes the first date
+        incremental.edit(text.indexOf('\n'), 1, "");
+        List<DateMatch> matches = incremental.getMatches();
+        assertEquals(2, matches.size());
+        assertEquals("23/10/1988", slice(incremental, matches.get(0)));
+        
+        // Splitting them again breaks it
+        incremental.edit(text.indexOf('\n'), 0, "\n");
+        assertEquals(extractor.extractMatches(text, NOW),
+                incremental.getMatches());
+    }
+    
+    public void testSameMatchesAsFullParse() throws Exception {
+        Random random = new Random(42);
+        StringBuilder text = new StringBuilder();
+        for (int i = 0; i < 200; i++) {
+            text.append(WORDS[random.nextInt(WORDS.length)]).append(' ');
+        }
+        IncrementalExtractor incremental = extractor.incremental(text, NOW);
+        
+        for (int n = 0; n < 500; n++) {
+            int offset = random.nextInt(text.length() + 1);
+            int removed = Math.min(random.nextInt(12), text.length() - offset);
+            String inserted = random.nextInt(3) == 0 ? ""
+                    : WORDS[random.nextInt(WORDS.length)];
+            
+            text.replace(offset, offset + removed, inserted);
+            incremental.edit(offset, removed, inserted);
+            
+            assertEquals(text.toString(), incremental.getText().toString());
+            assertEquals(extractor.extractMatches(text, NOW),
+                    incremental.getMatches());
+        }
+    }
+    
+    public void testSetNow() throws Exception {
+        IncrementalExtractor incremental = extractor.incremental(
+                "see you tomorrow", NOW);
+        incremental.setNow(NOW.plusDays(1));
+        
+        assertEquals(extractor.extractMatches("see you tomorrow",
+                NOW.plusDays(1)), incremental.getMatches());
+    }
+    
+    public void testInvalidEdit() throws Exception {
+        IncrementalExtractor incremental = extractor.incremental("abc", NOW);
+        try {
+            incremental.edit(2, 2, "x");
+            fail();
+        } catch (IndexOutOfBoundsException ex) {
+            // Expected
+        }
+    }
+    
+    private static String slice(IncrementalExtractor incremental,
+                                DateMatch match) {
+        return incremental.getText().subSequence(match.getStart(),
+                match.getEnd()).toString();
+    }
+    
+}
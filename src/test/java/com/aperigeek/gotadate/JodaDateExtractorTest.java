@@ -0,0 +1,98 @@
+/*
+ * This file is part of gotadate.
+ *
+ * gotadate is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * gotadate is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with gotadate.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.aperigeek.gotadate;
+
+import com.aperigeek.gotadate.parser.DateMatch;
+import com.aperigeek.gotadate.parser.JodaSupport;
+import java.io.StringReader;
+import java.time.ZonedDateTime;
+import java.util.Date;
+import java.util.List;
+import java.util.stream.Collectors;
+import org.joda.time.DateTime;
+import org.joda.time.DateTimeZone;
+import org.joda.time.LocalDate;
+
+/**
+ *
+ * @author Vivien Barousse
+ */
+public class JodaDateExtractorTest extends TestCase {
+    
+    private static final DateTimeZone ZONE = DateTimeZone.forID("Europe/Paris");
+    
+    private static final DateTime NOW = new DateTime(1988, 10, 23, 12, 0, ZONE);
+    
+    private static final String TEXT =
+            "23/10/1988, tomorrow at 10 or 3 days ago";
+    
+    private final DateExtractor extractor = new DateExtractor();
+    
+    private final JodaDateExtractor joda = new JodaDateExtractor(extractor);
+    
+    private final ZonedDateTime now = JodaSupport.toZonedDateTime(NOW);
+    
+    public void testSameAsJavaTime() throws Exception {
+        assertEquals(extractor.extract(TEXT, now), joda.extract(TEXT, NOW));
+        assertEquals(extractor.extractMatches(TEXT, now),
+                joda.extractMatches(TEXT, NOW));
+        assertEquals(extractor.extractMatches(TEXT, now),
+                joda.extractMatches(new StringReader(TEXT), NOW));
+        assertEquals(extractor.extract(TEXT, now),
+                joda.stream(TEXT, NOW).map(DateMatch::getDate)
+                        .collect(Collectors.toList()));
+        assertEquals(extractor.extractAll(new String[] { TEXT, "" }, now),
+                joda.extractAll(new String[] { TEXT, "" }, NOW));
+        assertEquals(extractor.findFirst(TEXT, now),
+                joda.findFirst(TEXT, NOW));
+        assertTrue(joda.containsDate(TEXT, NOW));
+    }
+    
+    public void testExtractRelative() throws Exception {
+        List<Date> parsed = joda.extract("tomorrow at 10", NOW);
+        
+        assertEquals(1, parsed.size());
+        assertEquals(new DateTime(1988, 10, 24, 10, 0, ZONE).toDate(),
+                parsed.get(0));
+    }
+    
+    public void testExtractWithZone() throws Exception {
+        DateTimeZone tokyo = DateTimeZone.forID("Asia/Tokyo");
+        List<Date> parsed = joda.extract("yesterday", NOW.toDate(), tokyo);
+        
+        assertEquals(1, parsed.size());
+        assertEquals(new LocalDate(1988, 10, 22).toDateMidnight(tokyo).toDate(),
+                parsed.get(0));
+    }
+    
+    public void testShortZoneId() throws Exception {
+        DateTimeZone est = DateTimeZone.forID("EST");
+        List<Date> parsed = joda.extract("tomorrow",
+                new DateTime(1988, 10, 23, 12, 0, est));
+        
+        assertEquals(new LocalDate(1988, 10, 24).toDateMidnight(est).toDate(),
+                parsed.get(0));
+    }
+    
+    public void testCache() throws Exception {
+        DateCache cache = new DateCache(extractor, 10);
+        
+        assertEquals(extractor.extract(TEXT, now),
+                JodaDateExtractor.extract(cache, TEXT, NOW));
+    }
+    
+}
@@ -0,0 +1,137 @@
+/*
+ * This file is part of gotadate.
+ *
+ * gotadate is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * gotadate is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with gotadate.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.aperigeek.gotadate;
+
+import com.aperigeek.gotadate.token.Keywords;
+import java.io.File;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.nio.file.Files;
+import java.nio.file.StandardOpenOption;
+import java.time.ZoneId;
+import java.time.ZonedDateTime;
+import java.util.Date;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+
+/**
+ *
+ * @author Vivien Barousse
+ */
+public class ParallelFileScannerTest extends TestCase {
+    
+    private static final ZoneId ZONE = ZoneId.of("Europe/Paris");
+    
+    private static final ZonedDateTime NOW =
+            ZonedDateTime.of(1988, 10, 23, 12, 0, 0, 0, ZONE);
+    
+    private static final Charset UTF8 = Charset.forName("UTF-8");
+    
+    private static final String[] WORDS = {
+        "23/10/1988", "10:30", "at", "5pm", "tomorrow", "yesterday", "3",
+        "days", "ago", "october", "23rd", "1988", "été", "/", ":", "-",
+        "\n", "lorem", "ipsum", "12", "2011", "march", "1st", "at 10"
+    };
+    
+    private ForkJoinPool pool;
+    
+    @Override
+    protected void setUp() throws Exception {
+        pool = new ForkJoinPool(4);
+    }
+    
+    @Override
+    protected void tearDown() throws Exception {
+        pool.shutdown();
+    }
+    
+    public void testSmallChunks() throws Exception {
+        StringBuilder text = new StringBuilder();
+        Random random = new Random(42);
+        for (int i = 0; i < 2000; i++) {
+            text.append(WORDS[random.nextInt(WORDS.length)]);
+            text.append(random.nextInt(4) == 0 ? "" : " ");
+        }
+        
+        for (int chunkSize = 16; chunkSize <= 1024; chunkSize *= 4) {
+            assertScan(text.toString(), chunkSize, 8);
+            assertScan(text.toString(), chunkSize, 64);
+        }
+    }
+    
+    public void testDateAcrossChunks() throws Exception {
+        String text = "meeting on 23 / 10 / 1988 at 10 : 30 pm, or tomorrow";
+        for (int chunkSize = 4; chunkSize < text.length(); chunkSize++) {
+            assertScan(text, chunkSize, 4);
+        }
+    }
+    
+    public void testNoSyncPoint() throws Exception {
+        StringBuilder text = new StringBuilder();
+        for (int i = 0; i < 500; i++) {
+            text.append("1/2/");
+        }
+        assertScan(text.toString(), 64, 8);
+        assertScan(text.toString(), 64, 512);
+    }
+    
+    public void testEmptyFile() throws Exception {
+        assertScan("", 16, 8);
+    }
+    
+    public void testExtractFile() throws Exception {
+        File file = File.createTempFile("gotadate", ".txt");
+        try {
+            Files.write(file.toPath(), "ok tomorrow at 5pm".getBytes(UTF8));
+            DateExtractor extractor = new DateExtractor();
+            
+            List<Date> parsed = extractor.extract(file.toPath(), UTF8, NOW);
+            assertEquals(extractor.extract("ok tomorrow at 5pm", NOW), parsed);
+            
+            Charset utf16 = Charset.forName("UTF-16");
+            Files.write(file.toPath(), "ok tomorrow at 5pm".getBytes(utf16));
+            parsed = extractor.extract(file.toPath(), utf16, NOW);
+            assertEquals(extractor.extract("ok tomorrow at 5pm", NOW), parsed);
+        } finally {
+            file.delete();
+        }
+    }
+    
+    private void assertScan(String text, int chunkSize, int overlap)
+            throws Exception {
+        List<Date> expected = new DateExtractor().extract(text, NOW);
+        
+        File file = File.createTempFile("gotadate", ".txt");
+        try {
+            Files.write(file.toPath(), text.getBytes(UTF8));
+            FileChannel channel = FileChannel.open(file.toPath(),
+                    StandardOpenOption.READ);
+            try {
+                ParallelFileScanner scanner = new ParallelFileScanner(channel,
+                        UTF8, Keywords.getDefault(), NOW, chunkSize, overlap);
+                assertEquals("chunk size " + chunkSize + ", overlap " + overlap,
+                        expected, scanner.scan(pool));
+            } finally {
+                channel.close();
+            }
+        } finally {
+            file.delete();
+        }
+    }
+    
+}
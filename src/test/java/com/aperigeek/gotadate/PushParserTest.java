@@ -0,0 +1,174 @@
+/*
+ * This file is part of gotadate.
+ *
+ * gotadate is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * gotadate is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with gotadate.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.aperigeek.gotadate;
+
+import com.aperigeek.gotadate.parser.DateMatch;
+import com.aperigeek.gotadate.parser.MatchSink;
+import com.aperigeek.gotadate.token.Keywords;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.charset.StandardCharsets;
+import java.time.ZoneId;
+import java.time.ZonedDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Random;
+
+/**
+ *
+ * @author Vivien Barousse
+ */
+public class PushParserTest extends TestCase {
+    
+    private static final ZoneId ZONE = ZoneId.of("Europe/Paris");
+    
+    private static final ZonedDateTime NOW =
+            ZonedDateTime.of(1988, 10, 23, 12, 0, 0, 0, ZONE);
+    
+    private static final String[] WORDS = {
+        "23/10/1988", "10:30", "at", "5pm", "tomorrow", "yesterday", "3",
+        "days", "ago", "october", "23rd", "1988", "/", ":", "\n", "\r\n",
+        "lorem", "ipsum", "12", "march", "1st", "at 10", "août", "à", "été",
+        "demain", "hier"
+    };
+    
+    private final DateExtractor extractor = new DateExtractor(
+            Keywords.forLocales(Locale.ENGLISH, Locale.FRENCH));
+    
+    private final List<DateMatch> matches = new ArrayList<DateMatch>();
+    
+    private final MatchSink collector = new MatchSink() {
+        public boolean accept(DateMatch match) {
+            matches.add(match);
+            return true;
+        }
+    };
+    
+    public void testMatchesOnceCertain() throws Exception {
+        PushParser parser = extractor.push(NOW, collector);
+        
+        parser.feed(CharBuffer.wrap("see you on 23/10/19"));
+        assertTrue(matches.isEmpty());
+        parser.feed(CharBuffer.wrap("88 "));
+        // A time may still follow
+        assertTrue(matches.isEmpty());
+        parser.feed(CharBuffer.wrap("and more"));
+        assertEquals(1, matches.size());
+        assertEquals(11, matches.get(0).getStart());
+        assertEquals(21, matches.get(0).getEnd());
+        
+        parser.feed(CharBuffer.wrap(", tomorrow"));
+        assertEquals(1, matches.size());
+        parser.finish();
+        assertEquals(2, matches.size());
+        assertEquals(extractor.extractMatches(
+                "see you on 23/10/1988 and more, tomorrow", NOW), matches);
+    }
+    
+    public void testSameMatchesAsFullParse() throws Exception {
+        Random random = new Random(42);
+        for (int n = 0; n < 100; n++) {
+            String text = randomText(random, 60);
+            matches.clear();
+            
+            PushParser parser = extractor.push(NOW, collector);
+            for (int i = 0; i < text.length(); ) {
+                int next = Math.min(text.length(), i + random.nextInt(8));
+                parser.feed(CharBuffer.wrap(text, i, next));
+                i = next;
+            }
+            parser.finish();
+            
+            assertEquals(text, extractor.extractMatches(text, NOW), matches);
+        }
+    }
+    
+    public void testSplitMultiByteSequences() throws Exception {
+        Random random = new Random(42);
+        for (int n = 0; n < 100; n++) {
+            String text = randomText(random, 60);
+            byte[] bytes = text.getBytes(StandardCharsets.UTF_8);
+            matches.clear();
+            
+            PushParser parser = extractor.push(NOW, collector);
+            for (int i = 0; i < bytes.length; ) {
+                int next = Math.min(bytes.length, i + random.nextInt(5));
+                parser.feed(ByteBuffer.wrap(bytes, i, next - i));
+                i = next;
+            }
+            parser.finish();
+            
+            assertEquals(text, extractor.extractMatches(text, NOW), matches);
+        }
+    }
+    
+    public void testTruncatedSequence() throws Exception {
+        PushParser parser = extractor.push(NOW, collector);
+        parser.feed(ByteBuffer.wrap(new byte[] {'1', '2', ' ', (byte) 0xC3}));
+        parser.finish();
+        
+        assertTrue(matches.isEmpty());
+    }
+    
+    public void testPendingIsBounded() throws Exception {
+        Random random = new Random(42);
+        PushParser parser = extractor.push(NOW, collector);
+        for (int n = 0; n < 1000; n++) {
+            parser.feed(CharBuffer.wrap(randomText(random, 10) + " "));
+            assertTrue(parser.getPendingLength() < 200);
+        }
+        parser.finish();
+        assertFalse(matches.isEmpty());
+    }
+    
+    public void testStop() throws Exception {
+        PushParser parser = extractor.push(NOW, new MatchSink() {
+            public boolean accept(DateMatch match) {
+                matches.add(match);
+                return false;
+            }
+        });
+        
+        parser.feed(CharBuffer.wrap("tomorrow, yesterday, 23/10/1988 or"));
+        assertTrue(parser.isStopped());
+        parser.feed(CharBuffer.wrap(" tomorrow"));
+        parser.finish();
+        assertEquals(1, matches.size());
+    }
+    
+    public void testFinished() throws Exception {
+        PushParser parser = extractor.push(NOW, collector);
+        parser.finish();
+        try {
+            parser.feed(CharBuffer.wrap("tomorrow"));
+            fail();
+        } catch (IllegalStateException ex) {
+            // Expected
+        }
+    }
+    
+    private static String randomText(Random random, int words) {
+        StringBuilder text = new StringBuilder();
+        for (int i = random.nextInt(words); i > 0; i--) {
+            text.append(WORDS[random.nextInt(WORDS.length)]);
+            text.append(random.nextBoolean() ? " " : "");
+        }
+        return text.toString();
+    }
+    
+}
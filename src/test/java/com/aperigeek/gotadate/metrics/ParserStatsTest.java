@@ -0,0 +1,135 @@
+/*
+ * This file is part of gotadate.
+ *
+ * gotadate is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * gotadate is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with gotadate.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.aperigeek.gotadate.metrics;
+
+import com.aperigeek.gotadate.DateExtractor;
+import com.aperigeek.gotadate.parser.DateParseException;
+import com.aperigeek.gotadate.parser.MatchKind;
+import com.aperigeek.gotadate.token.Keywords;
+import java.io.IOException;
+import java.io.Reader;
+import java.lang.management.ManagementFactory;
+import java.time.ZoneId;
+import java.time.ZonedDateTime;
+import java.util.Arrays;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import junit.framework.TestCase;
+
+/**
+ *
+ * @author Vivien Barousse
+ */
+public class ParserStatsTest extends TestCase {
+    
+    private static final ZonedDateTime NOW = ZonedDateTime.of(1988, 10, 23,
+            12, 0, 0, 0, ZoneId.of("Europe/Paris"));
+    
+    private static final String TEXT = "Met on 23/10/1988, then on"
+            + " October 25, 1988 and tomorrow at 5pm, but not 31/02/2011.";
+    
+    private final ParserStats stats = new ParserStats();
+    
+    private final DateExtractor extractor =
+            new DateExtractor(Keywords.getDefault(), stats);
+    
+    public void testCounters() throws DateParseException {
+        assertEquals(3, extractor.extract(TEXT, NOW).size());
+        
+        assertEquals(1, stats.getDocuments());
+        assertEquals(TEXT.length(), stats.getCharacters());
+        assertTrue(stats.getTokens() > 0);
+        assertEquals(1, stats.getMatches(MatchKind.NUMERIC_DATE));
+        assertEquals(1, stats.getMatches(MatchKind.MONTH_FIRST));
+        assertEquals(1, stats.getMatches(MatchKind.RELATIVE));
+        assertEquals(0, stats.getMatches(MatchKind.TIME));
+        assertEquals(1, stats.getFailedAttempts());
+        assertEquals(0, stats.getInputErrors());
+        assertEquals(1, stats.getCalls());
+        assertTrue(stats.getMaxLatency() > 0);
+    }
+    
+    public void testEarlyStop() throws DateParseException {
+        assertNotNull(extractor.findFirst(TEXT, NOW));
+        
+        assertEquals(0, stats.getDocuments());
+        assertEquals(1, stats.getNumericDateMatches());
+        assertEquals(1, stats.getCalls());
+    }
+    
+    public void testBatch() throws DateParseException {
+        extractor.extractAll(Arrays.asList("at 5pm", "nothing", TEXT), NOW);
+        
+        assertEquals(3, stats.getDocuments());
+        assertEquals(6 + 7 + TEXT.length(), stats.getCharacters());
+        assertEquals(1, stats.getTimeMatches());
+        assertEquals(3, stats.getCalls());
+    }
+    
+    public void testInputError() {
+        Reader failing = new Reader() {
+            @Override
+            public int read(char[] buffer, int offset, int length)
+                    throws IOException {
+                throw new IOException("Failing");
+            }
+
+            @Override
+            public void close() {
+            }
+        };
+        
+        try {
+            extractor.extract(failing, NOW);
+            fail();
+        } catch (DateParseException ex) {
+            // Expected
+        }
+        assertEquals(1, stats.getInputErrors());
+        assertEquals(0, stats.getDocuments());
+    }
+    
+    public void testReset() throws DateParseException {
+        extractor.extract(TEXT, NOW);
+        stats.reset();
+        
+        assertEquals(0, stats.getDocuments());
+        assertEquals(0, stats.getCharacters());
+        assertEquals(0, stats.getNumericDateMatches());
+        assertEquals(0, stats.getFailedAttempts());
+        assertEquals(0, stats.getCalls());
+        assertEquals(0, stats.getMaxLatency());
+    }
+    
+    public void testRegister() throws Exception {
+        extractor.extract(TEXT, NOW);
+        
+        MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+        ObjectName name = stats.register("test");
+        try {
+            assertEquals(ParserStats.DOMAIN, name.getDomain());
+            assertEquals(1L, server.getAttribute(name, "Documents"));
+            assertEquals(1L, server.getAttribute(name, "MonthFirstMatches"));
+            
+            server.invoke(name, "reset", new Object[0], new String[0]);
+            assertEquals(0L, server.getAttribute(name, "Documents"));
+        } finally {
+            server.unregisterMBean(name);
+        }
+    }
+    
+}
@@ -17,9 +17,12 @@
 package com.aperigeek.gotadate.parser;
 
 import com.aperigeek.gotadate.TestCase;
+import com.aperigeek.gotadate.parser.la.LookAheadTable;
 import com.aperigeek.gotadate.token.DateTokenizer;
+import com.aperigeek.gotadate.token.Keywords;
 import com.aperigeek.gotadate.token.TokenizerException;
 import java.io.StringReader;
+import java.util.ArrayList;
 import java.util.Date;
 import java.util.List;
 import org.joda.time.DateTime;
@@ -479,4 +482,144 @@ public class DateParserTest extends TestCase {
         assertEquals(new DateTime(1988, 10, 21, 9, 0).toDate(), parsed.get(0));
     }
     
+    public void testTokenObjectsStream() throws TokenizerException, DateParseException {
+        String date = "abc 23 October 1988 at 6";
+        DateTokenizer tokenizer = new DateTokenizer(new StringReader(date));
+        LookAheadTable table = new LookAheadTable(tokenizer);
+        DateParser parser = JodaSupport.newParser(table, DateTime.now());
+        parser.parse();
+        List<Date> parsed = parser.getParsed();
+        
+        assertEquals(1, parsed.size());
+        assertEquals(new DateTime(1988, 10, 23, 18, 0).toDate(), parsed.get(0));
+    }
+    
+    public void testInvalidDateIsIgnored() throws TokenizerException, DateParseException {
+        String date = "31/02/2011 45/10/1988 23/10/1988";
+        DateTokenizer tokenizer = new DateTokenizer(new StringReader(date));
+        DateParser parser = new DateParser(tokenizer);
+        parser.parse();
+        List<Date> parsed = parser.getParsed();
+        
+        assertEquals(1, parsed.size());
+        assertEquals(new Date(88, 9, 23), parsed.get(0));
+    }
+    
+    public void testInvalidTimeIsIgnored() throws TokenizerException, DateParseException {
+        String date = "at 25 or 12:75";
+        DateTokenizer tokenizer = new DateTokenizer(new StringReader(date));
+        DateParser parser = new DateParser(tokenizer);
+        parser.parse();
+        List<Date> parsed = parser.getParsed();
+        
+        assertEquals(0, parsed.size());
+    }
+    
+    public void testParseResumesAfterStop() throws TokenizerException, DateParseException {
+        String date = "23/10/1988 abc 24/10/1988 def 25/10/1988";
+        DateTokenizer tokenizer = new DateTokenizer(new StringReader(date));
+        DateParser parser = new DateParser(tokenizer);
+        final List<Date> parsed = new ArrayList<Date>();
+        DateSink sink = new DateSink() {
+            public boolean accept(Date date) {
+                parsed.add(date);
+                return false;
+            }
+        };
+        
+        assertFalse(parser.parse(sink));
+        assertEquals(1, parsed.size());
+        assertEquals(new Date(88, 9, 23), parsed.get(0));
+        
+        assertFalse(parser.parse(sink));
+        assertEquals(2, parsed.size());
+        assertEquals(new Date(88, 9, 24), parsed.get(1));
+        
+        assertFalse(parser.parse(sink));
+        assertTrue(parser.parse(sink));
+        assertEquals(3, parsed.size());
+        assertEquals(new Date(88, 9, 25), parsed.get(2));
+        assertEquals(0, parser.getParsed().size());
+    }
+    
+    public void testMatchSpans() throws TokenizerException, DateParseException {
+        String text = "On 23/10/1988, October 24 or tomorrow, at 5pm.";
+        DateTokenizer tokenizer = new DateTokenizer(new StringReader(text));
+        List<DateMatch> matches = parseMatches(new DateParser(tokenizer));
+        
+        assertEquals(4, matches.size());
+        assertMatch(text, MatchKind.NUMERIC_DATE, "23/10/1988", matches.get(0));
+        assertMatch(text, MatchKind.MONTH_FIRST, "October 24", matches.get(1));
+        assertMatch(text, MatchKind.RELATIVE, "tomorrow", matches.get(2));
+        assertMatch(text, MatchKind.TIME, "at 5pm", matches.get(3));
+    }
+    
+    public void testMatchSpanDateTime() throws TokenizerException, DateParseException {
+        String text = "see you 6 PM 3 days ago";
+        DateTokenizer tokenizer = new DateTokenizer(new StringReader(text));
+        List<DateMatch> matches = parseMatches(new DateParser(tokenizer));
+        
+        assertEquals(1, matches.size());
+        assertMatch(text, MatchKind.RELATIVE, "6 PM 3 days ago", matches.get(0));
+    }
+    
+    public void testMatchSpansTokenObjectsStream() throws TokenizerException, DateParseException {
+        String text = "abc 23 October 1988 at 6";
+        DateTokenizer tokenizer = new DateTokenizer(new StringReader(text));
+        LookAheadTable table = new LookAheadTable(tokenizer);
+        List<DateMatch> matches = parseMatches(
+                JodaSupport.newParser(table, DateTime.now()));
+        
+        assertEquals(1, matches.size());
+        assertMatch(text, MatchKind.NUMERIC_DATE, "23 October 1988 at 6",
+                matches.get(0));
+    }
+    
+    public void testMatchSpanEndsAtLastMatchedToken() throws TokenizerException, DateParseException {
+        String text = "at 5pm 23rd: and 10:30: then";
+        DateTokenizer tokenizer = new DateTokenizer(new StringReader(text));
+        List<DateMatch> matches = parseMatches(new DateParser(tokenizer));
+        
+        assertEquals(2, matches.size());
+        assertMatch(text, MatchKind.TIME, "at 5pm", matches.get(0));
+        assertMatch(text, MatchKind.TIME, "10:30", matches.get(1));
+    }
+    
+    private static List<DateMatch> parseMatches(DateParser parser)
+            throws DateParseException {
+        final List<DateMatch> matches = new ArrayList<DateMatch>();
+        parser.parseMatches(new MatchSink() {
+            public boolean accept(DateMatch match) {
+                matches.add(match);
+                return true;
+            }
+        });
+        return matches;
+    }
+    
+    private static void assertMatch(String text, MatchKind kind,
+                                    String matched, DateMatch actual) {
+        assertEquals(kind, actual.getKind());
+        assertEquals(matched,
+                text.substring(actual.getStart(), actual.getEnd()));
+    }
+    
+    public void testParseToBuffer() throws TokenizerException, DateParseException {
+        String text = "23/10/1988, tomorrow at 6 and 31/02/2011";
+        DateTime now = new DateTime(1988, 10, 23, 12, 0,
+                DateTimeZone.forID("Asia/Tokyo"));
+        DateBuffer buffer = new DateBuffer(1);
+        
+        JodaSupport.newParser(new DateTokenizer(new StringReader(text)),
+                Keywords.getDefault(), now).parse(buffer);
+        
+        DateParser parser = JodaSupport.newParser(
+                new DateTokenizer(new StringReader(text)),
+                Keywords.getDefault(), now);
+        parser.parse();
+        assertEquals(2, buffer.size());
+        assertEquals(parser.getParsed(), buffer.toDates());
+        assertEquals(now.withTime(0, 0, 0, 0).getMillis(), buffer.getMillis(0));
+    }
+    
 }
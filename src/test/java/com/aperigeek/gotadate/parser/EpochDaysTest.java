@@ -0,0 +1,71 @@
+/*
+ * This file is part of gotadate.
+ *
+ * gotadate is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * gotadate is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with gotadate.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.aperigeek.gotadate.parser;
+
+import java.util.Random;
+import junit.framework.TestCase;
+import org.joda.time.DateTimeZone;
+import org.joda.time.LocalDate;
+
+/**
+ *
+ * @author Vivien Barousse
+ */
+public class EpochDaysTest extends TestCase {
+    
+    public void testEpoch() {
+        assertEquals(0, EpochDays.of(1970, 1, 1));
+        assertEquals(-1, EpochDays.of(1969, 12, 31));
+        assertEquals(59, EpochDays.of(1970, 3, 1));
+    }
+    
+    public void testSameAsJoda() {
+        Random random = new Random(42);
+        for (int i = 0; i < 10000; i++) {
+            int year = random.nextInt(4000);
+            int month = 1 + random.nextInt(12);
+            int day = 1 + random.nextInt(EpochDays.daysInMonth(year, month));
+            
+            long millis = new LocalDate(year, month, day)
+                    .toDateMidnight(DateTimeZone.UTC).getMillis();
+            assertEquals(year + "-" + month + "-" + day,
+                    millis / EpochDays.MILLIS_PER_DAY
+                            - (millis % EpochDays.MILLIS_PER_DAY < 0 ? 1 : 0),
+                    EpochDays.of(year, month, day));
+        }
+    }
+    
+    public void testYearOf() {
+        assertEquals(1970, EpochDays.yearOf(0));
+        assertEquals(1969, EpochDays.yearOf(-1));
+        Random random = new Random(42);
+        for (int i = 0; i < 10000; i++) {
+            int year = random.nextInt(4000);
+            assertEquals(year, EpochDays.yearOf(EpochDays.of(year, 1, 1)));
+            assertEquals(year, EpochDays.yearOf(EpochDays.of(year, 12, 31)));
+        }
+    }
+    
+    public void testLeapYears() {
+        assertEquals(29, EpochDays.daysInMonth(2000, 2));
+        assertEquals(28, EpochDays.daysInMonth(1900, 2));
+        assertEquals(29, EpochDays.daysInMonth(1988, 2));
+        assertEquals(28, EpochDays.daysInMonth(2011, 2));
+        assertEquals(30, EpochDays.daysInMonth(2011, 11));
+    }
+    
+}
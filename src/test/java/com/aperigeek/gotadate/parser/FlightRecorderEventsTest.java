@@ -0,0 +1,96 @@
+/*
+ * This file is part of gotadate.
+ *
+ * gotadate is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * gotadate is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with gotadate.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.aperigeek.gotadate.parser;
+
+import com.aperigeek.gotadate.token.Keywords;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.ZoneId;
+import java.time.ZonedDateTime;
+import java.util.List;
+import java.util.stream.Collectors;
+import jdk.jfr.Recording;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
+import junit.framework.TestCase;
+
+/**
+ *
+ * @author Vivien Barousse
+ */
+public class FlightRecorderEventsTest extends TestCase {
+    
+    private static final ZonedDateTime NOW = ZonedDateTime.of(1988, 10, 23,
+            12, 0, 0, 0, ZoneId.of("Europe/Paris"));
+    
+    private static final String TEXT = "Met on 23/10/1988 and tomorrow,"
+            + " but not on 31/02/2011.";
+    
+    public void testDocumentParse() throws Exception {
+        List<RecordedEvent> events = record(false);
+        
+        assertEquals(1, events.size());
+        RecordedEvent event = events.get(0);
+        assertEquals("com.aperigeek.gotadate.DocumentParse",
+                event.getEventType().getName());
+        assertTrue(event.getBoolean("complete"));
+        assertEquals(TEXT.length(), event.getLong("characters"));
+        assertTrue(event.getLong("tokens") > 0);
+        assertEquals(2, event.getInt("matches"));
+        assertNull(event.getStackTrace());
+    }
+    
+    public void testFailedAttempts() throws Exception {
+        List<RecordedEvent> events = record(true);
+        
+        List<RecordedEvent> failures = events.stream()
+                .filter(e -> e.getEventType().getName()
+                        .equals("com.aperigeek.gotadate.FailedAttempt"))
+                .collect(Collectors.toList());
+        assertEquals(1, failures.size());
+        assertEquals(TEXT.indexOf("31/02"), failures.get(0).getInt("offset"));
+        assertEquals("Invalid date or time",
+                failures.get(0).getString("reason"));
+        assertNull(failures.get(0).getStackTrace());
+    }
+    
+    private static List<RecordedEvent> record(boolean failedAttempts)
+            throws DateParseException, IOException {
+        Path file = Files.createTempFile("gotadate", ".jfr");
+        try {
+            try (Recording recording = new Recording()) {
+                recording.enable(DocumentParseEvent.class);
+                if (failedAttempts) {
+                    recording.enable(FailedAttemptEvent.class);
+                }
+                recording.start();
+                new SparseDateParser(TEXT, Keywords.getDefault(), NOW)
+                        .parse();
+                recording.stop();
+                recording.dump(file);
+            }
+            return RecordingFile.readAllEvents(file).stream()
+                    .filter(e -> e.getEventType().getName()
+                            .startsWith("com.aperigeek.gotadate."))
+                    .collect(Collectors.toList());
+        } finally {
+            Files.delete(file);
+        }
+    }
+    
+}
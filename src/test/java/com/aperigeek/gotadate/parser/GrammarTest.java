@@ -0,0 +1,102 @@
+/*
+ * This file is part of gotadate.
+ *
+ * gotadate is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * gotadate is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with gotadate.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.aperigeek.gotadate.parser;
+
+import com.aperigeek.gotadate.token.Keyword;
+import java.util.EnumSet;
+import junit.framework.TestCase;
+
+/**
+ *
+ * @author Vivien Barousse
+ */
+public class GrammarTest extends TestCase {
+    
+    public void testStartKeywords() {
+        EnumSet<Keyword> expected = EnumSet.of(Keyword.YESTERDAY,
+                Keyword.TOMORROW, Keyword.AT, Keyword.BEFORE);
+        for (Keyword keyword : Keyword.values()) {
+            if (keyword.isMonth()) {
+                expected.add(keyword);
+            }
+        }
+        assertEquals(expected, Grammar.getDefault().getStartKeywords());
+    }
+    
+    public void testLongestMatch() {
+        Grammar grammar = Grammar.getDefault();
+        int number = grammar.numberSymbol();
+        int colon = grammar.separatorSymbol(':');
+        
+        int state = grammar.target(grammar.transition(Grammar.ANY, number));
+        assertEquals(Grammar.DEAD, grammar.getAccepted(state));
+        state = grammar.target(grammar.transition(state, colon));
+        assertEquals(Grammar.DEAD, grammar.getAccepted(state));
+        state = grammar.target(grammar.transition(state, number));
+        assertTrue(grammar.getRule(grammar.getAccepted(state)).isTime());
+        state = grammar.target(grammar.transition(state, colon));
+        assertEquals(Grammar.DEAD, grammar.getAccepted(state));
+    }
+    
+    public void testLongestRule() {
+        // at 11 : 10 : 55 pm
+        assertEquals(7, Grammar.getDefault().getLongestMatch());
+    }
+    
+    public void testStartStates() {
+        Grammar grammar = Grammar.getDefault();
+        int at = grammar.keywordSymbol(Keyword.AT);
+        int month = grammar.keywordSymbol(Keyword.MAY);
+        
+        assertEquals(Grammar.DEAD,
+                grammar.target(grammar.transition(Grammar.DATES, at)));
+        assertEquals(Grammar.DEAD,
+                grammar.target(grammar.transition(Grammar.TIMES, month)));
+        assertTrue(Grammar.DEAD
+                != grammar.target(grammar.transition(Grammar.ANY, at)));
+        assertTrue(Grammar.DEAD
+                != grammar.target(grammar.transition(Grammar.ANY, month)));
+    }
+    
+    public void testUnusedSymbols() {
+        Grammar grammar = Grammar.getDefault();
+        assertEquals(Grammar.DEAD, grammar.separatorSymbol('-'));
+    }
+    
+    public void testAmbiguousRule() {
+        try {
+            new Grammar(new Rule(MatchKind.TIME,
+                    Term.number(Field.HOUR),
+                    Term.optional(Term.number(Field.MINUTE)),
+                    Term.number(Field.SECOND)));
+            fail();
+        } catch (IllegalArgumentException ex) {
+            // Expected
+        }
+    }
+    
+    public void testRuleStart() {
+        try {
+            new Grammar(new Rule(MatchKind.TIME,
+                    Term.separator(':'), Term.number(Field.MINUTE)));
+            fail();
+        } catch (IllegalArgumentException ex) {
+            // Expected
+        }
+    }
+    
+}
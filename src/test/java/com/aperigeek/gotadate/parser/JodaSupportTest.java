@@ -0,0 +1,92 @@
+/*
+ * This file is part of gotadate.
+ *
+ * gotadate is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * gotadate is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with gotadate.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.aperigeek.gotadate.parser;
+
+import com.aperigeek.gotadate.token.CharSequenceTokenizer;
+import com.aperigeek.gotadate.token.Keywords;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.time.ZonedDateTime;
+import junit.framework.TestCase;
+import org.joda.time.DateTime;
+import org.joda.time.DateTimeZone;
+
+/**
+ *
+ * @author Vivien Barousse
+ */
+public class JodaSupportTest extends TestCase {
+    
+    public void testRegionZone() {
+        assertEquals(ZoneId.of("Europe/Paris"), JodaSupport.toZoneId(
+                DateTimeZone.forID("Europe/Paris")));
+    }
+    
+    public void testShortZoneIds() {
+        DateTimeZone est = DateTimeZone.forID("EST");
+        ZoneId zone = JodaSupport.toZoneId(est);
+        
+        assertEquals(est.getOffset(0L) / 1000,
+                zone.getRules().getOffset(Instant.EPOCH)
+                        .getTotalSeconds());
+        for (String id : new String[] { "MST", "HST", "US/Pacific-New",
+                "Canada/East-Saskatchewan", "ROC" }) {
+            DateTimeZone joda;
+            try {
+                joda = DateTimeZone.forID(id);
+            } catch (IllegalArgumentException ex) {
+                // Not known by this Joda-Time version either
+                continue;
+            }
+            assertNotNull(id, JodaSupport.toZoneId(joda));
+        }
+    }
+    
+    public void testFixedZone() {
+        assertEquals(ZoneOffset.ofHoursMinutes(5, 30), JodaSupport.toZoneId(
+                DateTimeZone.forOffsetHoursMinutes(5, 30)));
+        assertEquals(ZoneOffset.UTC, JodaSupport.toZoneId(DateTimeZone.UTC));
+    }
+    
+    public void testToZonedDateTime() {
+        DateTime now = new DateTime(1988, 10, 23, 12, 0,
+                DateTimeZone.forID("Asia/Tokyo"));
+        
+        assertEquals(ZonedDateTime.of(1988, 10, 23, 12, 0, 0, 0,
+                ZoneId.of("Asia/Tokyo")), JodaSupport.toZonedDateTime(now));
+    }
+    
+    public void testFactories() throws Exception {
+        DateTime now = new DateTime(1988, 10, 23, 12, 0,
+                DateTimeZone.forID("Europe/Paris"));
+        String text = "tomorrow at 10, 23/10/1988";
+        
+        DateParser full = JodaSupport.newParser(
+                new CharSequenceTokenizer(text), Keywords.getDefault(), now);
+        full.parse();
+        DateParser sparse = JodaSupport.newSparseParser(text,
+                Keywords.getDefault(), now);
+        sparse.parse();
+        assertEquals(2, full.getParsed().size());
+        assertEquals(full.getParsed(), sparse.getParsed());
+        
+        JodaSupport.reset(sparse, now.plusDays(1));
+        assertTrue(sparse.getParsed().isEmpty());
+    }
+    
+}
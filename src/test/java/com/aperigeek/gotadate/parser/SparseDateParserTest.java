@@ -0,0 +1,150 @@
+/*
+ * This file is part of gotadate.
+ *
+ * gotadate is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * gotadate is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with gotadate.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.aperigeek.gotadate.parser;
+
+import com.aperigeek.gotadate.TestCase;
+import com.aperigeek.gotadate.token.CharSequenceTokenizer;
+import com.aperigeek.gotadate.token.Keywords;
+import com.aperigeek.gotadate.token.Vocabulary;
+import java.nio.CharBuffer;
+import java.time.ZoneId;
+import java.time.ZonedDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ *
+ * @author Vivien Barousse
+ */
+public class SparseDateParserTest extends TestCase {
+    
+    private static final ZonedDateTime NOW = ZonedDateTime.of(1988, 10,
+            23, 12, 0, 0, 0, ZoneId.of("Europe/Paris"));
+    
+    private static final String[] WORDS = {
+        "23/10/1988", "10:30", "at", "At", "5pm", "PM", "tomorrow",
+        "yesterday", "3", "days", "ago", "october", "Oct", "23rd", "1988",
+        "/", ":", ",", "\n", "lorem", "ipsum", "attic", "mayday", "12",
+        "march", "1st", "at 10", "été", "٣", "data", "maybe", "tom"
+    };
+    
+    private static final String[] LOCALE_WORDS = {
+        "23", "octobre", "Oktober", "de", "octubre", "1er", "vor", "Tagen",
+        "hace", "días", "hier", "à", "demain", "um", "mañana", "ago", "at",
+        "10", "of", "May", "mai", "de", "la", "abends", "3", "\n"
+    };
+    
+    public void testAnchors() {
+        AnchorScanner anchors = AnchorScanner.getDefault();
+        
+        assertEquals(4, anchors.next("abc 12", 0, 6));
+        assertEquals(3, anchors.next("abc12", 0, 5));
+        assertEquals(-1, anchors.next("abc", 0, 3));
+        assertEquals(6, anchors.next("Maybe MAY", 0, 9));
+        assertEquals(5, anchors.next("data at 5", 0, 9));
+        assertEquals(-1, anchors.next("attic tom", 0, 9));
+        assertEquals(2, anchors.next("x-Tomorrow", 0, 10));
+        assertEquals(1, anchors.next("12", 1, 2));
+    }
+    
+    public void testSameMatchesAsFullParse() throws DateParseException {
+        Random random = new Random(42);
+        for (int n = 0; n < 50; n++) {
+            StringBuilder text = new StringBuilder();
+            for (int i = 0; i < 200; i++) {
+                text.append(WORDS[random.nextInt(WORDS.length)]);
+                text.append(random.nextInt(3) == 0 ? "" : " ");
+            }
+            
+            DateParser full = new DateParser(
+                    new CharSequenceTokenizer(text), Keywords.getDefault(), NOW);
+            DateParser sparse = new SparseDateParser(text,
+                    Keywords.getDefault(), NOW);
+            assertEquals(text.toString(), parseMatches(full),
+                    parseMatches(sparse));
+        }
+    }
+    
+    public void testSameMatchesWithLocales() throws DateParseException {
+        Keywords keywords = Keywords.of(Vocabulary.ENGLISH,
+                Vocabulary.FRENCH, Vocabulary.GERMAN, Vocabulary.SPANISH);
+        Random random = new Random(42);
+        for (int n = 0; n < 50; n++) {
+            StringBuilder text = new StringBuilder();
+            for (int i = 0; i < 200; i++) {
+                text.append(LOCALE_WORDS[random.nextInt(LOCALE_WORDS.length)]);
+                text.append(' ');
+            }
+            
+            DateParser full = new DateParser(
+                    new CharSequenceTokenizer(text), keywords, NOW);
+            DateParser sparse = new SparseDateParser(text, keywords, NOW);
+            assertEquals(text.toString(), parseMatches(full),
+                    parseMatches(sparse));
+        }
+    }
+    
+    public void testRange() throws DateParseException {
+        String text = "12/10/1988 tomorrow";
+        SparseDateParser parser = new SparseDateParser(text, 1, 15,
+                AnchorScanner.getDefault(), Keywords.getDefault(), NOW);
+        
+        List<DateMatch> matches = parseMatches(parser);
+        assertEquals(1, matches.size());
+        assertEquals(MatchKind.NUMERIC_DATE, matches.get(0).getKind());
+        assertEquals(1, matches.get(0).getStart());
+        assertEquals(10, matches.get(0).getEnd());
+    }
+    
+    public void testCharBuffer() throws DateParseException {
+        CharBuffer buffer = CharBuffer.wrap("xx 12 then tomorrow".toCharArray());
+        buffer.position(3);
+        SparseDateParser parser = new SparseDateParser(buffer.slice(),
+                Keywords.getDefault(), NOW);
+        
+        List<DateMatch> matches = parseMatches(parser);
+        assertEquals(1, matches.size());
+        assertEquals(8, matches.get(0).getStart());
+        assertEquals(16, matches.get(0).getEnd());
+    }
+    
+    public void testReset() throws DateParseException {
+        SparseDateParser parser = new SparseDateParser("tomorrow",
+                Keywords.getDefault(), NOW);
+        assertEquals(1, parseMatches(parser).size());
+        
+        parser.reset("nothing here", 0, 12, NOW);
+        assertEquals(0, parseMatches(parser).size());
+        
+        parser.reset("yesterday at 5", 0, 14, NOW);
+        assertEquals(1, parseMatches(parser).size());
+    }
+    
+    private static List<DateMatch> parseMatches(DateParser parser)
+            throws DateParseException {
+        final List<DateMatch> matches = new ArrayList<DateMatch>();
+        parser.parseMatches(new MatchSink() {
+            public boolean accept(DateMatch match) {
+                matches.add(match);
+                return true;
+            }
+        });
+        return matches;
+    }
+    
+}
@@ -0,0 +1,99 @@
+/*
+ * This file is part of gotadate.
+ *
+ * gotadate is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * gotadate is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with gotadate.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.aperigeek.gotadate.parser;
+
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.time.ZoneId;
+import java.time.ZonedDateTime;
+import junit.framework.TestCase;
+
+/**
+ *
+ * @author Vivien Barousse
+ */
+public class ZoneOffsetsTest extends TestCase {
+    
+    public void testSameAsJavaTime() {
+        String[] zones = {
+            "UTC", "Europe/Paris", "America/New_York", "Asia/Tokyo",
+            "Australia/Lord_Howe", "Asia/Kathmandu", "+05:30"
+        };
+        for (String id : zones) {
+            ZoneId zone = ZoneId.of(id);
+            ZoneOffsets offsets = new ZoneOffsets(zone);
+            LocalDate date = LocalDate.of(2011, 1, 1);
+            for (int i = 0; i < 365; i++, date = date.plusDays(1)) {
+                long day = date.toEpochDay();
+                assertEquals(id + " " + date,
+                        toMillis(date, LocalTime.MIDNIGHT, zone),
+                        offsets.toMillis(day, 0));
+                assertEquals(id + " " + date,
+                        toMillis(date, LocalTime.of(18, 30), zone),
+                        offsets.toMillis(day, 18 * 3600 + 30 * 60));
+            }
+        }
+    }
+    
+    public void testTransitionDay() {
+        ZoneId paris = ZoneId.of("Europe/Paris");
+        ZoneOffsets offsets = new ZoneOffsets(paris);
+        LocalDate date = LocalDate.of(2011, 3, 27);
+        long day = date.toEpochDay();
+        
+        assertEquals(toMillis(date, LocalTime.of(1, 0), paris),
+                offsets.toMillis(day, 3600));
+        assertEquals(toMillis(date, LocalTime.of(4, 0), paris),
+                offsets.toMillis(day, 4 * 3600));
+    }
+    
+    public void testGapAndOverlap() {
+        ZoneId paris = ZoneId.of("Europe/Paris");
+        ZoneOffsets offsets = new ZoneOffsets(paris);
+        
+        LocalDate spring = LocalDate.of(2011, 3, 27);
+        assertEquals(toMillis(spring, LocalTime.of(2, 30), paris),
+                offsets.toMillis(spring.toEpochDay(), 2 * 3600 + 30 * 60));
+        
+        LocalDate autumn = LocalDate.of(2011, 10, 30);
+        assertEquals(toMillis(autumn, LocalTime.of(2, 30), paris),
+                offsets.toMillis(autumn.toEpochDay(), 2 * 3600 + 30 * 60));
+    }
+    
+    public void testToDay() {
+        ZoneId tokyo = ZoneId.of("Asia/Tokyo");
+        ZoneOffsets offsets = new ZoneOffsets(tokyo);
+        
+        LocalDate date = LocalDate.of(1988, 10, 23);
+        assertEquals(date.toEpochDay(),
+                offsets.toDay(toMillis(date, LocalTime.of(0, 30), tokyo)));
+    }
+    
+    public void testDefaultZone() {
+        ZoneOffsets offsets = new ZoneOffsets(null);
+        LocalDate date = LocalDate.of(1988, 10, 23);
+        
+        assertNull(offsets.getZone());
+        assertEquals(toMillis(date, LocalTime.NOON, ZoneId.systemDefault()),
+                offsets.toMillis(date.toEpochDay(), 12 * 3600));
+    }
+    
+    private static long toMillis(LocalDate date, LocalTime time, ZoneId zone) {
+        return ZonedDateTime.of(date, time, zone).toInstant().toEpochMilli();
+    }
+    
+}
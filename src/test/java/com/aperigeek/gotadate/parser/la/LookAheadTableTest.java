@@ -18,6 +18,8 @@ package com.aperigeek.gotadate.parser.la;
 
 import com.aperigeek.gotadate.TestCase;
 import com.aperigeek.gotadate.token.DateTokenizer;
+import com.aperigeek.gotadate.token.Keywords;
+import com.aperigeek.gotadate.token.Token;
 import com.aperigeek.gotadate.token.Tokenizer;
 import com.aperigeek.gotadate.token.TokenizerException;
 import java.io.Reader;
@@ -59,4 +61,42 @@ public class LookAheadTableTest extends TestCase {
         assertNull(table.pop());
     }
     
+    public void testAdvance() throws Exception {
+        Reader reader = new StringReader("0 1 2 3 4 5 6 7");
+        Tokenizer tokenizer = new DateTokenizer(reader);
+        LookAheadTable table = new LookAheadTable(tokenizer);
+        for (int i = 0; i < 8; i++) {
+            assertEquals(i, table.getInt(0));
+            if (i < 6) {
+                assertEquals(i + 2, table.getInt(2));
+            }
+            table.advance();
+        }
+        assertNull(table.getType(0));
+    }
+    
+    public void testTokensAreRecycled() throws Exception {
+        Reader reader = new StringReader("0 1 2 3 4 5 6 7");
+        Tokenizer tokenizer = new DateTokenizer(reader);
+        LookAheadTable table = new LookAheadTable(tokenizer, 
+                Keywords.getDefault(), 2);
+        Token first = table.get(0);
+        table.advance();
+        table.get(0);
+        table.advance();
+        assertSame(first, table.get(0));
+        assertToken(2, table.get(0));
+    }
+    
+    public void testPoppedTokensAreNotRecycled() throws Exception {
+        Reader reader = new StringReader("0 1 2 3 4 5 6 7");
+        Tokenizer tokenizer = new DateTokenizer(reader);
+        LookAheadTable table = new LookAheadTable(tokenizer, 
+                Keywords.getDefault(), 2);
+        Token first = table.pop();
+        table.pop();
+        table.get(0);
+        assertToken(0, first);
+    }
+    
 }
@@ -0,0 +1,248 @@
+/*
+ * This file is part of gotadate.
+ *
+ * gotadate is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * gotadate is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with gotadate.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.aperigeek.gotadate.server;
+
+import com.aperigeek.gotadate.DateExtractor;
+import com.aperigeek.gotadate.metrics.ParserStats;
+import com.aperigeek.gotadate.parser.DateMatch;
+import com.aperigeek.gotadate.parser.MatchKind;
+import com.aperigeek.gotadate.parser.ParserMetrics;
+import com.aperigeek.gotadate.token.Keywords;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.HttpURLConnection;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.time.ZoneId;
+import java.time.ZonedDateTime;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import junit.framework.TestCase;
+
+/**
+ *
+ * @author Vivien Barousse
+ */
+public class ExtractionServerTest extends TestCase {
+    
+    private static final ZoneId ZONE = ZoneId.of("Europe/Paris");
+    
+    private static final ZonedDateTime NOW =
+            ZonedDateTime.of(1988, 10, 23, 12, 0, 0, 0, ZONE);
+    
+    private final ParserStats stats = new ParserStats();
+    
+    private final DateExtractor extractor = new DateExtractor(
+            Keywords.forLocales(Locale.ENGLISH, Locale.FRENCH), stats);
+    
+    private ExtractionServer server;
+    
+    private int status;
+
+    @Override
+    protected void setUp() throws Exception {
+        server = new ExtractionServer(extractor, ZONE,
+                new InetSocketAddress(InetAddress.getLoopbackAddress(), 0));
+        server.start();
+    }
+
+    @Override
+    protected void tearDown() throws Exception {
+        server.stop(0);
+    }
+    
+    public void testExtract() throws Exception {
+        String text = "see you on 23/10/1988 at 5pm, or tomorrow";
+        Map<?, ?> response = (Map<?, ?>) Json.parse(request("POST",
+                "/extract", "{\"text\": " + Json.write(text)
+                + ", \"now\": \"" + NOW + "\"}"));
+        
+        assertEquals(200, status);
+        assertMatches(extractor.extractMatches(text, NOW),
+                (List<?>) response.get("matches"));
+    }
+    
+    public void testBatch() throws Exception {
+        List<String> texts = Arrays.asList("23/10/1988", "nothing",
+                "demain à 10h\nyesterday");
+        Map<?, ?> response = (Map<?, ?>) Json.parse(request("POST",
+                "/batch", "{\"texts\": " + Json.write(texts)
+                + ", \"now\": \"" + NOW + "\"}"));
+        
+        assertEquals(200, status);
+        List<?> results = (List<?>) response.get("results");
+        assertEquals(texts.size(), results.size());
+        for (int i = 0; i < texts.size(); i++) {
+            assertMatches(extractor.extractMatches(texts.get(i), NOW),
+                    (List<?>) ((Map<?, ?>) results.get(i)).get("matches"));
+        }
+    }
+    
+    public void testDatesInZoneOfNow() throws Exception {
+        ZonedDateTime tokyo = ZonedDateTime.of(2024, 1, 1, 10, 0, 0, 0,
+                ZoneId.of("Asia/Tokyo"));
+        Map<?, ?> response = (Map<?, ?>) Json.parse(request("POST",
+                "/extract", "{\"text\": \"see you tomorrow\", \"now\": \""
+                + tokyo + "\"}"));
+        
+        assertEquals(200, status);
+        List<?> matches = (List<?>) response.get("matches");
+        assertEquals(1, matches.size());
+        assertEquals("2024-01-02T00:00+09:00",
+                ((Map<?, ?>) matches.get(0)).get("date"));
+    }
+    
+    public void testStats() throws Exception {
+        request("POST", "/extract", "{\"text\": \"23/10/1988\"}");
+        Map<?, ?> response = (Map<?, ?>) Json.parse(
+                request("GET", "/stats", null));
+        
+        assertEquals(200, status);
+        assertEquals(Boolean.TRUE, response.get("enabled"));
+        assertEquals(1.0, response.get("documents"));
+    }
+    
+    public void testErrors() throws Exception {
+        request("POST", "/extract", "{\"text\": ");
+        assertEquals(400, status);
+        request("POST", "/extract", "{\"text\": 12}");
+        assertEquals(400, status);
+        request("POST", "/extract", "{\"text\": \"\", \"now\": \"never\"}");
+        assertEquals(400, status);
+        request("POST", "/batch", "[]");
+        assertEquals(400, status);
+        request("GET", "/extract", null);
+        assertEquals(405, status);
+        request("POST", "/extract", "{\"text\": \"\\u+041\"}");
+        assertEquals(400, status);
+        request("POST", "/extract", "{\"text\": \"\\u\uff10041\"}");
+        assertEquals(400, status);
+        request("POST", "/extract", "{\"text\": \"a\nb\"}");
+        assertEquals(400, status);
+        
+        StringBuilder nested = new StringBuilder("{\"text\": ");
+        for (int i = 0; i < 200000; i++) {
+            nested.append('[');
+        }
+        Map<?, ?> response = (Map<?, ?>) Json.parse(
+                request("POST", "/extract", nested.toString()));
+        assertEquals(400, status);
+        assertTrue(((String) response.get("error")).startsWith(
+                "Too deeply nested"));
+    }
+    
+    public void testInternalError() throws Exception {
+        server.stop(0);
+        ParserMetrics failing = new ParserMetrics() {
+            public void documentParsed(long chars, long tokens) {
+            }
+
+            public void callCompleted(long nanos) {
+                throw new IllegalStateException("secret");
+            }
+
+            public void matched(MatchKind kind) {
+            }
+
+            public void attemptFailed() {
+            }
+
+            public void inputError() {
+            }
+        };
+        server = new ExtractionServer(new DateExtractor(
+                Keywords.getDefault(), failing), ZONE,
+                new InetSocketAddress(InetAddress.getLoopbackAddress(), 0));
+        server.start();
+        Logger log = Logger.getLogger(ExtractionServer.class.getName());
+        Level level = log.getLevel();
+        log.setLevel(Level.OFF);
+        try {
+            Map<?, ?> response = (Map<?, ?>) Json.parse(request("POST",
+                    "/extract", "{\"text\": \"23/10/1988\"}"));
+            
+            assertEquals(500, status);
+            assertEquals("Internal error", response.get("error"));
+        } finally {
+            log.setLevel(level);
+        }
+    }
+    
+    public void testJson() throws Exception {
+        String document = "{\"a\": [1, -2.5e1, true, false, null],"
+                + " \"b\": \"\\\"\\\\\\n\\u00e9\\t\", \"c\": {}}";
+        Object value = Json.parse(document);
+        assertEquals(value, Json.parse(Json.write(value)));
+        assertEquals("\"\\\né\t", ((Map<?, ?>) value).get("b"));
+        assertEquals(-25.0, ((List<?>) ((Map<?, ?>) value).get("a")).get(1));
+        
+        StringBuilder nested = new StringBuilder();
+        for (int i = 0; i < Json.MAX_DEPTH; i++) {
+            nested.insert(0, '[').append(']');
+        }
+        assertNotNull(Json.parse(nested.toString()));
+        
+        try {
+            Json.parse("{\"a\": 1} 2");
+            fail();
+        } catch (IllegalArgumentException ex) {
+            // Expected
+        }
+    }
+    
+    private void assertMatches(List<DateMatch> expected, List<?> actual) {
+        assertEquals(expected.size(), actual.size());
+        for (int i = 0; i < expected.size(); i++) {
+            Map<?, ?> match = (Map<?, ?>) actual.get(i);
+            assertEquals((double) expected.get(i).getStart(),
+                    match.get("start"));
+            assertEquals((double) expected.get(i).getEnd(), match.get("end"));
+            assertEquals(expected.get(i).getKind().name(), match.get("kind"));
+            assertEquals(expected.get(i).getDate().toInstant(),
+                    ZonedDateTime.parse((String) match.get("date"))
+                    .toInstant());
+        }
+    }
+    
+    private String request(String method, String path, String body)
+            throws IOException {
+        InetSocketAddress address = server.getAddress();
+        URL url = new URL("http", address.getHostString(), address.getPort(),
+                path);
+        HttpURLConnection connection = (HttpURLConnection) url.openConnection();
+        connection.setRequestMethod(method);
+        if (body != null) {
+            connection.setDoOutput(true);
+            try (OutputStream out = connection.getOutputStream()) {
+                out.write(body.getBytes(StandardCharsets.UTF_8));
+            }
+        }
+        status = connection.getResponseCode();
+        try (InputStream in = status < 400 ? connection.getInputStream()
+                : connection.getErrorStream()) {
+            return new String(in.readAllBytes(), StandardCharsets.UTF_8);
+        }
+    }
+    
+}
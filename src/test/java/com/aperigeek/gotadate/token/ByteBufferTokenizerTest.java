@@ -0,0 +1,181 @@
+/*
+ * This file is part of gotadate.
+ *
+ * gotadate is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * gotadate is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with gotadate.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.aperigeek.gotadate.token;
+
+import com.aperigeek.gotadate.TestCase;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Locale;
+import java.util.Random;
+
+/**
+ *
+ * @author Vivien Barousse
+ */
+public class ByteBufferTokenizerTest extends TestCase {
+    
+    private static final String TEXT = "Hello World,\n see you Tomorrow at"
+            + " 5PM\r\nor on 23/10/1988 11:30:00\tOK?\n\nÉté 2011, le 3 août"
+            + " à 10h : ١٢ März, 23 décembre 2011 📅 ok";
+    
+    public void testBasicBehaviour() {
+        ByteBufferTokenizer tokenizer = new ByteBufferTokenizer(utf8("abc def 123"));
+        
+        assertToken("abc", tokenizer.next());
+        assertToken("def", tokenizer.next());
+        assertToken(123, tokenizer.next());
+        assertEquals(null, tokenizer.next());
+    }
+    
+    public void testEmpty() {
+        assertEquals(null, new ByteBufferTokenizer(utf8("")).next());
+        assertEquals(null, new ByteBufferTokenizer(utf8("    ")).next());
+    }
+    
+    public void testByteOffsets() {
+        ByteBufferTokenizer tokenizer = new ByteBufferTokenizer(utf8("été 12"));
+        
+        Token token = tokenizer.next();
+        assertToken("été", token);
+        assertEquals(0, token.getStart());
+        assertEquals(5, token.getEnd());
+        token = tokenizer.next();
+        assertToken(12, token);
+        assertEquals(6, token.getStart());
+        assertEquals(8, token.getEnd());
+    }
+    
+    public void testPosition() {
+        ByteBuffer bytes = utf8("xx abc 123");
+        bytes.position(3);
+        bytes.limit(8);
+        ByteBufferTokenizer tokenizer = new ByteBufferTokenizer(bytes.slice());
+        
+        Token token = tokenizer.next();
+        assertToken("abc", token);
+        assertEquals(0, token.getStart());
+        assertToken(1, tokenizer.next());
+        assertEquals(null, tokenizer.next());
+        assertEquals(3, bytes.position());
+    }
+    
+    public void testMalformed() {
+        ByteBuffer bytes = ByteBuffer.wrap(new byte[] {
+            '1', (byte) 0xC3, '2', (byte) 0xE2, (byte) 0x82, 'a', (byte) 0xFF
+        });
+        ByteBufferTokenizer tokenizer = new ByteBufferTokenizer(bytes);
+        
+        assertToken(1, tokenizer.next());
+        assertToken('�', tokenizer.next());
+        assertToken(2, tokenizer.next());
+        assertToken('�', tokenizer.next());
+        assertToken('�', tokenizer.next());
+        assertToken("a", tokenizer.next());
+        assertToken('�', tokenizer.next());
+        assertEquals(null, tokenizer.next());
+    }
+    
+    public void testSameTokensAsCharSequenceTokenizer() {
+        assertSameTokens(TEXT, utf8(TEXT));
+        assertSameTokens(TEXT, direct(TEXT));
+        
+        Random random = new Random(42);
+        String alphabet = "ab1 9/:\néà ١中"
+                + "📅";
+        for (int n = 0; n < 200; n++) {
+            StringBuilder text = new StringBuilder();
+            for (int i = random.nextInt(40); i > 0; i--) {
+                int index = random.nextInt(alphabet.length());
+                if (Character.isLowSurrogate(alphabet.charAt(index))) {
+                    index--;
+                }
+                text.appendCodePoint(alphabet.codePointAt(index));
+            }
+            assertSameTokens(text.toString(), direct(text.toString()));
+        }
+    }
+    
+    public void testSameKeywords() throws TokenizerException {
+        Keywords keywords = Keywords.forLocales(Locale.ENGLISH,
+                Locale.FRENCH, Locale.GERMAN);
+        TokenBuffer expected = new TokenBuffer(new CharSequenceTokenizer(TEXT),
+                keywords);
+        TokenBuffer actual = new TokenBuffer(
+                new ByteBufferTokenizer(direct(TEXT)), keywords);
+        
+        int keywordCount = 0;
+        while (expected.getType(0) != null) {
+            if (expected.getType(0) == TokenType.SEPARATOR
+                    && isLowSurrogate(expected.getChar(0))) {
+                expected.advance();
+                continue;
+            }
+            assertEquals(expected.getType(0), actual.getType(0));
+            if (expected.getType(0) == TokenType.STRING) {
+                assertEquals(expected.getKeyword(0), actual.getKeyword(0));
+                if (expected.getKeyword(0) != null) {
+                    keywordCount++;
+                }
+            } else if (expected.getType(0) == TokenType.NUMBER) {
+                assertEquals(expected.getInt(0), actual.getInt(0));
+            } else {
+                assertEquals(expected.getChar(0), actual.getChar(0));
+            }
+            expected.advance();
+            actual.advance();
+        }
+        assertNull(actual.getType(0));
+        assertTrue(keywordCount >= 6);
+    }
+    
+    private static void assertSameTokens(String text, ByteBuffer bytes) {
+        CharSequenceTokenizer expected = new CharSequenceTokenizer(text);
+        ByteBufferTokenizer actual = new ByteBufferTokenizer(bytes);
+        
+        while (true) {
+            Token e = expected.next();
+            if (e != null && isLowSurrogate(e.getValue())) {
+                // The low surrogate of a pair isn't a token of its own
+                continue;
+            }
+            Token a = actual.next();
+            if (e == null) {
+                assertNull(text, a);
+                return;
+            }
+            assertToken(e.getType(), e.getValue(), a);
+            assertEquals(e.getLine(), a.getLine());
+        }
+    }
+    
+    private static boolean isLowSurrogate(Object value) {
+        return value instanceof Character
+                && Character.isLowSurrogate((Character) value);
+    }
+    
+    private static ByteBuffer utf8(String text) {
+        return ByteBuffer.wrap(text.getBytes(StandardCharsets.UTF_8));
+    }
+    
+    private static ByteBuffer direct(String text) {
+        byte[] bytes = text.getBytes(StandardCharsets.UTF_8);
+        ByteBuffer buffer = ByteBuffer.allocateDirect(bytes.length);
+        buffer.put(bytes).flip();
+        return buffer;
+    }
+    
+}
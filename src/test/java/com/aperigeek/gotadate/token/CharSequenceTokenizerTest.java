@@ -0,0 +1,122 @@
+/*
+ * This file is part of gotadate.
+ *
+ * gotadate is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * gotadate is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with gotadate.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.aperigeek.gotadate.token;
+
+import com.aperigeek.gotadate.TestCase;
+import java.io.StringReader;
+import java.nio.CharBuffer;
+
+/**
+ *
+ * @author Vivien Barousse
+ */
+public class CharSequenceTokenizerTest extends TestCase {
+    
+    public void testBasicBehaviour() {
+        CharSequenceTokenizer tokenizer = new CharSequenceTokenizer("abc def 123");
+        
+        assertToken("abc", tokenizer.next());
+        assertToken("def", tokenizer.next());
+        assertToken(123, tokenizer.next());
+        assertEquals(null, tokenizer.next());
+    }
+    
+    public void testSpaces() {
+        CharSequenceTokenizer tokenizer = new CharSequenceTokenizer("   abc  123   ");
+        
+        assertToken("abc", tokenizer.next());
+        assertToken(123, tokenizer.next());
+        assertEquals(null, tokenizer.next());
+    }
+    
+    public void testEmpty() {
+        assertEquals(null, new CharSequenceTokenizer("").next());
+        assertEquals(null, new CharSequenceTokenizer("    ").next());
+    }
+    
+    public void testSpecialChars() {
+        CharSequenceTokenizer tokenizer = new CharSequenceTokenizer(".!@#");
+        
+        assertToken('.', tokenizer.next());
+        assertToken('!', tokenizer.next());
+        assertToken('@', tokenizer.next());
+        assertToken('#', tokenizer.next());
+        assertEquals(null, tokenizer.next());
+    }
+    
+    public void testRange() {
+        CharSequenceTokenizer tokenizer = new CharSequenceTokenizer("abc def 123", 4, 9);
+        
+        assertToken("def", tokenizer.next());
+        assertToken(1, tokenizer.next());
+        assertEquals(null, tokenizer.next());
+    }
+    
+    public void testCharArrayRange() {
+        char[] array = "abc def 123".toCharArray();
+        CharSequenceTokenizer tokenizer = new CharSequenceTokenizer(array, 4, 5);
+        
+        assertToken("def", tokenizer.next());
+        assertToken(1, tokenizer.next());
+        assertEquals(null, tokenizer.next());
+    }
+    
+    public void testCharBuffer() {
+        CharBuffer buffer = CharBuffer.wrap("xx abc 123".toCharArray());
+        buffer.position(3);
+        CharSequenceTokenizer tokenizer = new CharSequenceTokenizer(buffer.slice());
+        
+        assertToken("abc", tokenizer.next());
+        assertToken(123, tokenizer.next());
+        assertEquals(null, tokenizer.next());
+    }
+    
+    public void testReset() {
+        CharSequenceTokenizer tokenizer = new CharSequenceTokenizer("abc\n12");
+        tokenizer.next();
+        tokenizer.next();
+        
+        tokenizer.reset("def 34");
+        Token token = tokenizer.next();
+        assertToken("def", token);
+        assertEquals(1, token.getLine());
+        assertEquals(1, token.getCol());
+        assertToken(34, tokenizer.next());
+        assertEquals(null, tokenizer.next());
+    }
+    
+    public void testSameTokensAsDateTokenizer() throws Exception {
+        String text = "Hello World,\n see you Tomorrow at 5PM\r\n"
+                + "or on 23/10/1988 11:30:00\tOK?\n\nÉté 2011";
+        DateTokenizer expected = new DateTokenizer(new StringReader(text));
+        CharSequenceTokenizer actual = new CharSequenceTokenizer(text);
+        
+        Token e, a;
+        do {
+            e = expected.next();
+            a = actual.next();
+            if (e == null) {
+                assertNull(a);
+            } else {
+                assertToken(e.getType(), e.getValue(), a);
+                assertEquals(e.getLine(), a.getLine());
+                assertEquals(e.getCol(), a.getCol());
+            }
+        } while (e != null);
+    }
+    
+}
@@ -72,4 +72,13 @@ public class DateTokenizerTest extends TestCase {
         assertEquals(null, tokenizer.next());
     }
     
+    public void testVeryLongNumber() throws TokenizerException {
+        StringReader reader = new StringReader("123456789012345 1");
+        DateTokenizer tokenizer = new DateTokenizer(reader);
+        
+        assertToken(Integer.MAX_VALUE, tokenizer.next());
+        assertToken(1, tokenizer.next());
+        assertEquals(null, tokenizer.next());
+    }
+    
 }
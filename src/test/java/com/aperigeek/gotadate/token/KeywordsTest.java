@@ -0,0 +1,132 @@
+/*
+ * This file is part of gotadate.
+ *
+ * gotadate is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * gotadate is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with gotadate.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.aperigeek.gotadate.token;
+
+import java.util.EnumSet;
+import java.util.Locale;
+import java.util.Set;
+import junit.framework.TestCase;
+
+/**
+ *
+ * @author Vivien Barousse
+ */
+public class KeywordsTest extends TestCase {
+    
+    private Keywords keywords = Keywords.getDefault();
+    
+    public void testLookup() {
+        assertEquals(Keyword.OCTOBER, keywords.lookup("october"));
+        assertEquals(Keyword.OCTOBER, keywords.lookup("oct"));
+        assertEquals(Keyword.ORDINAL, keywords.lookup("rd"));
+        assertEquals(Keyword.TOMORROW, keywords.lookup("tomorrow"));
+        assertEquals(Keyword.PM, keywords.lookup("pm"));
+    }
+    
+    public void testCaseInsensitive() {
+        assertEquals(Keyword.OCTOBER, keywords.lookup("October"));
+        assertEquals(Keyword.YESTERDAY, keywords.lookup("YESTERDAY"));
+        assertEquals(Keyword.PM, keywords.lookup("pM"));
+    }
+    
+    public void testPrefixes() {
+        assertNull(keywords.lookup(""));
+        assertNull(keywords.lookup("m"));
+        assertNull(keywords.lookup("ma"));
+        assertEquals(Keyword.MARCH, keywords.lookup("mar"));
+        assertNull(keywords.lookup("marc"));
+        assertEquals(Keyword.MARCH, keywords.lookup("march"));
+        assertNull(keywords.lookup("marches"));
+        assertEquals(Keyword.SEPTEMBER, keywords.lookup("sep"));
+        assertEquals(Keyword.SEPTEMBER, keywords.lookup("sept"));
+    }
+    
+    public void testNotKeywords() {
+        assertNull(keywords.lookup("hello"));
+        assertNull(keywords.lookup("été"));
+        assertNull(keywords.lookup("days3"));
+    }
+    
+    public void testMatchRange() {
+        char[] text = "see you tomorrow at 5".toCharArray();
+        assertNull(keywords.match(text, 0, 3));
+        assertEquals(Keyword.TOMORROW, keywords.match(text, 8, 16));
+        assertEquals(Keyword.AT, keywords.match(text, 17, 19));
+        assertEquals(Keyword.AT, keywords.match("xxAtxx", 2, 4));
+    }
+    
+    public void testMonthAndOrdinal() {
+        assertTrue(keywords.isMonth("dec"));
+        assertEquals(12, keywords.getMonth("December"));
+        assertFalse(keywords.isMonth("days"));
+        assertEquals(0, keywords.getMonth("days"));
+        assertTrue(keywords.isOrdinal("TH"));
+        assertFalse(keywords.isOrdinal("at"));
+    }
+    
+    public void testMayStart() {
+        Set<Keyword> relative = EnumSet.of(Keyword.YESTERDAY, Keyword.TOMORROW);
+        
+        assertTrue(keywords.mayStart('t', relative));
+        assertTrue(keywords.mayStart('Y', relative));
+        assertFalse(keywords.mayStart('a', relative));
+        assertTrue(keywords.mayStart('a', EnumSet.of(Keyword.AGO)));
+        assertFalse(keywords.mayStart('x', EnumSet.allOf(Keyword.class)));
+    }
+    
+    public void testVocabularies() {
+        Keywords all = Keywords.of(Vocabulary.ENGLISH, Vocabulary.FRENCH,
+                Vocabulary.GERMAN, Vocabulary.SPANISH);
+        
+        assertEquals(Keyword.OCTOBER, all.lookup("october"));
+        assertEquals(Keyword.OCTOBER, all.lookup("Octobre"));
+        assertEquals(Keyword.OCTOBER, all.lookup("OKTOBER"));
+        assertEquals(Keyword.OCTOBER, all.lookup("octubre"));
+        assertEquals(Keyword.MARCH, all.lookup("MÄRZ"));
+        assertEquals(Keyword.AUGUST, all.lookup("Août"));
+        assertEquals(Keyword.YESTERDAY, all.lookup("ayer"));
+        assertEquals(Keyword.TOMORROW, all.lookup("demain"));
+        assertEquals(Keyword.BEFORE, all.lookup("vor"));
+        assertEquals(Keyword.ORDINAL, all.lookup("er"));
+        assertEquals(Keyword.OF, all.lookup("de"));
+        assertNull(all.lookup("été"));
+        assertNull(all.lookup("Morgen"));
+        assertNull(all.lookup("mañana"));
+        assertNull(keywords.lookup("octobre"));
+    }
+    
+    public void testVocabularyConflicts() {
+        assertEquals(Keyword.AGO, Keywords.of(Vocabulary.ENGLISH,
+                Vocabulary.SPANISH).lookup("ago"));
+        assertEquals(Keyword.AUGUST, Keywords.of(Vocabulary.SPANISH,
+                Vocabulary.ENGLISH).lookup("ago"));
+    }
+    
+    public void testForLocales() {
+        Keywords french = Keywords.forLocales(Locale.FRANCE);
+        assertEquals(Keyword.DECEMBER, french.lookup("décembre"));
+        assertNull(french.lookup("december"));
+        
+        try {
+            Keywords.forLocales(Locale.JAPANESE);
+            fail();
+        } catch (IllegalArgumentException ex) {
+            // Expected
+        }
+    }
+    
+}
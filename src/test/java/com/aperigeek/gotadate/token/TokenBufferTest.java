@@ -0,0 +1,120 @@
+/*
+ * This file is part of gotadate.
+ *
+ * gotadate is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * gotadate is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with gotadate.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.aperigeek.gotadate.token;
+
+import java.io.StringReader;
+import junit.framework.TestCase;
+
+/**
+ *
+ * @author Vivien Barousse
+ */
+public class TokenBufferTest extends TestCase {
+    
+    public void testAttributes() throws TokenizerException {
+        TokenBuffer buffer = new TokenBuffer(
+                new CharSequenceTokenizer("On October 23rd, 1988"));
+        
+        assertEquals(TokenType.STRING, buffer.getType(0));
+        assertNull(buffer.getKeyword(0));
+        assertEquals(0, buffer.getStart(0));
+        assertEquals(2, buffer.getEnd(0));
+        
+        assertEquals(TokenType.STRING, buffer.getType(1));
+        assertEquals(Keyword.OCTOBER, buffer.getKeyword(1));
+        assertEquals(3, buffer.getStart(1));
+        assertEquals(10, buffer.getEnd(1));
+        
+        assertEquals(TokenType.NUMBER, buffer.getType(2));
+        assertEquals(23, buffer.getInt(2));
+        assertEquals(Keyword.ORDINAL, buffer.getKeyword(3));
+        
+        assertEquals(TokenType.SEPARATOR, buffer.getType(4));
+        assertEquals(',', buffer.getChar(4));
+        assertEquals(15, buffer.getStart(4));
+        assertEquals(16, buffer.getEnd(4));
+        
+        assertEquals(1988, buffer.getInt(5));
+        assertEquals(17, buffer.getStart(5));
+        assertEquals(21, buffer.getEnd(5));
+        assertEquals(1, buffer.getLine(5));
+        assertEquals(18, buffer.getCol(5));
+        
+        assertNull(buffer.getType(6));
+    }
+    
+    public void testAdvance() throws TokenizerException {
+        TokenBuffer buffer = new TokenBuffer(new CharSequenceTokenizer("0 1 2"));
+        
+        assertEquals(0, buffer.getInt(0));
+        assertEquals(2, buffer.getInt(2));
+        buffer.advance();
+        assertEquals(1, buffer.getInt(0));
+        buffer.advance();
+        assertEquals(2, buffer.getInt(0));
+        buffer.advance();
+        assertNull(buffer.getType(0));
+        buffer.advance();
+        assertNull(buffer.getType(0));
+    }
+    
+    public void testReset() throws TokenizerException {
+        CharSequenceTokenizer tokenizer = new CharSequenceTokenizer("12 / 10");
+        TokenBuffer buffer = new TokenBuffer(tokenizer);
+        assertEquals(10, buffer.getInt(2));
+        assertNull(buffer.getType(3));
+        
+        tokenizer.reset("tomorrow");
+        buffer.reset(tokenizer);
+        assertEquals(Keyword.TOMORROW, buffer.getKeyword(0));
+        assertEquals(0, buffer.getStart(0));
+        assertNull(buffer.getType(1));
+    }
+    
+    public void testDeepLookAhead() throws TokenizerException {
+        StringBuilder text = new StringBuilder();
+        for (int i = 0; i < 100; i++) {
+            text.append(i).append(' ');
+        }
+        TokenBuffer buffer = new TokenBuffer(new CharSequenceTokenizer(text));
+        
+        buffer.advance();
+        assertEquals(99, buffer.getInt(98));
+        for (int i = 1; i < 100; i++) {
+            assertEquals(i, buffer.getInt(0));
+            buffer.advance();
+        }
+        assertNull(buffer.getType(0));
+    }
+    
+    public void testReaderOffsets() throws TokenizerException {
+        TokenBuffer buffer = new TokenBuffer(new DateTokenizer(
+                new StringReader("  at 10\nPM")));
+        
+        assertEquals(Keyword.AT, buffer.getKeyword(0));
+        assertEquals(2, buffer.getStart(0));
+        assertEquals(4, buffer.getEnd(0));
+        assertEquals(5, buffer.getStart(1));
+        assertEquals(7, buffer.getEnd(1));
+        assertEquals('\n', buffer.getChar(2));
+        assertEquals(Keyword.PM, buffer.getKeyword(3));
+        assertEquals(8, buffer.getStart(3));
+        assertEquals(10, buffer.getEnd(3));
+        assertEquals(2, buffer.getLine(3));
+    }
+    
+}